@@ -11,6 +11,8 @@ import java.io.FilenameFilter;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.HashSet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import javax.swing.SwingUtilities;
 import javax.swing.Timer;
 
@@ -124,6 +126,7 @@ public class CefApp extends CefAppHandlerAdapter {
     private static CefAppHandler appHandler_ = null;
     private static CefAppState state_ = CefAppState.NONE;
     private Timer workTimer_ = null;
+    private volatile CefMessagePump messagePump_ = null;
     private HashSet<CefClient> clients_ = new HashSet<CefClient>();
     private CefSettings settings_ = null;
 
@@ -254,7 +257,7 @@ public class CefApp extends CefAppHandlerAdapter {
             state_ = state;
         }
         // Execute on the AWT event dispatching thread.
-        SwingUtilities.invokeLater(new Runnable() {
+        CefMessageLoopStatistics.invokeLater("CefApp", new Runnable() {
             @Override
             public void run() {
                 if (appHandler_ != null) appHandler_.stateHasChanged(state);
@@ -316,7 +319,7 @@ public class CefApp extends CefAppHandlerAdapter {
 
             case INITIALIZING:
             case INITIALIZED:
-                CefClient client = new CefClient();
+                CefClient client = new CefClient(this);
                 clients_.add(client);
                 return client;
 
@@ -412,6 +415,29 @@ public class CefApp extends CefAppHandlerAdapter {
                             settings.locales_dir_path = library_path + "/locales";
                     }
 
+                    if (settings.message_loop_statistics) {
+                        CefMessageLoopStatistics.install(
+                                settings.message_loop_long_iteration_threshold);
+                    }
+
+                    if (settings.message_pump_scheduler_enabled) {
+                        messagePump_ = new CefMessagePump(new Runnable() {
+                            @Override
+                            public void run() {
+                                CefMessagePump messagePump = messagePump_;
+                                if (messagePump == null || getState() == CefAppState.TERMINATED)
+                                    return;
+                                runMessageLoopWork(messagePump.getWorkDueNanos());
+                            }
+                        }, new Executor() {
+                            @Override
+                            public void execute(Runnable command) {
+                                // CEF must be called on the thread that initialized it.
+                                CefMessageLoopStatistics.invokeLater("CefMessagePump", command);
+                            }
+                        }, settings.message_pump_max_idle_delay);
+                    }
+
                     if (N_Initialize(library_path, appHandler_, settings))
                         setState(CefAppState.INITIALIZED);
                 }
@@ -433,7 +459,7 @@ public class CefApp extends CefAppHandlerAdapter {
         System.out.println("Cmd+Q termination request.");
         // Execute on the AWT event dispatching thread. Always call asynchronously
         // so the call stack has a chance to unwind.
-        SwingUtilities.invokeLater(new Runnable() {
+        CefMessageLoopStatistics.invokeLater("CefApp", new Runnable() {
             @Override
             public void run() {
                 CefAppHandler handler =
@@ -449,15 +475,21 @@ public class CefApp extends CefAppHandlerAdapter {
     private final void shutdown() {
         // Execute on the AWT event dispatching thread. Always call asynchronously
         // so the call stack has a chance to unwind.
-        SwingUtilities.invokeLater(new Runnable() {
+        CefMessageLoopStatistics.invokeLater("CefApp", new Runnable() {
             @Override
             public void run() {
                 System.out.println("shutdown on " + Thread.currentThread());
 
+                if (messagePump_ != null) {
+                    messagePump_.dispose();
+                    messagePump_ = null;
+                }
+
                 // Shutdown native CEF.
                 N_Shutdown();
 
                 setState(CefAppState.TERMINATED);
+                CefMessageLoopStatistics.uninstall();
                 CefApp.self = null;
             }
         });
@@ -468,8 +500,15 @@ public class CefApp extends CefAppHandlerAdapter {
      * Windows with windowed rendering.
      */
     public final void doMessageLoopWork(final long delay_ms) {
+        CefMessagePump messagePump = messagePump_;
+        if (messagePump != null) {
+            messagePump.schedule(delay_ms);
+            return;
+        }
+
+        final long requested = System.nanoTime();
         // Execute on the AWT event dispatching thread.
-        SwingUtilities.invokeLater(new Runnable() {
+        CefMessageLoopStatistics.invokeLater("CefApp", new Runnable() {
             @Override
             public void run() {
                 if (getState() == CefAppState.TERMINATED) return;
@@ -485,7 +524,7 @@ public class CefApp extends CefAppHandlerAdapter {
 
                 if (delay_ms <= 0) {
                     // Execute the work immediately.
-                    N_DoMessageLoopWork();
+                    runMessageLoopWork(requested);
 
                     // Schedule more work later.
                     doMessageLoopWork(kMaxTimerDelay);
@@ -493,6 +532,8 @@ public class CefApp extends CefAppHandlerAdapter {
                     long timer_delay_ms = delay_ms;
                     // Never wait longer than the maximum allowed time.
                     if (timer_delay_ms > kMaxTimerDelay) timer_delay_ms = kMaxTimerDelay;
+                    final long due =
+                            System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timer_delay_ms);
 
                     workTimer_ = new Timer((int) timer_delay_ms, new ActionListener() {
                         @Override
@@ -501,7 +542,7 @@ public class CefApp extends CefAppHandlerAdapter {
                             workTimer_.stop();
                             workTimer_ = null;
 
-                            N_DoMessageLoopWork();
+                            runMessageLoopWork(due);
 
                             // Schedule more work later.
                             doMessageLoopWork(kMaxTimerDelay);
@@ -513,6 +554,47 @@ public class CefApp extends CefAppHandlerAdapter {
         });
     }
 
+    /**
+     * Perform a single message loop iteration on the AWT event dispatching
+     * thread and record it in the message loop statistics, if enabled.
+     * @param dueNanos The System.nanoTime() at which the iteration was due.
+     */
+    private final void runMessageLoopWork(long dueNanos) {
+        CefMessageLoopStatistics statistics = CefMessageLoopStatistics.getInstance();
+        if (statistics == null) {
+            N_DoMessageLoopWork();
+            return;
+        }
+        final long start = System.nanoTime();
+        N_DoMessageLoopWork();
+        statistics.recordIteration(Math.max(start - dueNanos, 0), System.nanoTime() - start);
+    }
+
+    /**
+     * Returns the message loop statistics, or null if
+     * CefSettings.message_loop_statistics isn't set or CEF isn't initialized.
+     */
+    public final CefMessageLoopStatistics getMessageLoopStatistics() {
+        return CefMessageLoopStatistics.getInstance();
+    }
+
+    /**
+     * Called by CefClient when a browser paints, to keep the message loop at its
+     * full rate.
+     */
+    final void onBrowserPaint() {
+        CefMessagePump messagePump = messagePump_;
+        if (messagePump != null) messagePump.onActivity();
+    }
+
+    /**
+     * Called by CefClient when a browser starts or stops loading.
+     */
+    final void onBrowserLoading(boolean loading) {
+        CefMessagePump messagePump = messagePump_;
+        if (messagePump != null) messagePump.setLoading(loading);
+    }
+
     /**
      * This method must be called at the beginning of the main() method to perform platform-
      * specific startup initialization. On Linux this initializes Xlib multithreading and on
@@ -0,0 +1,183 @@
+// Copyright (c) 2020 The Chromium Embedded Framework Authors. All rights
+// reserved. Use of this source code is governed by a BSD-style license that
+// can be found in the LICENSE file.
+
+package org.cef;
+
+/**
+ * Browser initialization settings. Specify NULL or 0 to get the recommended
+ * default values. The consequences of using custom values may not be well
+ * tested. Many of these and other settings can also configured using command-
+ * line switches.
+ */
+public class CefBrowserSettings {
+    /**
+     * The number of OpenGL pixel buffer objects (PBOs) used to upload off-screen
+     * rendered content. If set to a value of 2 or more, paint callbacks only
+     * copy the dirty regions into a mapped pixel buffer and return immediately;
+     * the texture is updated asynchronously on the next display of the canvas.
+     * Specify 0 (default value) to upload the dirty regions synchronously from
+     * within the paint callback. Only used with off-screen rendering.
+     */
+    public int windowless_pixel_buffer_count = 0;
+
+    /**
+     * Set to true to upload and draw off-screen rendered content on a dedicated
+     * render thread. Paint callbacks then only copy the dirty regions into a
+     * staging buffer and never make the OpenGL context current on the browser
+     * thread. Browsers with windowless_shared_textures set share one render
+     * thread, which uploads the paints of all of them in one pass. Only used
+     * with OpenGL off-screen rendering.
+     */
+    public boolean windowless_render_thread = false;
+
+    /**
+     * Set to true to share the OpenGL context objects of all off-screen rendered
+     * browsers that have this set, so that released view textures are reused by
+     * other browsers instead of being reallocated. Only used with OpenGL
+     * off-screen rendering.
+     */
+    public boolean windowless_shared_textures = false;
+
+    /**
+     * Set to true (default value) to draw off-screen rendered content with a
+     * GLSL shader program and a persistent vertex buffer. Texture uploads then
+     * skip the BGRA to RGBA conversion, which the shader performs instead. Set
+     * to false to use the fixed-function OpenGL pipeline. The fixed-function
+     * pipeline is also used if the OpenGL context doesn't support shaders.
+     */
+    public boolean windowless_shader_rendering = true;
+
+    /**
+     * The size in pixels of the square textures that off-screen rendered content
+     * is split into. Dirty regions then only touch the tiles they intersect, and
+     * views larger than the maximum OpenGL texture size can be displayed.
+     * Specify 0 (default value) to use a single texture, unless the view
+     * exceeds the maximum texture size. Only used with OpenGL off-screen
+     * rendering.
+     */
+    public int windowless_texture_tile_size = 0;
+
+    /**
+     * Set to true to render off-screen browsers into a BufferedImage in memory
+     * instead of an OpenGL canvas. This avoids any dependency on graphics
+     * hardware and works in headless environments. The OpenGL specific settings
+     * of this class are ignored in this mode.
+     */
+    public boolean windowless_software_rendering = false;
+
+    /**
+     * Set to true to merge overlapping, touching or nearby dirty rectangles of
+     * off-screen rendered paint events before they are uploaded. See
+     * |windowless_dirty_rect_waste_ratio| and |windowless_dirty_rect_max_count|.
+     * Only used with off-screen rendering.
+     */
+    public boolean windowless_dirty_rect_merging_enabled = true;
+
+    /**
+     * Fraction (0.0 to 1.0) of a merged dirty rectangle which may consist of
+     * pixels that were not actually dirty.
+     */
+    public double windowless_dirty_rect_waste_ratio = 0.25;
+
+    /**
+     * Number of dirty rectangles above which the whole frame is uploaded
+     * instead.
+     */
+    public int windowless_dirty_rect_max_count = 16;
+
+    /**
+     * The maximum rate in frames per second at which an off-screen rendered
+     * browser redraws its canvas. Paints arriving in between are coalesced into
+     * the next redraw. Specify 0 to redraw after every paint.
+     */
+    public int windowless_max_display_rate = 60;
+
+    /**
+     * The time in milliseconds that the size of an off-screen rendering canvas
+     * has to stay unchanged before the browser is resized to it. In the
+     * meantime, e.g. while a window is being resized, the last frame is
+     * stretched to the canvas. Specify 0 to resize the browser on every change.
+     */
+    public int windowless_resize_delay = 100;
+
+    /**
+     * Set to true to collect paint statistics of off-screen rendered browsers,
+     * see CefBrowser.getPaintStatistics(). The statistics are also registered
+     * as JMX MBeans. Specify false (default value) to avoid any overhead.
+     */
+    public boolean windowless_paint_statistics = false;
+
+    /**
+     * Set to true to synchronize buffer swaps of the off-screen rendering
+     * canvas with the vertical refresh of the display.
+     */
+    public boolean windowless_vsync_enabled = false;
+
+    /**
+     * The number of frames kept in the frame ring of an off-screen rendered
+     * browser, see CefBrowser.getFrameRing(). Every painted frame is copied into
+     * the ring, so only enable this if the frames are consumed. Specify 0
+     * (default value) to disable the frame ring.
+     */
+    public int windowless_frame_ring_size = 0;
+
+    /**
+     * The maximum rate in frames per second (fps) at which an off-screen
+     * rendered browser paints, from 1 to 60. Specify 0 (default value) to use
+     * the default rate of 30. Can be changed later using
+     * CefBrowser.setWindowlessFrameRate().
+     */
+    public int windowless_frame_rate = 0;
+
+    /**
+     * The frame rate of an off-screen rendered browser while its UI component
+     * is not showing, its window is minimized, or it is scrolled out of view.
+     * Consumers of the frame ring, e.g. thumbnails of background browsers or
+     * recordings, receive frames at this rate as well. Specify 0 (default
+     * value) to keep painting at the normal rate.
+     */
+    public int windowless_hidden_frame_rate = 0;
+
+    /**
+     * Set to true to stop layout and painting completely while an off-screen
+     * rendered browser is not visible, instead of only lowering its frame rate.
+     * Has no effect if |windowless_hidden_frame_rate| is 0.
+     */
+    public boolean windowless_hide_when_invisible = false;
+
+    /**
+     * Set to true to let an off-screen rendered browser produce frames only
+     * when CefBrowser.sendExternalBeginFrame() is called, e.g. by a
+     * CefBeginFrameDriver, instead of at |windowless_frame_rate|. This allows
+     * capturing pages deterministically and as fast as they render. The
+     * browser doesn't update on its own in this mode.
+     */
+    public boolean windowless_external_begin_frame = false;
+
+    public CefBrowserSettings() {}
+
+    @Override
+    public CefBrowserSettings clone() {
+        CefBrowserSettings tmp = new CefBrowserSettings();
+        tmp.windowless_pixel_buffer_count = windowless_pixel_buffer_count;
+        tmp.windowless_software_rendering = windowless_software_rendering;
+        tmp.windowless_shared_textures = windowless_shared_textures;
+        tmp.windowless_render_thread = windowless_render_thread;
+        tmp.windowless_shader_rendering = windowless_shader_rendering;
+        tmp.windowless_texture_tile_size = windowless_texture_tile_size;
+        tmp.windowless_dirty_rect_merging_enabled = windowless_dirty_rect_merging_enabled;
+        tmp.windowless_dirty_rect_waste_ratio = windowless_dirty_rect_waste_ratio;
+        tmp.windowless_dirty_rect_max_count = windowless_dirty_rect_max_count;
+        tmp.windowless_max_display_rate = windowless_max_display_rate;
+        tmp.windowless_vsync_enabled = windowless_vsync_enabled;
+        tmp.windowless_paint_statistics = windowless_paint_statistics;
+        tmp.windowless_resize_delay = windowless_resize_delay;
+        tmp.windowless_frame_ring_size = windowless_frame_ring_size;
+        tmp.windowless_frame_rate = windowless_frame_rate;
+        tmp.windowless_hidden_frame_rate = windowless_hidden_frame_rate;
+        tmp.windowless_hide_when_invisible = windowless_hide_when_invisible;
+        tmp.windowless_external_begin_frame = windowless_external_begin_frame;
+        return tmp;
+    }
+}
@@ -0,0 +1,166 @@
+// Copyright (c) 2020 The Chromium Embedded Framework Authors. All rights
+// reserved. Use of this source code is governed by a BSD-style license that
+// can be found in the LICENSE file.
+
+package org.cef;
+
+import org.cef.CefClient.CallbackCategory;
+import org.cef.browser.CefBrowser;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Routes handler callbacks of a CefClient to the executors configured for their
+ * category. Callbacks of a category without an executor run synchronously on
+ * the calling CEF thread. Otherwise the callbacks of each browser are queued
+ * and handed to the executor one at a time, so that they run in order even on
+ * an executor with many threads.
+ */
+class CefCallbackDispatcher {
+    private final Executor[] executors_ = new Executor[CallbackCategory.values().length];
+    // One queue per category and browser identifier, guarded by this.
+    private final Map<Long, SerialQueue> queues_ = new HashMap<Long, SerialQueue>();
+
+    /**
+     * A queue of tasks that are executed one after the other on an executor. A
+     * queue that is running keeps draining on the executor it was started on;
+     * a new executor is only used once it's idle.
+     */
+    private static final class SerialQueue implements Runnable {
+        private Executor executor_;
+        private final ArrayDeque<Runnable> tasks_ = new ArrayDeque<Runnable>();
+        private boolean running_ = false;
+
+        SerialQueue(Executor executor) {
+            executor_ = executor;
+        }
+
+        void setExecutor(Executor executor) {
+            synchronized (tasks_) {
+                executor_ = executor;
+            }
+        }
+
+        boolean isRunning() {
+            synchronized (tasks_) {
+                return running_;
+            }
+        }
+
+        void add(Runnable task) {
+            Executor executor;
+            synchronized (tasks_) {
+                tasks_.add(task);
+                if (running_) return;
+                running_ = true;
+                executor = executor_;
+            }
+            if (executor != null) {
+                executor.execute(this);
+            } else {
+                // The category became synchronous while the task was queued.
+                run();
+            }
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                Runnable task;
+                synchronized (tasks_) {
+                    task = tasks_.poll();
+                    if (task == null) {
+                        running_ = false;
+                        return;
+                    }
+                }
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    // Don't stall the callbacks of the browser.
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /**
+     * Set the executor of a category, or null to run its callbacks synchronously.
+     * Queues of the category that are running keep running on the previous
+     * executor until they are empty, so callbacks of a browser never overtake
+     * each other. Queues of other categories are not affected.
+     */
+    synchronized void setExecutor(CallbackCategory category, Executor executor) {
+        executors_[category.ordinal()] = executor;
+        for (Map.Entry<Long, SerialQueue> entry : queues_.entrySet()) {
+            if (getCategory(entry.getKey()) == category.ordinal()) {
+                entry.getValue().setExecutor(executor);
+            }
+        }
+    }
+
+    /**
+     * Returns true if the callbacks of a category run synchronously for |browser|,
+     * i.e. the category has no executor and no earlier callbacks are still
+     * queued.
+     */
+    synchronized boolean isDirect(CallbackCategory category, CefBrowser browser) {
+        if (executors_[category.ordinal()] != null) return false;
+        SerialQueue queue = queues_.get(getKey(category, browser.getIdentifier()));
+        return queue == null || !queue.isRunning();
+    }
+
+    /**
+     * Run a callback of a browser on the executor of its category.
+     */
+    void dispatch(CallbackCategory category, CefBrowser browser, Runnable task) {
+        dispatch(category, browser.getIdentifier(), task);
+    }
+
+    /**
+     * Run a callback of the browser with |identifier| on the executor of its
+     * category.
+     */
+    void dispatch(CallbackCategory category, int identifier, Runnable task) {
+        SerialQueue queue;
+        synchronized (this) {
+            Executor executor = executors_[category.ordinal()];
+            Long key = getKey(category, identifier);
+            queue = queues_.get(key);
+            if (executor == null) {
+                // Callbacks of the previous executor that are still queued run first.
+                if (queue != null && !queue.isRunning()) {
+                    queues_.remove(key);
+                    queue = null;
+                }
+            } else if (queue == null) {
+                queue = new SerialQueue(executor);
+                queues_.put(key, queue);
+            }
+        }
+        if (queue != null)
+            queue.add(task);
+        else
+            task.run();
+    }
+
+    /**
+     * Forget the queues of a closed browser. Queued callbacks still run.
+     */
+    synchronized void removeBrowser(int identifier) {
+        for (CallbackCategory category : CallbackCategory.values()) {
+            queues_.remove(getKey(category, identifier));
+        }
+    }
+
+    private static Long getKey(CallbackCategory category, int identifier) {
+        return ((long) category.ordinal() << 32) | (identifier & 0xffffffffL);
+    }
+
+    private static int getCategory(Long key) {
+        return (int) (key >>> 32);
+    }
+}
@@ -54,7 +54,9 @@ import java.beans.PropertyChangeListener;
 import java.nio.ByteBuffer;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Vector;
+import java.util.concurrent.Executor;
 
 import javax.swing.SwingUtilities;
 
@@ -66,7 +68,35 @@ public class CefClient extends CefClientHandler
                    CefDragHandler, CefFocusHandler, CefJSDialogHandler, CefKeyboardHandler,
                    CefLifeSpanHandler, CefLoadHandler, CefRenderHandler, CefRequestHandler,
                    CefWindowHandler {
+    /**
+     * Categories of notification-only handler callbacks, which can be run on an
+     * executor of the application instead of the calling CEF thread. See
+     * setCallbackExecutor().
+     */
+    public enum CallbackCategory {
+        /**
+         * CefDisplayHandler.onAddressChange, onTitleChange and onStatusMessage.
+         */
+        DISPLAY,
+        /**
+         * All CefLoadHandler callbacks.
+         */
+        LOAD,
+        /**
+         * All CefDownloadHandler callbacks.
+         */
+        DOWNLOAD,
+        /**
+         * CefFocusHandler.onTakeFocus and onGotFocus.
+         */
+        FOCUS
+    }
+
     private HashMap<Integer, CefBrowser> browser_ = new HashMap<Integer, CefBrowser>();
+    private final CefCallbackDispatcher dispatcher_ = new CefCallbackDispatcher();
+    // Identifiers of the browsers that are loading, guarded by browser_.
+    private HashSet<Integer> loadingBrowsers_ = new HashSet<Integer>();
+    private final CefApp app_;
     private CefContextMenuHandler contextMenuHandler_ = null;
     private CefDialogHandler dialogHandler_ = null;
     private CefDisplayHandler displayHandler_ = null;
@@ -100,13 +130,29 @@ public class CefClient extends CefClientHandler
      * this class.
      * @see org.cef.CefApp.createClient()
      */
-    CefClient() throws UnsatisfiedLinkError {
+    CefClient(CefApp app) throws UnsatisfiedLinkError {
         super();
+        app_ = app;
 
         KeyboardFocusManager.getCurrentKeyboardFocusManager().addPropertyChangeListener(
                 propertyChangeListener);
     }
 
+    /**
+     * Run the handler callbacks of a category on |executor|, e.g. the AWT event
+     * dispatching thread or a thread pool, instead of the CEF thread that calls
+     * them. The callbacks of each browser still run in the order in which CEF
+     * called them, one at a time. Frames and download items passed to the
+     * callbacks are copies of their state at the time of the call.
+     * @param category The category of callbacks.
+     * @param executor The executor, or null (default value) to call the handlers
+     *         synchronously on the CEF thread.
+     */
+    public CefClient setCallbackExecutor(CallbackCategory category, Executor executor) {
+        dispatcher_.setExecutor(category, executor);
+        return this;
+    }
+
     private boolean isPartOf(Object obj, Component browserUI) {
         if (obj == browserUI) return true;
         if (obj instanceof Container) {
@@ -133,9 +179,15 @@ public class CefClient extends CefClientHandler
 
     public CefBrowser createBrowser(String url, boolean isOffscreenRendered, boolean isTransparent,
             CefRequestContext context) {
+        return createBrowser(url, isOffscreenRendered, isTransparent, context, null);
+    }
+
+    public CefBrowser createBrowser(String url, boolean isOffscreenRendered, boolean isTransparent,
+            CefRequestContext context, CefBrowserSettings settings) {
         if (isDisposed_)
             throw new IllegalStateException("Can't create browser. CefClient is disposed");
-        return CefBrowserFactory.create(this, url, isOffscreenRendered, isTransparent, context);
+        return CefBrowserFactory.create(
+                this, url, isOffscreenRendered, isTransparent, context, settings);
     }
 
     @Override
@@ -284,15 +336,32 @@ public class CefClient extends CefClientHandler
     }
 
     @Override
-    public void onAddressChange(CefBrowser browser, CefFrame frame, String url) {
-        if (displayHandler_ != null && browser != null)
-            displayHandler_.onAddressChange(browser, frame, url);
+    public void onAddressChange(final CefBrowser browser, CefFrame frame, final String url) {
+        final CefDisplayHandler handler = displayHandler_;
+        if (handler == null || browser == null) return;
+        if (dispatcher_.isDirect(CallbackCategory.DISPLAY, browser)) {
+            handler.onAddressChange(browser, frame, url);
+            return;
+        }
+        final CefFrame snapshot = CefFrameSnapshot.of(browser, frame);
+        dispatcher_.dispatch(CallbackCategory.DISPLAY, browser, new Runnable() {
+            @Override
+            public void run() {
+                handler.onAddressChange(browser, snapshot, url);
+            }
+        });
     }
 
     @Override
-    public void onTitleChange(CefBrowser browser, String title) {
-        if (displayHandler_ != null && browser != null)
-            displayHandler_.onTitleChange(browser, title);
+    public void onTitleChange(final CefBrowser browser, final String title) {
+        final CefDisplayHandler handler = displayHandler_;
+        if (handler == null || browser == null) return;
+        dispatcher_.dispatch(CallbackCategory.DISPLAY, browser, new Runnable() {
+            @Override
+            public void run() {
+                handler.onTitleChange(browser, title);
+            }
+        });
     }
 
     @Override
@@ -304,10 +373,15 @@ public class CefClient extends CefClientHandler
     }
 
     @Override
-    public void onStatusMessage(CefBrowser browser, String value) {
-        if (displayHandler_ != null && browser != null) {
-            displayHandler_.onStatusMessage(browser, value);
-        }
+    public void onStatusMessage(final CefBrowser browser, final String value) {
+        final CefDisplayHandler handler = displayHandler_;
+        if (handler == null || browser == null) return;
+        dispatcher_.dispatch(CallbackCategory.DISPLAY, browser, new Runnable() {
+            @Override
+            public void run() {
+                handler.onStatusMessage(browser, value);
+            }
+        });
     }
 
     @Override
@@ -331,17 +405,40 @@ public class CefClient extends CefClientHandler
     }
 
     @Override
-    public void onBeforeDownload(CefBrowser browser, CefDownloadItem downloadItem,
-            String suggestedName, CefBeforeDownloadCallback callback) {
-        if (downloadHandler_ != null && browser != null)
-            downloadHandler_.onBeforeDownload(browser, downloadItem, suggestedName, callback);
+    public void onBeforeDownload(final CefBrowser browser, CefDownloadItem downloadItem,
+            final String suggestedName, final CefBeforeDownloadCallback callback) {
+        final CefDownloadHandler handler = downloadHandler_;
+        if (handler == null || browser == null) return;
+        if (dispatcher_.isDirect(CallbackCategory.DOWNLOAD, browser)) {
+            handler.onBeforeDownload(browser, downloadItem, suggestedName, callback);
+            return;
+        }
+        // The callback stays valid until it is executed.
+        final CefDownloadItem snapshot = CefDownloadItemSnapshot.of(downloadItem);
+        dispatcher_.dispatch(CallbackCategory.DOWNLOAD, browser, new Runnable() {
+            @Override
+            public void run() {
+                handler.onBeforeDownload(browser, snapshot, suggestedName, callback);
+            }
+        });
     }
 
     @Override
-    public void onDownloadUpdated(
-            CefBrowser browser, CefDownloadItem downloadItem, CefDownloadItemCallback callback) {
-        if (downloadHandler_ != null && browser != null)
-            downloadHandler_.onDownloadUpdated(browser, downloadItem, callback);
+    public void onDownloadUpdated(final CefBrowser browser, CefDownloadItem downloadItem,
+            final CefDownloadItemCallback callback) {
+        final CefDownloadHandler handler = downloadHandler_;
+        if (handler == null || browser == null) return;
+        if (dispatcher_.isDirect(CallbackCategory.DOWNLOAD, browser)) {
+            handler.onDownloadUpdated(browser, downloadItem, callback);
+            return;
+        }
+        final CefDownloadItem snapshot = CefDownloadItemSnapshot.of(downloadItem);
+        dispatcher_.dispatch(CallbackCategory.DOWNLOAD, browser, new Runnable() {
+            @Override
+            public void run() {
+                handler.onDownloadUpdated(browser, snapshot, callback);
+            }
+        });
     }
 
     // CefDragHandler
@@ -374,7 +471,7 @@ public class CefClient extends CefClientHandler
     }
 
     @Override
-    public void onTakeFocus(CefBrowser browser, boolean next) {
+    public void onTakeFocus(final CefBrowser browser, final boolean next) {
         if (browser == null) return;
 
         browser.setFocus(false);
@@ -398,7 +495,14 @@ public class CefClient extends CefClientHandler
             }
         }
         focusedBrowser_ = null;
-        if (focusHandler_ != null) focusHandler_.onTakeFocus(browser, next);
+        final CefFocusHandler handler = focusHandler_;
+        if (handler == null) return;
+        dispatcher_.dispatch(CallbackCategory.FOCUS, browser, new Runnable() {
+            @Override
+            public void run() {
+                handler.onTakeFocus(browser, next);
+            }
+        });
     }
 
     @Override
@@ -413,7 +517,7 @@ public class CefClient extends CefClientHandler
 	private ThreadLocal<Boolean> hasBeenFocused = new ThreadLocal<>();
 
 	@Override
-	public void onGotFocus(CefBrowser browser) {
+	public void onGotFocus(final CefBrowser browser) {
 		if (browser == null)
 			return;
 		if (Boolean.TRUE.equals(hasBeenFocused.get())) {
@@ -425,8 +529,15 @@ public class CefClient extends CefClientHandler
 		try {
 			focusedBrowser_ = browser;
 			browser.setFocus(true);
-			if (focusHandler_ != null)
-				focusHandler_.onGotFocus(browser);
+			final CefFocusHandler handler = focusHandler_;
+			if (handler != null) {
+				dispatcher_.dispatch(CallbackCategory.FOCUS, browser, new Runnable() {
+					@Override
+					public void run() {
+						handler.onGotFocus(browser);
+					}
+				});
+			}
 		} finally {
 			hasBeenFocused.set(false);
 		}
@@ -559,6 +670,8 @@ public class CefClient extends CefClientHandler
             if (identifier >= 0) {
                 // Remove the specific browser that closed.
                 browser_.remove(identifier);
+                if (loadingBrowsers_.remove(identifier)) app_.onBrowserLoading(false);
+                dispatcher_.removeBrowser(identifier);
             } else if (!browser_.isEmpty()) {
                 // Close all browsers.
                 Collection<CefBrowser> browserList = browser_.values();
@@ -603,29 +716,77 @@ public class CefClient extends CefClientHandler
     }
 
     @Override
-    public void onLoadingStateChange(
-            CefBrowser browser, boolean isLoading, boolean canGoBack, boolean canGoForward) {
-        if (loadHandler_ != null && browser != null)
-            loadHandler_.onLoadingStateChange(browser, isLoading, canGoBack, canGoForward);
+    public void onLoadingStateChange(final CefBrowser browser, final boolean isLoading,
+            final boolean canGoBack, final boolean canGoForward) {
+        if (browser != null) {
+            synchronized (browser_) {
+                Integer identifier = browser.getIdentifier();
+                boolean changed = isLoading ? loadingBrowsers_.add(identifier)
+                                            : loadingBrowsers_.remove(identifier);
+                if (changed) app_.onBrowserLoading(isLoading);
+            }
+        }
+        final CefLoadHandler handler = loadHandler_;
+        if (handler == null || browser == null) return;
+        dispatcher_.dispatch(CallbackCategory.LOAD, browser, new Runnable() {
+            @Override
+            public void run() {
+                handler.onLoadingStateChange(browser, isLoading, canGoBack, canGoForward);
+            }
+        });
     }
 
     @Override
-    public void onLoadStart(CefBrowser browser, CefFrame frame, TransitionType transitionType) {
-        if (loadHandler_ != null && browser != null)
-            loadHandler_.onLoadStart(browser, frame, transitionType);
+    public void onLoadStart(
+            final CefBrowser browser, CefFrame frame, final TransitionType transitionType) {
+        final CefLoadHandler handler = loadHandler_;
+        if (handler == null || browser == null) return;
+        if (dispatcher_.isDirect(CallbackCategory.LOAD, browser)) {
+            handler.onLoadStart(browser, frame, transitionType);
+            return;
+        }
+        final CefFrame snapshot = CefFrameSnapshot.of(browser, frame);
+        dispatcher_.dispatch(CallbackCategory.LOAD, browser, new Runnable() {
+            @Override
+            public void run() {
+                handler.onLoadStart(browser, snapshot, transitionType);
+            }
+        });
     }
 
     @Override
-    public void onLoadEnd(CefBrowser browser, CefFrame frame, int httpStatusCode) {
-        if (loadHandler_ != null && browser != null)
-            loadHandler_.onLoadEnd(browser, frame, httpStatusCode);
+    public void onLoadEnd(final CefBrowser browser, CefFrame frame, final int httpStatusCode) {
+        final CefLoadHandler handler = loadHandler_;
+        if (handler == null || browser == null) return;
+        if (dispatcher_.isDirect(CallbackCategory.LOAD, browser)) {
+            handler.onLoadEnd(browser, frame, httpStatusCode);
+            return;
+        }
+        final CefFrame snapshot = CefFrameSnapshot.of(browser, frame);
+        dispatcher_.dispatch(CallbackCategory.LOAD, browser, new Runnable() {
+            @Override
+            public void run() {
+                handler.onLoadEnd(browser, snapshot, httpStatusCode);
+            }
+        });
     }
 
     @Override
-    public void onLoadError(CefBrowser browser, CefFrame frame, ErrorCode errorCode,
-            String errorText, String failedUrl) {
-        if (loadHandler_ != null && browser != null)
-            loadHandler_.onLoadError(browser, frame, errorCode, errorText, failedUrl);
+    public void onLoadError(final CefBrowser browser, CefFrame frame, final ErrorCode errorCode,
+            final String errorText, final String failedUrl) {
+        final CefLoadHandler handler = loadHandler_;
+        if (handler == null || browser == null) return;
+        if (dispatcher_.isDirect(CallbackCategory.LOAD, browser)) {
+            handler.onLoadError(browser, frame, errorCode, errorText, failedUrl);
+            return;
+        }
+        final CefFrame snapshot = CefFrameSnapshot.of(browser, frame);
+        dispatcher_.dispatch(CallbackCategory.LOAD, browser, new Runnable() {
+            @Override
+            public void run() {
+                handler.onLoadError(browser, snapshot, errorCode, errorText, failedUrl);
+            }
+        });
     }
 
     // CefMessageRouter
@@ -680,12 +841,28 @@ public class CefClient extends CefClientHandler
     public void onPaint(CefBrowser browser, boolean popup, Rectangle[] dirtyRects,
             ByteBuffer buffer, int width, int height) {
         if (browser == null) return;
+        app_.onBrowserPaint();
 
         CefRenderHandler realHandler = browser.getRenderHandler();
         if (realHandler != null)
             realHandler.onPaint(browser, popup, dirtyRects, buffer, width, height);
     }
 
+    @Override
+    public void onPaint(CefBrowser browser, boolean popup, int[] dirtyRects, int dirtyRectCount,
+            ByteBuffer buffer, int width, int height) {
+        if (browser == null) return;
+        app_.onBrowserPaint();
+
+        CefRenderHandler realHandler = browser.getRenderHandler();
+        if (realHandler != null) {
+            // The buffer is reused, undo position changes of the previous paint.
+            buffer.clear();
+            realHandler.onPaint(
+                    browser, popup, dirtyRects, dirtyRectCount, buffer, width, height);
+        }
+    }
+
     @Override
     public void onCursorChange(CefBrowser browser, int cursorType) {
         if (browser == null) return;
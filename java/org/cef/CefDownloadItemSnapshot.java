@@ -0,0 +1,138 @@
+// Copyright (c) 2020 The Chromium Embedded Framework Authors. All rights
+// reserved. Use of this source code is governed by a BSD-style license that
+// can be found in the LICENSE file.
+
+package org.cef;
+
+import org.cef.callback.CefDownloadItem;
+
+import java.util.Date;
+
+/**
+ * A copy of a download item that stays usable after the callback that received
+ * the item returned, like CefFrameSnapshot.
+ */
+class CefDownloadItemSnapshot implements CefDownloadItem {
+    private final boolean valid_;
+    private final boolean inProgress_;
+    private final boolean complete_;
+    private final boolean canceled_;
+    private final long currentSpeed_;
+    private final int percentComplete_;
+    private final long totalBytes_;
+    private final long receivedBytes_;
+    private final Date startTime_;
+    private final Date endTime_;
+    private final String fullPath_;
+    private final int id_;
+    private final String url_;
+    private final String suggestedFileName_;
+    private final String contentDisposition_;
+    private final String mimeType_;
+
+    private CefDownloadItemSnapshot(CefDownloadItem item) {
+        valid_ = item.isValid();
+        inProgress_ = valid_ && item.isInProgress();
+        complete_ = valid_ && item.isComplete();
+        canceled_ = valid_ && item.isCanceled();
+        currentSpeed_ = valid_ ? item.getCurrentSpeed() : 0;
+        percentComplete_ = valid_ ? item.getPercentComplete() : -1;
+        totalBytes_ = valid_ ? item.getTotalBytes() : 0;
+        receivedBytes_ = valid_ ? item.getReceivedBytes() : 0;
+        startTime_ = valid_ ? item.getStartTime() : null;
+        endTime_ = valid_ ? item.getEndTime() : null;
+        fullPath_ = valid_ ? item.getFullPath() : null;
+        id_ = valid_ ? item.getId() : 0;
+        url_ = valid_ ? item.getURL() : null;
+        suggestedFileName_ = valid_ ? item.getSuggestedFileName() : null;
+        contentDisposition_ = valid_ ? item.getContentDisposition() : null;
+        mimeType_ = valid_ ? item.getMimeType() : null;
+    }
+
+    /**
+     * Returns a snapshot of |item|, or null if |item| is null.
+     */
+    static CefDownloadItem of(CefDownloadItem item) {
+        return item != null ? new CefDownloadItemSnapshot(item) : null;
+    }
+
+    @Override
+    public boolean isValid() {
+        return valid_;
+    }
+
+    @Override
+    public boolean isInProgress() {
+        return inProgress_;
+    }
+
+    @Override
+    public boolean isComplete() {
+        return complete_;
+    }
+
+    @Override
+    public boolean isCanceled() {
+        return canceled_;
+    }
+
+    @Override
+    public long getCurrentSpeed() {
+        return currentSpeed_;
+    }
+
+    @Override
+    public int getPercentComplete() {
+        return percentComplete_;
+    }
+
+    @Override
+    public long getTotalBytes() {
+        return totalBytes_;
+    }
+
+    @Override
+    public long getReceivedBytes() {
+        return receivedBytes_;
+    }
+
+    @Override
+    public Date getStartTime() {
+        return startTime_ != null ? new Date(startTime_.getTime()) : null;
+    }
+
+    @Override
+    public Date getEndTime() {
+        return endTime_ != null ? new Date(endTime_.getTime()) : null;
+    }
+
+    @Override
+    public String getFullPath() {
+        return fullPath_;
+    }
+
+    @Override
+    public int getId() {
+        return id_;
+    }
+
+    @Override
+    public String getURL() {
+        return url_;
+    }
+
+    @Override
+    public String getSuggestedFileName() {
+        return suggestedFileName_;
+    }
+
+    @Override
+    public String getContentDisposition() {
+        return contentDisposition_;
+    }
+
+    @Override
+    public String getMimeType() {
+        return mimeType_;
+    }
+}
@@ -0,0 +1,92 @@
+// Copyright (c) 2020 The Chromium Embedded Framework Authors. All rights
+// reserved. Use of this source code is governed by a BSD-style license that
+// can be found in the LICENSE file.
+
+package org.cef;
+
+import org.cef.browser.CefBrowser;
+import org.cef.browser.CefFrame;
+
+/**
+ * A copy of the state of a frame that stays usable after the callback that
+ * received the frame returned. The frames passed to handler callbacks are
+ * detached from their native counterpart once the callback returns, so they
+ * can't be handed to another thread. JavaScript is executed in the frame with
+ * the same identifier, if the browser still has one.
+ */
+class CefFrameSnapshot implements CefFrame {
+    private final CefBrowser browser_;
+    private final long identifier_;
+    private final String url_;
+    private final String name_;
+    private final boolean main_;
+    private final boolean valid_;
+    private final boolean focused_;
+    private final CefFrame parent_;
+
+    private CefFrameSnapshot(CefBrowser browser, CefFrame frame) {
+        browser_ = browser;
+        identifier_ = frame.getIdentifier();
+        url_ = frame.getURL();
+        name_ = frame.getName();
+        main_ = frame.isMain();
+        valid_ = frame.isValid();
+        focused_ = frame.isFocused();
+        CefFrame parent = main_ ? null : frame.getParent();
+        parent_ = parent != null ? new CefFrameSnapshot(browser, parent) : null;
+        if (parent != null) parent.dispose();
+    }
+
+    /**
+     * Returns a snapshot of |frame|, or null if |frame| is null.
+     */
+    static CefFrame of(CefBrowser browser, CefFrame frame) {
+        return frame != null ? new CefFrameSnapshot(browser, frame) : null;
+    }
+
+    @Override
+    public void dispose() {}
+
+    @Override
+    public long getIdentifier() {
+        return identifier_;
+    }
+
+    @Override
+    public String getURL() {
+        return url_;
+    }
+
+    @Override
+    public String getName() {
+        return name_;
+    }
+
+    @Override
+    public boolean isMain() {
+        return main_;
+    }
+
+    @Override
+    public boolean isValid() {
+        return valid_;
+    }
+
+    @Override
+    public boolean isFocused() {
+        return focused_;
+    }
+
+    @Override
+    public CefFrame getParent() {
+        return parent_;
+    }
+
+    @Override
+    public void executeJavaScript(String code, String url, int line) {
+        CefFrame frame = browser_.getFrame(identifier_);
+        if (frame == null) return;
+        frame.executeJavaScript(code, url, line);
+        frame.dispose();
+    }
+}
@@ -0,0 +1,274 @@
+// Copyright (c) 2020 The Chromium Embedded Framework Authors. All rights
+// reserved. Use of this source code is governed by a BSD-style license that
+// can be found in the LICENSE file.
+
+package org.cef;
+
+import org.cef.misc.CefHistogram;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import javax.swing.SwingUtilities;
+
+/**
+ * Measurements of the CEF message loop and of the events JCEF posts to the AWT
+ * event dispatching thread (EDT). Only collected if
+ * CefSettings.message_loop_statistics is set; see
+ * CefApp.getMessageLoopStatistics(). The statistics are also registered as an
+ * MBean named "org.cef:type=MessageLoopStatistics" while CEF is initialized.
+ *
+ * Work duration is the time a message loop iteration blocks the EDT.
+ * Scheduling lag is the time between the moment CEF requested the iteration
+ * and its start. Iterations that take longer than
+ * CefSettings.message_loop_long_iteration_threshold are counted and, on JVMs
+ * with flight recorder support, recorded as "org.cef.MessageLoopWork" events.
+ * EDT queue latency is the time between posting an event with invokeLater()
+ * and running it; the backlog is the number of posted events that did not run
+ * yet. All methods may be called on any thread.
+ */
+public class CefMessageLoopStatistics implements CefMessageLoopStatisticsMBean {
+    private static volatile CefMessageLoopStatistics instance_ = null;
+
+    private final long longIterationNanos_;
+
+    private long iterations_ = 0;
+    private long longIterations_ = 0;
+    private final AtomicLong invokeLaterPosts_ = new AtomicLong(0);
+    private final ConcurrentHashMap<String, AtomicLong> invokeLaterCounts_ =
+            new ConcurrentHashMap<String, AtomicLong>();
+    private final AtomicInteger backlog_ = new AtomicInteger(0);
+    private final AtomicInteger maxBacklog_ = new AtomicInteger(0);
+
+    private final CefHistogram workDuration_ = new CefHistogram();
+    private final CefHistogram schedulingLag_ = new CefHistogram();
+    private final CefHistogram edtQueueLatency_ = new CefHistogram();
+
+    private ObjectName objectName_ = null;
+
+    private CefMessageLoopStatistics(long longIterationMs) {
+        longIterationNanos_ = TimeUnit.MILLISECONDS.toNanos(longIterationMs);
+    }
+
+    /**
+     * Returns the statistics that are collected, or null if collection is
+     * disabled.
+     */
+    static CefMessageLoopStatistics getInstance() {
+        return instance_;
+    }
+
+    /**
+     * Start collecting statistics and register the MBean with the platform MBean
+     * server.
+     */
+    static synchronized CefMessageLoopStatistics install(long longIterationMs) {
+        if (instance_ != null) return instance_;
+        CefMessageLoopStatistics statistics = new CefMessageLoopStatistics(longIterationMs);
+        try {
+            statistics.objectName_ = new ObjectName("org.cef:type=MessageLoopStatistics");
+            ManagementFactory.getPlatformMBeanServer().registerMBean(
+                    statistics, statistics.objectName_);
+        } catch (JMException e) {
+            System.out.println("message loop statistics can't be registered: " + e);
+            statistics.objectName_ = null;
+        }
+        instance_ = statistics;
+        return statistics;
+    }
+
+    /**
+     * Stop collecting statistics and unregister the MBean.
+     */
+    static synchronized void uninstall() {
+        CefMessageLoopStatistics statistics = instance_;
+        if (statistics == null) return;
+        instance_ = null;
+        if (statistics.objectName_ == null) return;
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(statistics.objectName_);
+        } catch (JMException e) {
+            // Already unregistered.
+        }
+    }
+
+    /**
+     * Run |runnable| on the AWT event dispatching thread, like
+     * SwingUtilities.invokeLater(). Used by JCEF for all events it posts, so
+     * that they are counted per |source| and their queue latency is measured
+     * while statistics are collected.
+     * @param source A short name of the posting component, e.g. "CefBrowserOsr".
+     */
+    public static void invokeLater(String source, final Runnable runnable) {
+        final CefMessageLoopStatistics statistics = instance_;
+        if (statistics == null) {
+            SwingUtilities.invokeLater(runnable);
+            return;
+        }
+        statistics.recordPost(source);
+        final long posted = System.nanoTime();
+        SwingUtilities.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                statistics.recordRun(posted);
+                runnable.run();
+            }
+        });
+    }
+
+    private void recordPost(String source) {
+        invokeLaterPosts_.incrementAndGet();
+        AtomicLong count = invokeLaterCounts_.get(source);
+        if (count == null) {
+            AtomicLong newCount = new AtomicLong(0);
+            count = invokeLaterCounts_.putIfAbsent(source, newCount);
+            if (count == null) count = newCount;
+        }
+        count.incrementAndGet();
+
+        final int backlog = backlog_.incrementAndGet();
+        int max = maxBacklog_.get();
+        while (backlog > max && !maxBacklog_.compareAndSet(max, backlog)) max = maxBacklog_.get();
+    }
+
+    private void recordRun(long postedNanos) {
+        backlog_.decrementAndGet();
+        edtQueueLatency_.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - postedNanos));
+    }
+
+    /**
+     * Record a message loop iteration.
+     * @param lagNanos The time between the requested and the actual start.
+     * @param workNanos The duration of the iteration.
+     */
+    void recordIteration(long lagNanos, long workNanos) {
+        final boolean longIteration = workNanos >= longIterationNanos_;
+        synchronized (this) {
+            iterations_++;
+            if (longIteration) longIterations_++;
+        }
+        workDuration_.record(TimeUnit.NANOSECONDS.toMicros(workNanos));
+        schedulingLag_.record(TimeUnit.NANOSECONDS.toMicros(lagNanos));
+        if (longIteration) CefMessageLoopWorkEvent.commit(workNanos, lagNanos);
+    }
+
+    @Override
+    public synchronized long getIterationCount() {
+        return iterations_;
+    }
+
+    @Override
+    public double getMeanWorkDuration() {
+        return workDuration_.getMean();
+    }
+
+    @Override
+    public long getMaxWorkDuration() {
+        return workDuration_.getMax();
+    }
+
+    @Override
+    public double getMeanSchedulingLag() {
+        return schedulingLag_.getMean();
+    }
+
+    @Override
+    public long getMaxSchedulingLag() {
+        return schedulingLag_.getMax();
+    }
+
+    /**
+     * Returns the number of iterations that took at least
+     * CefSettings.message_loop_long_iteration_threshold.
+     */
+    @Override
+    public synchronized long getLongIterationCount() {
+        return longIterations_;
+    }
+
+    @Override
+    public long getInvokeLaterCount() {
+        return invokeLaterPosts_.get();
+    }
+
+    /**
+     * Returns the number of events posted to the EDT per source.
+     */
+    @Override
+    public Map<String, Long> getInvokeLaterCounts() {
+        Map<String, Long> counts = new HashMap<String, Long>();
+        for (Map.Entry<String, AtomicLong> entry : invokeLaterCounts_.entrySet()) {
+            counts.put(entry.getKey(), entry.getValue().get());
+        }
+        return counts;
+    }
+
+    /**
+     * Returns the number of posted events that did not run yet.
+     */
+    @Override
+    public int getEdtBacklog() {
+        return backlog_.get();
+    }
+
+    @Override
+    public int getMaxEdtBacklog() {
+        return maxBacklog_.get();
+    }
+
+    @Override
+    public double getMeanEdtQueueLatency() {
+        return edtQueueLatency_.getMean();
+    }
+
+    @Override
+    public long getMaxEdtQueueLatency() {
+        return edtQueueLatency_.getMax();
+    }
+
+    /**
+     * Returns the histogram of iteration durations in microseconds.
+     */
+    public CefHistogram getWorkDuration() {
+        return workDuration_;
+    }
+
+    /**
+     * Returns the histogram of scheduling lags in microseconds.
+     */
+    public CefHistogram getSchedulingLag() {
+        return schedulingLag_;
+    }
+
+    /**
+     * Returns the histogram of EDT queue latencies in microseconds.
+     */
+    public CefHistogram getEdtQueueLatency() {
+        return edtQueueLatency_;
+    }
+
+    /**
+     * Reset all counters and histograms. The current backlog is kept, as the
+     * posted events will still run.
+     */
+    @Override
+    public void reset() {
+        synchronized (this) {
+            iterations_ = 0;
+            longIterations_ = 0;
+        }
+        invokeLaterPosts_.set(0);
+        invokeLaterCounts_.clear();
+        maxBacklog_.set(backlog_.get());
+        workDuration_.reset();
+        schedulingLag_.reset();
+        edtQueueLatency_.reset();
+    }
+}
@@ -0,0 +1,27 @@
+// Copyright (c) 2020 The Chromium Embedded Framework Authors. All rights
+// reserved. Use of this source code is governed by a BSD-style license that
+// can be found in the LICENSE file.
+
+package org.cef;
+
+import java.util.Map;
+
+/**
+ * JMX management interface of CefMessageLoopStatistics. Durations are in
+ * microseconds.
+ */
+public interface CefMessageLoopStatisticsMBean {
+    public long getIterationCount();
+    public double getMeanWorkDuration();
+    public long getMaxWorkDuration();
+    public double getMeanSchedulingLag();
+    public long getMaxSchedulingLag();
+    public long getLongIterationCount();
+    public long getInvokeLaterCount();
+    public Map<String, Long> getInvokeLaterCounts();
+    public int getEdtBacklog();
+    public int getMaxEdtBacklog();
+    public double getMeanEdtQueueLatency();
+    public long getMaxEdtQueueLatency();
+    public void reset();
+}
@@ -0,0 +1,88 @@
+// Copyright (c) 2020 The Chromium Embedded Framework Authors. All rights
+// reserved. Use of this source code is governed by a BSD-style license that
+// can be found in the LICENSE file.
+
+package org.cef;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Flight recorder event "org.cef.MessageLoopWork" for a message loop iteration
+ * that took longer than CefSettings.message_loop_long_iteration_threshold.
+ * JCEF still builds and runs on Java 8 runtimes without flight recorder, so the
+ * event type is defined at runtime through jdk.jfr.EventFactory, which is only
+ * accessed by reflection. Events are silently dropped if it's not available.
+ */
+class CefMessageLoopWorkEvent {
+    private static Object factory_ = null;
+    private static Method newEvent_ = null;
+    private static Method isEnabled_ = null;
+    private static Method set_ = null;
+    private static Method commit_ = null;
+
+    static {
+        try {
+            Class<?> factoryClass = Class.forName("jdk.jfr.EventFactory");
+            Class<?> eventClass = Class.forName("jdk.jfr.Event");
+            Class<?> annotationClass = Class.forName("jdk.jfr.AnnotationElement");
+            Class<?> valueClass = Class.forName("jdk.jfr.ValueDescriptor");
+            Constructor<?> annotation = annotationClass.getConstructor(Class.class, Object.class);
+            Constructor<?> value = valueClass.getConstructor(Class.class, String.class, List.class);
+
+            List<Object> eventAnnotations = new ArrayList<Object>();
+            eventAnnotations.add(annotation.newInstance(
+                    Class.forName("jdk.jfr.Name"), "org.cef.MessageLoopWork"));
+            eventAnnotations.add(annotation.newInstance(
+                    Class.forName("jdk.jfr.Label"), "Long CEF Message Loop Iteration"));
+            eventAnnotations.add(annotation.newInstance(
+                    Class.forName("jdk.jfr.Category"), new String[] {"JCEF"}));
+            eventAnnotations.add(annotation.newInstance(Class.forName("jdk.jfr.Description"),
+                    "A call to CefDoMessageLoopWork that blocked the AWT event dispatching thread"));
+
+            Object nanoseconds = annotation.newInstance(
+                    Class.forName("jdk.jfr.Timespan"), "NANOSECONDS");
+            Class<?> label = Class.forName("jdk.jfr.Label");
+            List<Object> fields = Arrays.asList(
+                    value.newInstance(long.class, "workDuration",
+                            Arrays.asList(annotation.newInstance(label, "Work Duration"),
+                                    nanoseconds)),
+                    value.newInstance(long.class, "schedulingLag",
+                            Arrays.asList(annotation.newInstance(label, "Scheduling Lag"),
+                                    nanoseconds)));
+
+            Method create = factoryClass.getMethod("create", List.class, List.class);
+            factory_ = create.invoke(null, Collections.unmodifiableList(eventAnnotations),
+                    Collections.unmodifiableList(fields));
+            newEvent_ = factoryClass.getMethod("newEvent");
+            isEnabled_ = eventClass.getMethod("isEnabled");
+            set_ = eventClass.getMethod("set", int.class, Object.class);
+            commit_ = eventClass.getMethod("commit");
+        } catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+            // No flight recorder, e.g. on Java 8 before update 262.
+            factory_ = null;
+        }
+    }
+
+    private CefMessageLoopWorkEvent() {}
+
+    /**
+     * Commit an event if flight recorder is available and records it.
+     */
+    static void commit(long workNanos, long lagNanos) {
+        if (factory_ == null) return;
+        try {
+            Object event = newEvent_.invoke(factory_);
+            if (!(Boolean) isEnabled_.invoke(event)) return;
+            set_.invoke(event, 0, workNanos);
+            set_.invoke(event, 1, lagNanos);
+            commit_.invoke(event);
+        } catch (ReflectiveOperationException e) {
+            e.printStackTrace();
+        }
+    }
+}
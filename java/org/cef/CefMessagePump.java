@@ -0,0 +1,204 @@
+// Copyright (c) 2020 The Chromium Embedded Framework Authors. All rights
+// reserved. Use of this source code is governed by a BSD-style license that
+// can be found in the LICENSE file.
+
+package org.cef;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Schedules CEF message loop work from a dedicated thread, for the external
+ * message pump mode. Requests from OnScheduleMessagePumpWork are waited for
+ * with their exact delay, and a request replaces a later pending one, so the
+ * work runs once for any number of requests that are due at the same time. At
+ * most one work item is queued on the thread CEF requires at a time. Nothing
+ * but the event that transfers the work to that thread is allocated per
+ * iteration.
+ *
+ * With a maximum idle delay, the polling interval doubles with every iteration
+ * that happens while the pump is idle, up to that delay. The pump is idle if
+ * no browser is loading and, since the previous iteration, CEF requested no
+ * immediate work and no browser painted. Delayed requests are still served on
+ * time but don't count as activity, as CEF keeps scheduling timers of idle
+ * pages. Input events are covered by the immediate work they cause.
+ */
+class CefMessagePump implements Runnable {
+    // The maximum number of milliseconds to wait between iterations, in case CEF
+    // misses to schedule work. Same as the CEF sample external message pump.
+    private static final long MAX_DELAY_MS = 1000 / 30;
+    private static final long NO_WORK = Long.MAX_VALUE;
+    private static final int MAX_BACKOFF_SHIFT = 16;
+
+    private final Runnable work_;
+    private final Executor workThread_;
+    private final long maxIdleDelayMs_;
+    private final Thread thread_;
+    private final AtomicBoolean posted_ = new AtomicBoolean(false);
+    // The due time of the queued work and of the running work.
+    private volatile long postedDueNanos_ = 0;
+    private volatile long workDueNanos_ = 0;
+    private final Object lock_ = new Object();
+    // The System.nanoTime() at which work is due next, or NO_WORK.
+    private long dueNanos_ = NO_WORK;
+    private boolean disposed_ = false;
+    private final AtomicInteger loadingBrowsers_ = new AtomicInteger(0);
+    private volatile boolean active_ = false;
+    private volatile boolean backedOff_ = false;
+    private int idleIterations_ = 0;
+
+    private final Runnable runWork_ = new Runnable() {
+        @Override
+        public void run() {
+            workDueNanos_ = postedDueNanos_;
+            posted_.set(false);
+            synchronized (lock_) {
+                if (disposed_) return;
+                // This iteration serves all requests that are due. Poll again later
+                // unless a request is due earlier.
+                final long now = System.nanoTime();
+                final long poll = now + TimeUnit.MILLISECONDS.toNanos(getPollDelay());
+                if (dueNanos_ == NO_WORK || dueNanos_ - now <= 0 || dueNanos_ - poll > 0) {
+                    dueNanos_ = poll;
+                    lock_.notify();
+                }
+            }
+            work_.run();
+        }
+    };
+
+    /**
+     * @param work Performs a single message loop iteration.
+     * @param workThread Executes the work on the thread that initialized CEF.
+     */
+    CefMessagePump(Runnable work, Executor workThread) {
+        this(work, workThread, 0);
+    }
+
+    /**
+     * @param work Performs a single message loop iteration.
+     * @param workThread Executes the work on the thread that initialized CEF.
+     * @param maxIdleDelayMs The maximum polling interval in milliseconds while
+     *         idle, or 0 to always poll at the same rate.
+     */
+    CefMessagePump(Runnable work, Executor workThread, long maxIdleDelayMs) {
+        work_ = work;
+        workThread_ = workThread;
+        maxIdleDelayMs_ = maxIdleDelayMs;
+        thread_ = new Thread(this, "CefMessagePump");
+        thread_.setDaemon(true);
+        thread_.start();
+    }
+
+    /**
+     * Request a message loop iteration. May be called on any thread.
+     * @param delay_ms The delay in milliseconds, or 0 or less to run the work as
+     *         soon as possible.
+     */
+    void schedule(long delay_ms) {
+        if (delay_ms <= 0) {
+            onActivity();
+            post(System.nanoTime());
+            return;
+        }
+        final long due = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay_ms);
+        synchronized (lock_) {
+            if (disposed_ || dueNanos_ != NO_WORK && dueNanos_ - due <= 0) return;
+            dueNanos_ = due;
+            lock_.notify();
+        }
+    }
+
+    /**
+     * Return to the full polling rate, e.g. because a browser painted. May be
+     * called on any thread.
+     */
+    void onActivity() {
+        if (active_) return;
+        active_ = true;
+        // Don't wait for the backed off poll.
+        if (backedOff_) schedule(MAX_DELAY_MS);
+    }
+
+    /**
+     * Keep polling at the full rate while a browser is loading.
+     * @param loading True when a browser starts loading, false when it stops.
+     */
+    void setLoading(boolean loading) {
+        if (loading) {
+            loadingBrowsers_.incrementAndGet();
+            onActivity();
+        } else {
+            loadingBrowsers_.decrementAndGet();
+        }
+    }
+
+    /**
+     * Returns the delay of the next poll and resets the activity. Called with
+     * lock_ held.
+     */
+    private long getPollDelay() {
+        final boolean idle = !active_ && loadingBrowsers_.get() <= 0;
+        active_ = false;
+        if (!idle || maxIdleDelayMs_ <= MAX_DELAY_MS) {
+            idleIterations_ = 0;
+            backedOff_ = false;
+            return MAX_DELAY_MS;
+        }
+        if (idleIterations_ < MAX_BACKOFF_SHIFT) idleIterations_++;
+        backedOff_ = true;
+        return Math.min(MAX_DELAY_MS << idleIterations_, maxIdleDelayMs_);
+    }
+
+    /**
+     * Stop scheduling work. Work that is queued already doesn't run.
+     */
+    void dispose() {
+        synchronized (lock_) {
+            disposed_ = true;
+            lock_.notify();
+        }
+    }
+
+    @Override
+    public void run() {
+        synchronized (lock_) {
+            while (!disposed_) {
+                try {
+                    if (dueNanos_ == NO_WORK) {
+                        lock_.wait();
+                        continue;
+                    }
+                    final long remaining = dueNanos_ - System.nanoTime();
+                    if (remaining > 0) {
+                        TimeUnit.NANOSECONDS.timedWait(lock_, remaining);
+                        continue;
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+                final long due = dueNanos_;
+                dueNanos_ = NO_WORK;
+                post(due);
+            }
+        }
+    }
+
+    /**
+     * Returns the System.nanoTime() at which the running iteration was due.
+     * Called by the work.
+     */
+    long getWorkDueNanos() {
+        return workDueNanos_;
+    }
+
+    private void post(long dueNanos) {
+        // Duplicate requests are served by the work that is queued already.
+        if (posted_.compareAndSet(false, true)) {
+            postedDueNanos_ = dueNanos;
+            workThread_.execute(runWork_);
+        }
+    }
+}
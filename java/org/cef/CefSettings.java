@@ -90,6 +90,39 @@ public class CefSettings {
      */
     public boolean windowless_rendering_enabled = true;
 
+    /**
+     * Set to true to schedule message loop work from a dedicated thread, with
+     * the exact delays requested by CEF, instead of polling with Swing timers
+     * at 60 fps. The work itself still runs on the AWT event dispatching thread.
+     * Only used if the message loop is driven by CefApp.doMessageLoopWork(),
+     * i.e. with |windowless_rendering_enabled| on all platforms but macOS.
+     */
+    public boolean message_pump_scheduler_enabled = false;
+
+    /**
+     * The maximum interval in milliseconds to which polling of the message loop
+     * backs off while nothing is happening, i.e. while CEF schedules no
+     * immediate work and no browser is loading or painting. Any such activity
+     * returns to the full rate. Specify 0 (default value) to always poll at the
+     * full rate. Only used with |message_pump_scheduler_enabled|.
+     */
+    public int message_pump_max_idle_delay = 0;
+
+    /**
+     * Set to true to measure the duration and scheduling lag of message loop
+     * iterations and the events posted to the AWT event dispatching thread.
+     * See CefApp.getMessageLoopStatistics(). Also enables the JMX MBean
+     * "org.cef:type=MessageLoopStatistics" and, on JVMs with flight recorder
+     * support, "org.cef.MessageLoopWork" events for long iterations.
+     */
+    public boolean message_loop_statistics = false;
+
+    /**
+     * The duration in milliseconds from which a message loop iteration counts as
+     * long. Only used with |message_loop_statistics|. The default is 50.
+     */
+    public int message_loop_long_iteration_threshold = 50;
+
     /**
      * Set to true to disable configuration of browser process features using
      * standard CEF and Chromium command-line arguments. Configuration can still
@@ -234,6 +267,10 @@ public class CefSettings {
         CefSettings tmp = new CefSettings();
         tmp.browser_subprocess_path = browser_subprocess_path;
         tmp.windowless_rendering_enabled = windowless_rendering_enabled;
+        tmp.message_pump_scheduler_enabled = message_pump_scheduler_enabled;
+        tmp.message_pump_max_idle_delay = message_pump_max_idle_delay;
+        tmp.message_loop_statistics = message_loop_statistics;
+        tmp.message_loop_long_iteration_threshold = message_loop_long_iteration_threshold;
         tmp.command_line_args_disabled = command_line_args_disabled;
         tmp.cache_path = cache_path;
         tmp.persist_session_cookies = persist_session_cookies;
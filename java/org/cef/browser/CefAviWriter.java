@@ -0,0 +1,171 @@
+// Copyright (c) 2020 The Chromium Embedded Framework Authors. All rights
+// reserved. Use of this source code is governed by a BSD-style license that
+// can be found in the LICENSE file.
+
+package org.cef.browser;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * Writes Motion JPEG frames into an AVI file with a single video stream. The
+ * header is written with placeholder sizes and completed by close(), which
+ * also appends the index.
+ */
+class CefAviWriter {
+    private static final int HEADER_SIZE = 224;
+    // Offsets of the fields that are only known when the file is closed.
+    private static final int RIFF_SIZE_OFFSET = 4;
+    private static final int TOTAL_FRAMES_OFFSET = 48;
+    private static final int SUGGESTED_BUFFER_SIZE_OFFSET = 60;
+    private static final int STREAM_LENGTH_OFFSET = 140;
+    private static final int STREAM_BUFFER_SIZE_OFFSET = 144;
+    private static final int MOVI_SIZE_OFFSET = 216;
+    // Index offsets are relative to the "movi" list type.
+    private static final int MOVI_OFFSET = 220;
+
+    private final FileChannel channel_;
+    private long position_ = HEADER_SIZE;
+    private int frameCount_ = 0;
+    private int maxFrameSize_ = 0;
+    private ByteBuffer index_ = ByteBuffer.allocate(16 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+
+    CefAviWriter(FileChannel channel, int width, int height, int fps) throws IOException {
+        channel_ = channel;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        putFourCC(header, "RIFF");
+        header.putInt(0);
+        putFourCC(header, "AVI ");
+
+        putFourCC(header, "LIST");
+        header.putInt(192);
+        putFourCC(header, "hdrl");
+
+        putFourCC(header, "avih");
+        header.putInt(56);
+        header.putInt(1000000 / fps); // dwMicroSecPerFrame
+        header.putInt(0); // dwMaxBytesPerSec
+        header.putInt(0); // dwPaddingGranularity
+        header.putInt(0x10); // dwFlags = AVIF_HASINDEX
+        header.putInt(0); // dwTotalFrames
+        header.putInt(0); // dwInitialFrames
+        header.putInt(1); // dwStreams
+        header.putInt(0); // dwSuggestedBufferSize
+        header.putInt(width);
+        header.putInt(height);
+        for (int i = 0; i < 4; ++i) header.putInt(0); // dwReserved
+
+        putFourCC(header, "LIST");
+        header.putInt(116);
+        putFourCC(header, "strl");
+
+        putFourCC(header, "strh");
+        header.putInt(56);
+        putFourCC(header, "vids");
+        putFourCC(header, "MJPG");
+        header.putInt(0); // dwFlags
+        header.putShort((short) 0); // wPriority
+        header.putShort((short) 0); // wLanguage
+        header.putInt(0); // dwInitialFrames
+        header.putInt(1); // dwScale
+        header.putInt(fps); // dwRate
+        header.putInt(0); // dwStart
+        header.putInt(0); // dwLength
+        header.putInt(0); // dwSuggestedBufferSize
+        header.putInt(-1); // dwQuality
+        header.putInt(0); // dwSampleSize
+        header.putShort((short) 0).putShort((short) 0); // rcFrame
+        header.putShort((short) width).putShort((short) height);
+
+        putFourCC(header, "strf");
+        header.putInt(40);
+        header.putInt(40); // biSize
+        header.putInt(width);
+        header.putInt(height);
+        header.putShort((short) 1); // biPlanes
+        header.putShort((short) 24); // biBitCount
+        putFourCC(header, "MJPG");
+        header.putInt(width * height * 3); // biSizeImage
+        header.putInt(0); // biXPelsPerMeter
+        header.putInt(0); // biYPelsPerMeter
+        header.putInt(0); // biClrUsed
+        header.putInt(0); // biClrImportant
+
+        putFourCC(header, "LIST");
+        header.putInt(0);
+        putFourCC(header, "movi");
+        assert header.position() == HEADER_SIZE;
+
+        header.flip();
+        writeFully(header, 0);
+    }
+
+    /**
+     * Append a JPEG image as the next frame.
+     */
+    void writeFrame(byte[] jpeg) throws IOException {
+        final int padding = jpeg.length & 1;
+        ByteBuffer chunk =
+                ByteBuffer.allocate(8 + jpeg.length + padding).order(ByteOrder.LITTLE_ENDIAN);
+        putFourCC(chunk, "00dc");
+        chunk.putInt(jpeg.length);
+        chunk.put(jpeg);
+        chunk.flip();
+
+        if (index_.remaining() < 16) {
+            ByteBuffer index =
+                    ByteBuffer.allocate(index_.capacity() * 2).order(ByteOrder.LITTLE_ENDIAN);
+            index_.flip();
+            index_ = index.put(index_);
+        }
+        putFourCC(index_, "00dc");
+        index_.putInt(0x10); // AVIIF_KEYFRAME
+        index_.putInt((int) (position_ - MOVI_OFFSET));
+        index_.putInt(jpeg.length);
+
+        writeFully(chunk, position_);
+        position_ += chunk.capacity();
+        frameCount_++;
+        maxFrameSize_ = Math.max(maxFrameSize_, jpeg.length);
+    }
+
+    /**
+     * Append the index and complete the header. Does not close the channel.
+     */
+    void close() throws IOException {
+        final long moviEnd = position_;
+        index_.flip();
+        ByteBuffer indexHeader = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+        putFourCC(indexHeader, "idx1");
+        indexHeader.putInt(index_.remaining());
+        indexHeader.flip();
+        writeFully(indexHeader, position_);
+        position_ += 8;
+        final int indexSize = index_.remaining();
+        writeFully(index_, position_);
+        position_ += indexSize;
+
+        writeInt(RIFF_SIZE_OFFSET, (int) (position_ - 8));
+        writeInt(TOTAL_FRAMES_OFFSET, frameCount_);
+        writeInt(SUGGESTED_BUFFER_SIZE_OFFSET, maxFrameSize_ + 8);
+        writeInt(STREAM_LENGTH_OFFSET, frameCount_);
+        writeInt(STREAM_BUFFER_SIZE_OFFSET, maxFrameSize_ + 8);
+        writeInt(MOVI_SIZE_OFFSET, (int) (moviEnd - MOVI_OFFSET));
+    }
+
+    private void writeInt(long position, int value) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(value).flip();
+        writeFully(buffer, position);
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) position += channel_.write(buffer, position);
+    }
+
+    private static void putFourCC(ByteBuffer buffer, String fourCC) {
+        for (int i = 0; i < 4; ++i) buffer.put((byte) fourCC.charAt(i));
+    }
+}
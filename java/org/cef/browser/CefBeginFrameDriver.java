@@ -0,0 +1,121 @@
+// Copyright (c) 2020 The Chromium Embedded Framework Authors. All rights
+// reserved. Use of this source code is governed by a BSD-style license that
+// can be found in the LICENSE file.
+
+package org.cef.browser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Advances an off-screen rendered browser frame by frame. The browser has to be
+ * created with CefBrowserSettings.windowless_external_begin_frame, so that it
+ * only produces frames when asked to. Each call to beginFrame() issues one
+ * BeginFrame request and returns a future that is completed by the next paint
+ * of the view, which allows capturing pages without waiting on wall-clock
+ * paints.
+ *
+ * A BeginFrame request only results in a paint if something changed. Use
+ * beginFrame(true) to repaint the whole view, e.g. to capture a page that has
+ * finished loading. Futures are completed on the common fork join pool. The
+ * content of the painted frame can be read from the frame ring of the browser,
+ * or with CefBrowser.createScreenshotAsync().
+ */
+public class CefBeginFrameDriver {
+    private final CefBrowser_N browser_;
+    private final List<CompletableFuture<Long>> pending_ = new ArrayList<CompletableFuture<Long>>();
+    private long paintCount_ = 0;
+    private boolean closed_ = false;
+
+    /**
+     * @param browser An off-screen rendered browser with external begin frames
+     *         enabled. Only one driver can be attached to a browser at a time.
+     */
+    public CefBeginFrameDriver(CefBrowser browser) {
+        if (browser == null || !browser.isExternalBeginFrameEnabled())
+            throw new IllegalArgumentException("External begin frames are not enabled");
+        browser_ = (CefBrowser_N) browser;
+        if (!browser_.setBeginFrameDriver(this))
+            throw new IllegalStateException("The browser already has a begin frame driver");
+    }
+
+    /**
+     * Issue a BeginFrame request.
+     * @return A future completed with the number of view paints seen by this
+     *         driver, once the view was painted the next time.
+     */
+    public CompletableFuture<Long> beginFrame() {
+        return beginFrame(false);
+    }
+
+    /**
+     * Issue a BeginFrame request.
+     * @param invalidate True to repaint the whole view, so that the request
+     *         results in a paint even if nothing changed.
+     * @return A future completed with the number of view paints seen by this
+     *         driver, once the view was painted the next time.
+     */
+    public CompletableFuture<Long> beginFrame(boolean invalidate) {
+        CompletableFuture<Long> future = new CompletableFuture<Long>();
+        synchronized (pending_) {
+            if (closed_) {
+                future.completeExceptionally(
+                        new CancellationException("The begin frame driver is closed"));
+                return future;
+            }
+            pending_.add(future);
+        }
+        if (invalidate) browser_.invalidate();
+        browser_.sendExternalBeginFrame();
+        return future;
+    }
+
+    /**
+     * Returns the number of view paints seen by this driver.
+     */
+    public long getPaintCount() {
+        synchronized (pending_) {
+            return paintCount_;
+        }
+    }
+
+    /**
+     * Detach the driver from the browser. Futures that were not completed yet are
+     * cancelled.
+     */
+    public void close() {
+        List<CompletableFuture<Long>> futures;
+        synchronized (pending_) {
+            if (closed_) return;
+            closed_ = true;
+            futures = new ArrayList<CompletableFuture<Long>>(pending_);
+            pending_.clear();
+        }
+        browser_.setBeginFrameDriver(null);
+        for (CompletableFuture<Long> future : futures) future.cancel(false);
+    }
+
+    /**
+     * Called by the browser for every paint of the view.
+     */
+    void onViewPainted() {
+        final List<CompletableFuture<Long>> futures;
+        final long paintCount;
+        synchronized (pending_) {
+            paintCount = ++paintCount_;
+            if (pending_.isEmpty()) return;
+            futures = new ArrayList<CompletableFuture<Long>>(pending_);
+            pending_.clear();
+        }
+        // Don't run dependent actions on the browser thread.
+        ForkJoinPool.commonPool().execute(new Runnable() {
+            @Override
+            public void run() {
+                for (CompletableFuture<Long> future : futures) future.complete(paintCount);
+            }
+        });
+    }
+}
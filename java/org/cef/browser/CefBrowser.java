@@ -13,11 +13,15 @@ import org.cef.handler.CefDialogHandler.FileDialogMode;
 import org.cef.handler.CefRenderHandler;
 import org.cef.handler.CefWindowHandler;
 import org.cef.misc.CefPdfPrintSettings;
+import org.cef.misc.IntRef;
 import org.cef.network.CefRequest;
 
 import java.awt.Component;
 import java.awt.Point;
+import java.awt.Rectangle;
+import java.nio.ByteBuffer;
 import java.util.Vector;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Interface representing a browser.
@@ -265,6 +269,38 @@ public interface CefBrowser {
      */
     public void setRenderingBlocked(boolean blocked);
 
+    /**
+     * Set the maximum rate in frames per second (fps) at which
+     * CefRenderHandler.onPaint will be called for an off-screen rendered
+     * browser. The actual rate may be lower if the browser cannot generate
+     * frames at the requested rate, or while the browser is throttled because
+     * it is not visible. The minimum value is 1 and the maximum value is 60.
+     * @param frameRate The frame rate, or 0 for the default rate of 30.
+     */
+    public void setWindowlessFrameRate(int frameRate);
+
+    /**
+     * Get the frame rate set with setWindowlessFrameRate() or
+     * CefBrowserSettings.windowless_frame_rate.
+     * @return The frame rate, or 0 for the default rate.
+     */
+    public int getWindowlessFrameRate();
+
+    /**
+     * Issue a BeginFrame request to an off-screen rendered browser that was
+     * created with CefBrowserSettings.windowless_external_begin_frame. The
+     * browser then produces at most one frame, and calls
+     * CefRenderHandler.onPaint if anything changed. Has no effect otherwise.
+     * See CefBeginFrameDriver for waiting on the resulting paint.
+     */
+    public void sendExternalBeginFrame();
+
+    /**
+     * Returns true if frames of this browser are only produced on calls to
+     * sendExternalBeginFrame().
+     */
+    public boolean isExternalBeginFrameEnabled();
+
     /**
      * Get the current zoom level. The default zoom level is 0.0.
      * @return The current zoom level.
@@ -373,6 +409,53 @@ public interface CefBrowser {
      * @throws UnsupportedOperationException if not supported
      */
     public BufferedImage createScreenshot();
+
+    /**
+     * Captures the currently displayed content as raw pixel data. The buffer holds
+     * premultiplied BGRA pixels ordered top to bottom, as they are delivered by
+     * CefRenderHandler.onPaint. Unlike createScreenshot() no conversion or HiDPI
+     * rescaling is applied, which makes this suitable for frequent captures.
+     *
+     * @param width receives the width of the captured content in pixels
+     * @param height receives the height of the captured content in pixels
+     * @return a direct buffer with the pixel data, or null if nothing could be captured
+     * @throws UnsupportedOperationException if not supported
+     */
+    public ByteBuffer createScreenshotBuffer(IntRef width, IntRef height);
+
+    /**
+     * Captures a region of the currently displayed content without blocking the
+     * calling thread. Requests made before the content is displayed the next time
+     * share a single readback, and cropping and scaling are done on a background
+     * thread. The returned future completes exceptionally if nothing could be
+     * captured, e.g. because the browser was closed.
+     *
+     * @param region the region to capture in pixels of the rendered content, or
+     *         null for the whole content
+     * @param scale the factor by which the region is scaled down, in the range (0, 1]
+     * @return a future that receives the screenshot image
+     * @throws IllegalArgumentException if the region is empty or the scale is out of range
+     * @throws UnsupportedOperationException if not supported
+     */
+    public CompletableFuture<BufferedImage> createScreenshotAsync(Rectangle region, double scale);
+
+    /**
+     * Returns the ring into which every painted frame is copied, so that it can
+     * be processed on other threads. Only available for off-screen rendered
+     * browsers created with CefBrowserSettings.windowless_frame_ring_size set.
+     * The ring is closed when the browser is closed.
+     *
+     * @return the frame ring, or null if not enabled
+     */
+    public CefFrameRing getFrameRing();
+
+    /**
+     * Returns the paint counters and histograms of an off-screen rendered browser
+     * created with CefBrowserSettings.windowless_paint_statistics set.
+     *
+     * @return the statistics, or null if not enabled
+     */
+    public CefPaintStatistics getPaintStatistics();
     
     /**
      * Can be used by an application to correct for a non-1:1 virtual pixels to real pixels on HiDPI displays.
@@ -4,6 +4,7 @@
 
 package org.cef.browser;
 
+import org.cef.CefBrowserSettings;
 import org.cef.CefClient;
 
 /**
@@ -12,7 +13,16 @@ import org.cef.CefClient;
 public class CefBrowserFactory {
     public static CefBrowser create(CefClient client, String url, boolean isOffscreenRendered,
             boolean isTransparent, CefRequestContext context) {
-        if (isOffscreenRendered) return new CefBrowserOsr(client, url, isTransparent, context);
+        return create(client, url, isOffscreenRendered, isTransparent, context, null);
+    }
+
+    public static CefBrowser create(CefClient client, String url, boolean isOffscreenRendered,
+            boolean isTransparent, CefRequestContext context, CefBrowserSettings settings) {
+        if (isOffscreenRendered) {
+            if (settings != null && settings.windowless_software_rendering)
+                return new CefBrowserOsrSoftware(client, url, isTransparent, context, settings);
+            return new CefBrowserOsr(client, url, isTransparent, context, settings);
+        }
         return new CefBrowserWr(client, url, context);
     }
 }
@@ -14,19 +14,23 @@ import com.jogamp.opengl.util.GLBuffers;
 import com.jogamp.opengl.GL;
 import com.jogamp.opengl.GL2;
 
+import org.cef.CefBrowserSettings;
 import org.cef.CefClient;
+import org.cef.CefMessageLoopStatistics;
 import org.cef.OS;
 import org.cef.callback.CefDragData;
 import org.cef.handler.CefRenderHandler;
+import org.cef.misc.IntRef;
 
 import java.awt.AWTEvent;
-import java.awt.Color;
 import java.awt.Component;
 import java.awt.Cursor;
 import java.awt.Graphics;
 import java.awt.Point;
 import java.awt.Rectangle;
 import java.awt.dnd.DropTarget;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.awt.event.FocusEvent;
 import java.awt.event.FocusListener;
 import java.awt.event.KeyEvent;
@@ -40,9 +44,12 @@ import java.awt.geom.AffineTransform;
 import java.awt.image.AffineTransformOp;
 import java.awt.image.BufferedImage;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import javax.swing.MenuSelectionManager;
-import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 
 /**
  * This class represents an off-screen rendered browser. 
@@ -50,6 +57,8 @@ import javax.swing.SwingUtilities;
  * CefBrowser instance, please use CefBrowserFactory.
  */
 class CefBrowserOsr extends CefBrowser_N implements CefRenderHandler {
+	private static final int STRETCH_TIMEOUT_MS = 500;
+
 	private CefRenderer renderer_;
 	private GLCanvas canvas_;
 	private long window_handle_ = 0;
@@ -57,17 +66,91 @@ class CefBrowserOsr extends CefBrowser_N implements CefRenderHandler {
 	private Point screenPoint_ = new Point(0, 0);
 	private boolean isTransparent_;
 	private double zoom_level_ = 0.0;
+	private final CefBrowserSettings settings_;
+	private CefDirtyRectCoalescer rect_coalescer_ = null;
+	private CefDisplayScheduler display_scheduler_;
+	// Only set if paints are uploaded on a render thread instead of the browser thread.
+	private CefRenderThread render_thread_ = null;
+	private GLEventListener gl_listener_;
+	private CefPaintQueue paint_queue_ = null;
+	private CefPaintStatistics statistics_ = null;
+	private CefFrameRing frame_ring_ = null;
+	private final CefPaintRects paint_rects_ = new CefPaintRects();
+	// Resizes are delayed while the canvas is being resized continuously. In the meantime the last
+	// frame is stretched to the canvas.
+	private final Rectangle pending_rect_ = new Rectangle();
+	private int pending_width_ = 0;
+	private int pending_height_ = 0;
+	private Timer resize_timer_ = null;
+	private Timer stretch_timer_ = null;
+	private volatile boolean stretching_ = false;
+	private volatile int stretch_view_width_ = 0;
+	private volatile int stretch_view_height_ = 0;
+	private final List<CefScreenshotRequest> screenshot_requests_ = new ArrayList<CefScreenshotRequest>();
 
 	CefBrowserOsr(CefClient client, String url, boolean transparent, CefRequestContext context) {
-		this(client, url, transparent, context, null, null);
+		this(client, url, transparent, context, null);
+	}
+
+	CefBrowserOsr(CefClient client, String url, boolean transparent, CefRequestContext context,
+	    CefBrowserSettings settings) {
+		this(client, url, transparent, context, null, null, settings);
 	}
 
 	private CefBrowserOsr(CefClient client, String url, boolean transparent,
-	    CefRequestContext context, CefBrowserOsr parent, Point inspectAt) {
+	    CefRequestContext context, CefBrowserOsr parent, Point inspectAt,
+	    CefBrowserSettings settings) {
 		super(client, url, context, parent, inspectAt);
 		isTransparent_ = transparent;
-		renderer_ = new CefRenderer(transparent);
-		createGLCanvas();
+		settings_ = settings != null ? settings.clone() : new CefBrowserSettings();
+		CefTexturePool tempTexturePool = settings_.windowless_shared_textures
+				? CefTexturePool.getShared(GLProfile.getMaxFixedFunc(true)) : null;
+		renderer_ = new CefRenderer(transparent, settings_.windowless_pixel_buffer_count, tempTexturePool,
+		        settings_.windowless_shader_rendering, settings_.windowless_texture_tile_size);
+		if (settings_.windowless_dirty_rect_merging_enabled) {
+			rect_coalescer_ = new CefDirtyRectCoalescer(settings_.windowless_dirty_rect_waste_ratio,
+			        settings_.windowless_dirty_rect_max_count);
+		}
+		if (settings_.windowless_frame_ring_size > 0) {
+			frame_ring_ = new CefFrameRing(settings_.windowless_frame_ring_size);
+		}
+		createGLCanvas(tempTexturePool);
+		if (settings_.windowless_render_thread) {
+			render_thread_ = tempTexturePool != null ? CefRenderThread.getShared()
+			        : new CefRenderThread("CEF render thread");
+			paint_queue_ = new CefPaintQueue();
+		}
+		display_scheduler_ = new CefDisplayScheduler(canvas_,
+		        settings_.windowless_max_display_rate, render_thread_, gl_listener_);
+		if (settings_.windowless_paint_statistics) {
+			statistics_ = new CefPaintStatistics();
+			statistics_.register();
+			display_scheduler_.setStatistics(statistics_);
+		}
+		if (settings_.windowless_resize_delay > 0) {
+			resize_timer_ = new Timer(settings_.windowless_resize_delay, new ActionListener() {
+				@Override
+				public void actionPerformed(ActionEvent e) {
+					applyResize();
+				}
+			});
+			resize_timer_.setRepeats(false);
+			// Stop stretching even if the browser never paints at the new size.
+			stretch_timer_ = new Timer(STRETCH_TIMEOUT_MS, new ActionListener() {
+				@Override
+				public void actionPerformed(ActionEvent e) {
+					stopStretching();
+				}
+			});
+			stretch_timer_.setRepeats(false);
+		}
+		setWindowlessFrameRate(settings_.windowless_frame_rate);
+		// Dev tools are interactive and have to update on their own.
+		setExternalBeginFrameEnabled(settings_.windowless_external_begin_frame && parent == null);
+		if (settings_.windowless_hidden_frame_rate > 0) {
+			new CefFrameRatePolicy(this, canvas_, settings_.windowless_hidden_frame_rate,
+			        settings_.windowless_hide_when_invisible);
+		}
 	}
 
 	@Override
@@ -86,11 +169,29 @@ class CefBrowserOsr extends CefBrowser_N implements CefRenderHandler {
 		return this;
 	}
 
+	@Override
+	public CefFrameRing getFrameRing() {
+		return frame_ring_;
+	}
+
+	@Override
+	public CefPaintStatistics getPaintStatistics() {
+		return statistics_;
+	}
+
+	@Override
+	public synchronized void onBeforeClose() {
+		super.onBeforeClose();
+		if (frame_ring_ != null) frame_ring_.close();
+		if (render_thread_ != null) render_thread_.dispose();
+		if (statistics_ != null) statistics_.unregister();
+	}
+
 	@Override
 	protected CefBrowser_N createDevToolsBrowser(CefClient client, String url,
 	    CefRequestContext context, CefBrowser_N parent, Point inspectAt) {
-		return new CefBrowserOsr(
-		        client, url, isTransparent_, context, (CefBrowserOsr) this, inspectAt);
+		return new CefBrowserOsr(client, url, isTransparent_, context, (CefBrowserOsr) this,
+		        inspectAt, settings_);
 	}
 
 	private synchronized long getWindowHandle() {
@@ -107,7 +208,7 @@ class CefBrowserOsr extends CefBrowser_N implements CefRenderHandler {
 	}
 
 	@SuppressWarnings("serial")
-	private void createGLCanvas() {
+	private void createGLCanvas(CefTexturePool aTexturePool) {
 		GLProfile glprofile = GLProfile.getMaxFixedFunc(true);
 		GLCapabilities glcapabilities = new GLCapabilities(glprofile);
 		canvas_ = new GLCanvas(glcapabilities) {
@@ -117,8 +218,12 @@ class CefBrowserOsr extends CefBrowser_N implements CefRenderHandler {
 				super.paint(g);
 			}
         };
+        if (aTexturePool != null) {
+            // Share textures with all other browsers using the pool.
+            canvas_.setSharedAutoDrawable(aTexturePool.getSharedDrawable());
+        }
 
-        canvas_.addGLEventListener(new GLEventListener() {
+        gl_listener_ = new GLEventListener() {
             @Override
             public void reshape(
                     GLAutoDrawable glautodrawable, int x, int y, int width, int height) {
@@ -127,29 +232,58 @@ class CefBrowserOsr extends CefBrowser_N implements CefRenderHandler {
                     // For some reason this does not seem to be necessary on MacOS, so we don't do it. But on Windows, the
                     // browser content would be too small and in the lower left corner of the canvas only if we didn't
                     // scale the browser_rect_ accordingly.
-                    browser_rect_.setBounds(x, y, (int) (width * getHiDPIScalingFactor()), (int) (height * getHiDPIScalingFactor()));
+                    pending_rect_.setBounds(x, y, (int) (width * getHiDPIScalingFactor()), (int) (height * getHiDPIScalingFactor()));
                 } else {
-                    browser_rect_.setBounds(x, y, width, height);
+                    pending_rect_.setBounds(x, y, width, height);
                 }
+                pending_width_ = width;
+                pending_height_ = height;
                 screenPoint_ = canvas_.getLocationOnScreen();
-                wasResized(width, height);
+
+                if (resize_timer_ == null || renderer_.getViewWidth() == 0) {
+                    // Nothing to stretch yet, resize right away.
+                    applyResize();
+                } else {
+                    // Every reshape during a live resize restarts the delay, so the browser is only resized
+                    // once the size settles.
+                    stretching_ = true;
+                    stretch_timer_.stop();
+                    resize_timer_.restart();
+                }
 			}
 
 			@Override
 			public void init(GLAutoDrawable glautodrawable) {
+				if (settings_.windowless_vsync_enabled) glautodrawable.getGL().setSwapInterval(1);
 				renderer_.initialize(glautodrawable.getGL().getGL2());
 			}
 
 			@Override
 			public void dispose(GLAutoDrawable glautodrawable) {
+				display_scheduler_.dispose();
 				renderer_.cleanup(glautodrawable.getGL().getGL2());
+				failScreenshotRequests();
 			}
 
 			@Override
 			public void display(GLAutoDrawable glautodrawable) {
-				renderer_.render(glautodrawable.getGL().getGL2());
+				if (paint_queue_ != null) {
+					long tempStart = System.nanoTime();
+					long tempBytes = paint_queue_.apply(renderer_, glautodrawable.getGL().getGL2());
+					if (statistics_ != null && tempBytes > 0) {
+						statistics_.recordUpload(tempBytes, System.nanoTime() - tempStart);
+					}
+				}
+				if (stretching_) {
+					renderer_.render(glautodrawable.getGL().getGL2(), glautodrawable.getSurfaceWidth(),
+					        glautodrawable.getSurfaceHeight());
+				} else {
+					renderer_.render(glautodrawable.getGL().getGL2());
+				}
+				serveScreenshotRequests(glautodrawable);
 			}
-		});
+		};
+		canvas_.addGLEventListener(gl_listener_);
 
 		canvas_.addMouseListener(new MouseListener() {
 			@Override
@@ -234,6 +368,27 @@ class CefBrowserOsr extends CefBrowser_N implements CefRenderHandler {
 		new DropTarget(canvas_, new CefDropTargetListenerOsr(this));
 	}
 
+	/**
+	 * Passes the size of the last reshape to the browser. Called on the AWT event dispatching thread.
+	 */
+	private void applyResize() {
+		if (resize_timer_ != null) resize_timer_.stop();
+		browser_rect_.setBounds(pending_rect_);
+		if (stretching_) {
+			// Keep stretching the current frame until the browser paints at the new size.
+			stretch_view_width_ = renderer_.getViewWidth();
+			stretch_view_height_ = renderer_.getViewHeight();
+			stretch_timer_.restart();
+		}
+		wasResized(pending_width_, pending_height_);
+	}
+
+	private void stopStretching() {
+		if (!stretching_) return;
+		stretching_ = false;
+		display_scheduler_.requestDisplay();
+	}
+
 	@Override
 	public Rectangle getViewRect(CefBrowser browser) {
 		return browser_rect_;
@@ -249,36 +404,83 @@ class CefBrowserOsr extends CefBrowser_N implements CefRenderHandler {
 	@Override
 	public void onPopupShow(CefBrowser browser, boolean show) {
 		if (!show) {
-			renderer_.clearPopupRects();
-			invalidate();
+			if (paint_queue_ != null) {
+				// The render thread reads the popup rectangle.
+				paint_queue_.clearPopup();
+			} else {
+				renderer_.clearPopupRects();
+			}
+			if (renderer_.hasPopupLayer()) {
+				// Only the popup layer is removed, the view itself is unchanged.
+				display_scheduler_.requestDisplay();
+			} else {
+				invalidate();
+			}
 		}
 	}
 
 	@Override
 	public void onPopupSize(CefBrowser browser, Rectangle size) {
-		renderer_.onPopupSize(size);
+		if (paint_queue_ != null) {
+			paint_queue_.setPopupSize(size);
+		} else {
+			renderer_.onPopupSize(size);
+		}
     }
 
     @Override
     public void onPaint(CefBrowser browser, boolean popup, Rectangle[] dirtyRects,
             ByteBuffer buffer, int width, int height) {
+        final long start = statistics_ != null ? System.nanoTime() : 0;
+        if (statistics_ != null) statistics_.recordPaint(popup, dirtyRects);
+
+        if (!popup && frame_ring_ != null) {
+            frame_ring_.write(dirtyRects, buffer, width, height);
+        }
+        if (!popup) notifyViewPainted();
+
         if(canvas_ == null || canvas_.getContext() == null) {
+            if (statistics_ != null) statistics_.recordDroppedPaint();
+            return;
+        }
+
+        if (stretching_ && !popup && !resize_timer_.isRunning()
+                && (width != stretch_view_width_ || height != stretch_view_height_)) {
+            // The browser caught up with the final size of the resize.
+            stretching_ = false;
+        }
+
+        if (!popup && rect_coalescer_ != null) {
+            int count = dirtyRects.length;
+            dirtyRects = rect_coalescer_.coalesce(dirtyRects, width, height);
+            if (statistics_ != null) statistics_.recordCoalescedRects(count, dirtyRects.length);
+        }
+
+        if (paint_queue_ != null) {
+            // The render thread uploads the paint with its next display.
+            paint_queue_.put(popup, dirtyRects, buffer, width, height);
+            display_scheduler_.requestDisplay();
             return;
         }
 
         canvas_.getContext().makeCurrent();
-        renderer_.onPaint(canvas_.getGL().getGL2(), popup, dirtyRects, buffer, width, height);
+        long bytes = renderer_.onPaint(
+                canvas_.getGL().getGL2(), popup, dirtyRects, buffer, width, height);
         canvas_.getContext().release();
-        SwingUtilities.invokeLater(new Runnable() {
-            public void run() {
-                canvas_.display();
-            }
-		});
+        if (statistics_ != null) statistics_.recordUpload(bytes, System.nanoTime() - start);
+        display_scheduler_.requestDisplay();
 	}
 
+    @Override
+    public void onPaint(CefBrowser browser, boolean popup, int[] dirtyRects, int dirtyRectCount,
+            ByteBuffer buffer, int width, int height) {
+        onPaint(browser, popup, paint_rects_.unpack(dirtyRects, dirtyRectCount), buffer, width,
+                height);
+    }
+
     @Override
     public void onCursorChange(CefBrowser browser, final int cursorType) {
-        SwingUtilities.invokeLater(new Runnable() {
+        CefMessageLoopStatistics.invokeLater("CefBrowserOsr", new Runnable() {
             public void run() {
                 canvas_.setCursor(new Cursor(cursorType));
             }
@@ -420,32 +622,49 @@ class CefBrowserOsr extends CefBrowser_N implements CefRenderHandler {
 
 	@Override
 	public BufferedImage createScreenshot() {
-		int tempWidth = canvas_.getWidth();
-		int tempHeight = canvas_.getHeight();
-		BufferedImage tempScreenshot = new BufferedImage((int) (tempWidth * getHiDPIScalingFactor()),
-				(int) (tempHeight * getHiDPIScalingFactor()),
-				BufferedImage.TYPE_INT_RGB);
-		Graphics tempGraphics = tempScreenshot.getGraphics();
+		IntRef tempWidth = new IntRef();
+		IntRef tempHeight = new IntRef();
+		ByteBuffer tempBuffer = createScreenshotBuffer(tempWidth, tempHeight);
+		if (tempBuffer == null) {
+			// Nothing was captured in time, return a blank image as before.
+			return new BufferedImage(Math.max(canvas_.getWidth(), 1),
+					Math.max(canvas_.getHeight(), 1), BufferedImage.TYPE_INT_RGB);
+		}
 
+		// The buffer holds BGRA bytes, which are ARGB ints in little endian order. Alpha is
+		// ignored by TYPE_INT_RGB, so the image can be filled with bulk row copies.
+		BufferedImage tempScreenshot = CefImageUtil.toImage(CefImageUtil.asArgb(tempBuffer),
+				tempWidth.get(), tempHeight.get(), false, BufferedImage.TYPE_INT_RGB);
+
+		if (getHiDPIScalingFactor() > 1.0) {
+			// HiDPI images should be resized down to "normal" levels
+			BufferedImage tempResized = new BufferedImage((int) (tempScreenshot.getWidth() / getHiDPIScalingFactor()),
+					(int) (tempScreenshot.getHeight() / getHiDPIScalingFactor()),
+					BufferedImage.TYPE_INT_ARGB);
+			AffineTransform tempTransform = new AffineTransform();
+			tempTransform.scale(1.0 / getHiDPIScalingFactor(), 1.0 / getHiDPIScalingFactor());
+			AffineTransformOp tempScaleOperation =
+					new AffineTransformOp(tempTransform, AffineTransformOp.TYPE_BILINEAR);
+			tempResized = tempScaleOperation.filter(tempScreenshot, tempResized);
+			tempScreenshot = tempResized;
+		}
+
+		return tempScreenshot;
+	}
+
+	@Override
+	public ByteBuffer createScreenshotBuffer(final IntRef aWidth, final IntRef aHeight) {
 		// In order to grab a screenshot of the browser window, we need to get the OpenGL internals from the GLCanvas
 		// that displays the browser. Technically, this display component works by having Chromium render updated
 		// parts into a 2D texture that is the same size as the window. On systems with 3D acceleration, this can be
 		// done by directly copying stuff in the graphics card memory, which makes it fast. This texture is then
 		// rendered into the canvas by rendering a simple textured quad via OpenGL. Our screen-grabbing mechanism works
-		// by getting the texture ID from the renderers' internals and adding itself into the OpenGL rendering process:
-		// the next time that rendering occurs, we just grab the textures' pixel data from the graphics memory and
-		// store it as a BufferedImage, hence we get our perfect screenshot. To ensure rendering happens soon, we just
-		// request an immediate redraw of the canvas' contents, which then causes rendering.
-		GL2 tempGL = canvas_.getGL().getGL2();
-		int tempTextureId = renderer_.getTextureID();
-
-		// This mirrors the two ways in which CefRenderer may render images internally - either via a texture that is
-		// updated incrementally and rendered by graphics hardware, in which case we capture the data directly from
-		// the texture, or by directly writing pixels to the framebuffer, in which case we directly read those pixels
-		// back. The latter is the way chosen if there is no graphics rendering hardware detected.
-		// Both is done in the GLEventListener below, because we need a valid OpenGL context for both actions.
-		boolean tempUseReadPixels = (tempTextureId == 0);
+		// by adding itself into the OpenGL rendering process: the next time that rendering occurs, we just grab the
+		// pixel data from the graphics memory (see readPixels) and store it in a buffer, hence we get our perfect
+		// screenshot. To ensure rendering happens soon, we just request an immediate redraw of the canvas' contents,
+		// which then causes rendering.
 		final Object tempSyncObject = new Object();
+		final ByteBuffer[] tempResult = new ByteBuffer[1];
 
 		canvas_.addGLEventListener(new GLEventListener() {
 
@@ -466,36 +685,15 @@ class CefBrowserOsr extends CefBrowser_N implements CefRenderHandler {
 
 			@Override
 			public void display(GLAutoDrawable aDrawable) {
-				ByteBuffer tempBuffer = GLBuffers.newDirectByteBuffer(
-						(int) (tempWidth * getHiDPIScalingFactor()) * (int) (tempHeight * getHiDPIScalingFactor()) * 4);
-
-				if (tempUseReadPixels) {
-					// If pixels are copied directly to the framebuffer, we also directly read them back. In this case
-					// we have to swap the resulting image on the Y axis, as OpenGL framebuffers are top-to-bottom.
-					// This flipping is done below, when drawing into the BufferedImage.
-					tempGL.glReadPixels(0, 0, tempWidth, tempHeight, GL.GL_RGBA, GL.GL_UNSIGNED_BYTE, tempBuffer);
-				} else {
-					tempGL.glEnable(GL.GL_TEXTURE_2D);
-					tempGL.glBindTexture(GL.GL_TEXTURE_2D, tempTextureId);
-					tempGL.glGetTexImage(GL.GL_TEXTURE_2D, 0, GL.GL_RGBA, GL.GL_UNSIGNED_BYTE, tempBuffer);
-					tempGL.glDisable(GL.GL_TEXTURE_2D);
-				}
-
-				for (int tempY = 0; tempY < (int) (tempHeight * getHiDPIScalingFactor()); tempY++) {
-					for (int tempX = 0; tempX < (int) (tempWidth * getHiDPIScalingFactor()); tempX++) {
-						Color tempPixelColor = new Color((tempBuffer.get() & 0xff),
-								(tempBuffer.get() & 0xff),
-								(tempBuffer.get() & 0xff));
-						tempBuffer.get(); // throw away the alpha part
-						tempGraphics.setColor(tempPixelColor);
-						tempGraphics.drawRect(tempX,
-								tempUseReadPixels ? ((int) (tempHeight * getHiDPIScalingFactor()) - tempY - 1) : tempY,
-								1,
-								1);
-					}
-				}
+				Rectangle tempBounds = new Rectangle();
+				ByteBuffer tempBuffer = readPixels(aDrawable, null, tempBounds);
 
 				synchronized (tempSyncObject) {
+					if (tempBuffer != null) {
+						aWidth.set(tempBounds.width);
+						aHeight.set(tempBounds.height);
+						tempResult[0] = tempBuffer;
+					}
 					tempSyncObject.notify();
 					canvas_.removeGLEventListener(this);
 				}
@@ -507,27 +705,91 @@ class CefBrowserOsr extends CefBrowser_N implements CefRenderHandler {
 		synchronized (tempSyncObject) {
 			try {
 				// Then we just have to wait until we're signalled by the listener being called
-				tempSyncObject.wait(2000);
+				if (tempResult[0] == null) tempSyncObject.wait(2000);
 			} catch (InterruptedException exc) {
 				// ignored
 			}
+			return tempResult[0];
 		}
+	}
 
-		// At this point in time, our screenshot image contains an actual shot of the browsers' internal texture.
+	@Override
+	public CompletableFuture<BufferedImage> createScreenshotAsync(Rectangle aRegion, double aScale) {
+		CefScreenshotRequest tempRequest = new CefScreenshotRequest(aRegion, aScale);
+		synchronized (screenshot_requests_) {
+			screenshot_requests_.add(tempRequest);
+		}
+		// All requests that arrive until the next display are served by the same readback.
+		display_scheduler_.requestDisplay();
+		return tempRequest.getFuture();
+	}
 
-		if (getHiDPIScalingFactor() > 1.0) {
-			// HiDPI images should be resized down to "normal" levels
-			BufferedImage tempResized = new BufferedImage((int) (tempScreenshot.getWidth() / getHiDPIScalingFactor()),
-					(int) (tempScreenshot.getHeight() / getHiDPIScalingFactor()),
-					BufferedImage.TYPE_INT_ARGB);
-			AffineTransform tempTransform = new AffineTransform();
-			tempTransform.scale(1.0 / getHiDPIScalingFactor(), 1.0 / getHiDPIScalingFactor());
-			AffineTransformOp tempScaleOperation =
-					new AffineTransformOp(tempTransform, AffineTransformOp.TYPE_BILINEAR);
-			tempResized = tempScaleOperation.filter(tempScreenshot, tempResized);
-			tempScreenshot = tempResized;
+	/**
+	 * Serves all pending asynchronous screenshot requests from a single readback. Called from the display method of
+	 * the canvas, after the content has been rendered.
+	 */
+	private void serveScreenshotRequests(GLAutoDrawable aDrawable) {
+		List<CefScreenshotRequest> tempRequests;
+		synchronized (screenshot_requests_) {
+			if (screenshot_requests_.isEmpty()) return;
+			tempRequests = new ArrayList<CefScreenshotRequest>(screenshot_requests_);
+			screenshot_requests_.clear();
 		}
 
-		return tempScreenshot;
+		Rectangle tempBounds = new Rectangle();
+		ByteBuffer tempBuffer = readPixels(aDrawable, CefScreenshotRequest.getBounds(tempRequests), tempBounds);
+		CefScreenshotRequest.completeAll(tempRequests,
+				tempBuffer != null ? CefImageUtil.asArgb(tempBuffer) : null, tempBounds);
+	}
+
+	/**
+	 * Fails all pending asynchronous screenshot requests, as there will be no further display.
+	 */
+	private void failScreenshotRequests() {
+		List<CefScreenshotRequest> tempRequests;
+		synchronized (screenshot_requests_) {
+			if (screenshot_requests_.isEmpty()) return;
+			tempRequests = new ArrayList<CefScreenshotRequest>(screenshot_requests_);
+			screenshot_requests_.clear();
+		}
+		CefScreenshotRequest.completeAll(tempRequests, null, new Rectangle());
+	}
+
+	/**
+	 * Reads back the currently displayed content. Must be called from a display method of the canvas, as it needs
+	 * the OpenGL context to be current.
+	 *
+	 * @param aDrawable the drawable being displayed
+	 * @param aRegion the region of the view that is required, or null for the whole view
+	 * @param aBounds receives the region of the view that was read, which may be larger than aRegion
+	 * @return BGRA pixels of aBounds ordered top to bottom, or null if there is no content
+	 */
+	private ByteBuffer readPixels(GLAutoDrawable aDrawable, Rectangle aRegion, Rectangle aBounds) {
+		// This mirrors the two ways in which CefRenderer may render images internally - either via a texture that is
+		// updated incrementally and rendered by graphics hardware, in which case we capture the data directly from
+		// the texture, or by directly writing pixels to the framebuffer, in which case we directly read those pixels
+		// back. The latter is the way chosen if the OpenGL context can't upload BGRA textures.
+		GL2 tempGL = aDrawable.getGL().getGL2();
+		boolean tempUsesTexture = renderer_.usesTexture();
+		if (tempUsesTexture) {
+			aBounds.setBounds(0, 0, renderer_.getViewWidth(), renderer_.getViewHeight());
+		} else {
+			aBounds.setBounds(0, 0, aDrawable.getSurfaceWidth(), aDrawable.getSurfaceHeight());
+		}
+		if (aRegion != null) aBounds.setBounds(aBounds.intersection(aRegion));
+		if (aBounds.isEmpty()) return null;
+
+		ByteBuffer tempBuffer = GLBuffers.newDirectByteBuffer(aBounds.width * aBounds.height * 4);
+		tempGL.glPixelStorei(GL.GL_PACK_ALIGNMENT, 1);
+		if (tempUsesTexture) {
+			renderer_.readTexturePixels(tempGL, aBounds, tempBuffer);
+		} else {
+			// If pixels are copied directly to the framebuffer, we also directly read them back. In this case we have
+			// to swap the resulting image on the Y axis, as OpenGL framebuffers are bottom-to-top.
+			tempGL.glReadPixels(aBounds.x, aDrawable.getSurfaceHeight() - aBounds.y - aBounds.height, aBounds.width,
+					aBounds.height, GL.GL_BGRA, GL.GL_UNSIGNED_BYTE, tempBuffer);
+			CefImageUtil.flipRows(tempBuffer, aBounds.width, aBounds.height);
+		}
+		return tempBuffer;
 	}
 }
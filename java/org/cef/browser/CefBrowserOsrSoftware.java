@@ -0,0 +1,374 @@
+// Copyright (c) 2020 The Chromium Embedded Framework Authors. All rights
+// reserved. Use of this source code is governed by a BSD-style license that
+// can be found in the LICENSE file.
+
+package org.cef.browser;
+
+import org.cef.CefBrowserSettings;
+import org.cef.CefClient;
+import org.cef.CefMessageLoopStatistics;
+import org.cef.callback.CefDragData;
+import org.cef.handler.CefRenderHandler;
+import org.cef.misc.IntRef;
+
+import java.awt.Component;
+import java.awt.Cursor;
+import java.awt.Graphics;
+import java.awt.GraphicsEnvironment;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.dnd.DropTarget;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.event.FocusEvent;
+import java.awt.event.FocusListener;
+import java.awt.event.KeyEvent;
+import java.awt.event.KeyListener;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+
+import javax.swing.JPanel;
+import javax.swing.MenuSelectionManager;
+
+/**
+ * This class represents an off-screen rendered browser that does not use
+ * OpenGL. Paint events are applied to a BufferedImage in memory, which makes
+ * it suitable for systems without graphics hardware and for headless
+ * operation, where the browser has to be created using createImmediately()
+ * and sized using setSize() on its UI component.
+ * The visibility of this class is "package". To create a new
+ * CefBrowser instance, please use CefBrowserFactory.
+ */
+class CefBrowserOsrSoftware extends CefBrowser_N implements CefRenderHandler {
+    private CefSoftwareRenderer renderer_;
+    private JPanel component_;
+    private Rectangle browser_rect_ = new Rectangle(0, 0, 1, 1); // Work around CEF issue #1437.
+    private boolean isTransparent_;
+    private final CefBrowserSettings settings_;
+    private CefFrameRing frame_ring_ = null;
+    private final CefPaintRects paint_rects_ = new CefPaintRects();
+    private CefPaintStatistics statistics_ = null;
+
+    CefBrowserOsrSoftware(CefClient client, String url, boolean transparent,
+            CefRequestContext context, CefBrowserSettings settings) {
+        this(client, url, transparent, context, null, null, settings);
+    }
+
+    private CefBrowserOsrSoftware(CefClient client, String url, boolean transparent,
+            CefRequestContext context, CefBrowserOsrSoftware parent, Point inspectAt,
+            CefBrowserSettings settings) {
+        super(client, url, context, parent, inspectAt);
+        isTransparent_ = transparent;
+        settings_ = settings != null ? settings.clone() : new CefBrowserSettings();
+        renderer_ = new CefSoftwareRenderer(transparent);
+        if (settings_.windowless_frame_ring_size > 0) {
+            frame_ring_ = new CefFrameRing(settings_.windowless_frame_ring_size);
+        }
+        if (settings_.windowless_paint_statistics) {
+            statistics_ = new CefPaintStatistics();
+            statistics_.register();
+        }
+        createComponent();
+        setWindowlessFrameRate(settings_.windowless_frame_rate);
+        // Dev tools are interactive and have to update on their own.
+        setExternalBeginFrameEnabled(settings_.windowless_external_begin_frame && parent == null);
+        if (settings_.windowless_hidden_frame_rate > 0) {
+            new CefFrameRatePolicy(this, component_, settings_.windowless_hidden_frame_rate,
+                    settings_.windowless_hide_when_invisible);
+        }
+    }
+
+    @Override
+    public void createImmediately() {
+        createBrowserIfRequired();
+    }
+
+    @Override
+    public Component getUIComponent() {
+        return component_;
+    }
+
+    @Override
+    public CefRenderHandler getRenderHandler() {
+        return this;
+    }
+
+    @Override
+    public CefFrameRing getFrameRing() {
+        return frame_ring_;
+    }
+
+    @Override
+    public CefPaintStatistics getPaintStatistics() {
+        return statistics_;
+    }
+
+    @Override
+    public synchronized void onBeforeClose() {
+        super.onBeforeClose();
+        if (frame_ring_ != null) frame_ring_.close();
+        if (statistics_ != null) statistics_.unregister();
+    }
+
+    @Override
+    protected CefBrowser_N createDevToolsBrowser(CefClient client, String url,
+            CefRequestContext context, CefBrowser_N parent, Point inspectAt) {
+        return new CefBrowserOsrSoftware(
+                client, url, isTransparent_, context, this, inspectAt, settings_);
+    }
+
+    @SuppressWarnings("serial")
+    private void createComponent() {
+        component_ = new JPanel() {
+            @Override
+            public void addNotify() {
+                super.addNotify();
+                createBrowserIfRequired();
+            }
+
+            @Override
+            protected void paintComponent(Graphics g) {
+                super.paintComponent(g);
+                renderer_.render(g, getWidth(), getHeight());
+            }
+        };
+        component_.setOpaque(!isTransparent_);
+
+        component_.addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentResized(ComponentEvent e) {
+                int width = Math.max(component_.getWidth(), 1);
+                int height = Math.max(component_.getHeight(), 1);
+                browser_rect_.setBounds(0, 0, width, height);
+                wasResized(width, height);
+            }
+        });
+
+        MouseAdapter mouseAdapter = new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                component_.requestFocusInWindow();
+                sendMouseEvent(e);
+            }
+
+            @Override
+            public void mouseReleased(MouseEvent e) {
+                sendMouseEvent(e);
+            }
+
+            @Override
+            public void mouseEntered(MouseEvent e) {
+                sendMouseEvent(e);
+            }
+
+            @Override
+            public void mouseExited(MouseEvent e) {
+                sendMouseEvent(e);
+            }
+
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                sendMouseEvent(e);
+            }
+
+            @Override
+            public void mouseMoved(MouseEvent e) {
+                sendMouseEvent(e);
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                sendMouseEvent(e);
+            }
+
+            @Override
+            public void mouseWheelMoved(MouseWheelEvent e) {
+                sendMouseWheelEvent(e);
+            }
+        };
+        component_.addMouseListener(mouseAdapter);
+        component_.addMouseMotionListener(mouseAdapter);
+        component_.addMouseWheelListener(mouseAdapter);
+
+        component_.addKeyListener(new KeyListener() {
+            @Override
+            public void keyTyped(KeyEvent e) {
+                sendKeyEvent(e);
+            }
+
+            @Override
+            public void keyPressed(KeyEvent e) {
+                sendKeyEvent(e);
+            }
+
+            @Override
+            public void keyReleased(KeyEvent e) {
+                sendKeyEvent(e);
+            }
+        });
+
+        component_.setFocusable(true);
+        component_.addFocusListener(new FocusListener() {
+            @Override
+            public void focusLost(FocusEvent e) {
+                setFocus(false);
+            }
+
+            @Override
+            public void focusGained(FocusEvent e) {
+                // Dismiss any Java menus that are currently displayed.
+                MenuSelectionManager.defaultManager().clearSelectedPath();
+                setFocus(true);
+            }
+        });
+
+        // Connect the component with a drag and drop listener. Drop targets can't be
+        // created without a display.
+        if (!GraphicsEnvironment.isHeadless()) {
+            new DropTarget(component_, new CefDropTargetListenerOsr(this));
+        }
+    }
+
+    @Override
+    public Rectangle getViewRect(CefBrowser browser) {
+        return browser_rect_;
+    }
+
+    @Override
+    public Point getScreenPoint(CefBrowser browser, Point viewPoint) {
+        Point screenPoint = new Point(viewPoint);
+        if (component_.isShowing()) {
+            Point location = component_.getLocationOnScreen();
+            screenPoint.translate(location.x, location.y);
+        }
+        return screenPoint;
+    }
+
+    @Override
+    public void onPopupShow(CefBrowser browser, boolean show) {
+        if (!show) {
+            // Only the area that was covered by the popup has to be repainted.
+            Rectangle bounds = renderer_.getPopupBounds();
+            renderer_.clearPopupRects();
+            if (bounds != null) repaintView(bounds);
+        }
+    }
+
+    @Override
+    public void onPopupSize(CefBrowser browser, Rectangle size) {
+        renderer_.onPopupSize(size);
+    }
+
+    @Override
+    public void onPaint(CefBrowser browser, boolean popup, Rectangle[] dirtyRects,
+            ByteBuffer buffer, int width, int height) {
+        final long start = statistics_ != null ? System.nanoTime() : 0;
+        if (statistics_ != null) statistics_.recordPaint(popup, dirtyRects);
+
+        if (!popup && frame_ring_ != null) frame_ring_.write(dirtyRects, buffer, width, height);
+        if (!popup) notifyViewPainted();
+
+        Rectangle changed = renderer_.onPaint(popup, dirtyRects, buffer, width, height);
+        if (statistics_ != null && changed != null) {
+            statistics_.recordUpload(
+                    (long) changed.width * changed.height * 4, System.nanoTime() - start);
+        }
+        if (changed != null) repaintView(changed);
+    }
+
+    @Override
+    public void onPaint(CefBrowser browser, boolean popup, int[] dirtyRects, int dirtyRectCount,
+            ByteBuffer buffer, int width, int height) {
+        onPaint(browser, popup, paint_rects_.unpack(dirtyRects, dirtyRectCount), buffer, width,
+                height);
+    }
+
+    /**
+     * Repaint an area of the view. The image is drawn scaled to the size of the
+     * component, which may differ from the view size until the next resize.
+     */
+    private void repaintView(Rectangle changed) {
+        int viewWidth = renderer_.getViewWidth();
+        int viewHeight = renderer_.getViewHeight();
+        int componentWidth = component_.getWidth();
+        int componentHeight = component_.getHeight();
+        if (componentWidth == viewWidth && componentHeight == viewHeight) {
+            component_.repaint(changed.x, changed.y, changed.width, changed.height);
+        } else {
+            component_.repaint();
+        }
+    }
+
+    @Override
+    public void onCursorChange(CefBrowser browser, final int cursorType) {
+        CefMessageLoopStatistics.invokeLater("CefBrowserOsrSoftware", new Runnable() {
+            public void run() {
+                component_.setCursor(new Cursor(cursorType));
+            }
+        });
+    }
+
+    @Override
+    public boolean startDragging(CefBrowser browser, CefDragData dragData, int mask, int x, int y) {
+        // TODO(JCEF) Prepared for DnD support using OSR mode.
+        return false;
+    }
+
+    @Override
+    public void updateDragCursor(CefBrowser browser, int operation) {
+        // TODO(JCEF) Prepared for DnD support using OSR mode.
+    }
+
+    private void createBrowserIfRequired() {
+        if (getNativeRef("CefBrowser") == 0) {
+            if (getParentBrowser() != null) {
+                createDevTools(getParentBrowser(), getClient(), 0, true, isTransparent_, null,
+                        getInspectAt());
+            } else {
+                createBrowser(getClient(), 0, getUrl(), true, isTransparent_, null,
+                        getRequestContext());
+            }
+        }
+    }
+
+    /**
+     * The content is rendered at the size of the UI component and scaled by Java2D
+     * when it is painted, so no HiDPI scaling correction is applied to the browser.
+     */
+    @Override
+    public void setHiDPIScalingFactor(double aFactor) {
+        // ignored
+    }
+
+    @Override
+    public BufferedImage createScreenshot() {
+        BufferedImage screenshot = renderer_.createScreenshot();
+        if (screenshot == null) {
+            screenshot = new BufferedImage(Math.max(component_.getWidth(), 1),
+                    Math.max(component_.getHeight(), 1), BufferedImage.TYPE_INT_ARGB_PRE);
+        }
+        return screenshot;
+    }
+
+    @Override
+    public ByteBuffer createScreenshotBuffer(IntRef width, IntRef height) {
+        return renderer_.createScreenshotBuffer(width, height);
+    }
+
+    @Override
+    public CompletableFuture<BufferedImage> createScreenshotAsync(Rectangle region, double scale) {
+        // The content is in memory already, so only the region is copied here and
+        // scaling is left to the background thread.
+        CefScreenshotRequest request = new CefScreenshotRequest(region, scale);
+        Rectangle bounds = new Rectangle();
+        IntBuffer pixels = renderer_.copyRegion(region, bounds);
+        CefScreenshotRequest.completeAll(Collections.singletonList(request), pixels, bounds);
+        return request.getFuture();
+    }
+}
@@ -25,7 +25,9 @@ import java.awt.event.HierarchyListener;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseWheelEvent;
 import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
 import java.util.Date;
+import java.util.concurrent.CompletableFuture;
 
 import javax.swing.JPanel;
 import javax.swing.JPopupMenu;
@@ -35,9 +37,11 @@ import javax.swing.Timer;
 import javax.swing.ToolTipManager;
 
 import org.cef.CefClient;
+import org.cef.CefMessageLoopStatistics;
 import org.cef.OS;
 import org.cef.handler.CefWindowHandler;
 import org.cef.handler.CefWindowHandlerAdapter;
+import org.cef.misc.IntRef;
 
 /**
  * This class represents a windowed rendered browser.
@@ -53,7 +57,7 @@ class CefBrowserWr extends CefBrowser_N {
     private Timer delayedUpdate_ = new Timer(100, new ActionListener() {
         @Override
         public void actionPerformed(ActionEvent e) {
-            SwingUtilities.invokeLater(new Runnable() {
+            CefMessageLoopStatistics.invokeLater("CefBrowserWr", new Runnable() {
                 @Override
                 public void run() {
                     if (isClosed())
@@ -106,7 +110,7 @@ class CefBrowserWr extends CefBrowser_N {
 
             final int finalEvent = event;
 
-            SwingUtilities.invokeLater(new Runnable() {
+            CefMessageLoopStatistics.invokeLater("CefBrowserWr", new Runnable() {
                 @Override
                 public void run() {
                     // Send mouse event to the root UI component instead to the browser UI.
@@ -290,7 +294,7 @@ class CefBrowserWr extends CefBrowser_N {
     @Override
     public void createImmediately() {
         justCreated_ = true;
-        SwingUtilities.invokeLater(new Runnable() {
+        CefMessageLoopStatistics.invokeLater("CefBrowserWr", new Runnable() {
             @Override
             public void run() {
                 // Create the browser immediately. It will be parented to the Java
@@ -431,4 +435,24 @@ class CefBrowserWr extends CefBrowser_N {
     public BufferedImage createScreenshot() {
         throw new UnsupportedOperationException("Unsupported for windowed rendering");
     }
+
+    @Override
+    public ByteBuffer createScreenshotBuffer(IntRef width, IntRef height) {
+        throw new UnsupportedOperationException("Unsupported for windowed rendering");
+    }
+
+    @Override
+    public CompletableFuture<BufferedImage> createScreenshotAsync(Rectangle region, double scale) {
+        throw new UnsupportedOperationException("Unsupported for windowed rendering");
+    }
+
+    @Override
+    public CefFrameRing getFrameRing() {
+        return null;
+    }
+
+    @Override
+    public CefPaintStatistics getPaintStatistics() {
+        return null;
+    }
 }
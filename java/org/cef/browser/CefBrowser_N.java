@@ -5,6 +5,7 @@
 package org.cef.browser;
 
 import org.cef.CefClient;
+import org.cef.CefMessageLoopStatistics;
 import org.cef.OS;
 import org.cef.browser.CefRequestContext;
 import org.cef.callback.CefDragData;
@@ -49,6 +50,10 @@ abstract class CefBrowser_N extends CefNativeAdapter implements CefBrowser {
     private boolean closeAllowed_ = false;
     private boolean isClosed_ = false;
     private double hidpi_scaling_factor_ = 1.0;
+    private int windowless_frame_rate_ = 0;
+    private boolean throttled_ = false;
+    private boolean external_begin_frame_ = false;
+    private volatile CefBeginFrameDriver begin_frame_driver_ = null;
 
     protected CefBrowser_N(CefClient client, String url, CefRequestContext context,
             CefBrowser_N parent, Point inspectAt) {
@@ -106,7 +111,7 @@ abstract class CefBrowser_N extends CefNativeAdapter implements CefBrowser {
             return false;
         }
 
-        SwingUtilities.invokeLater(new Runnable() {
+        CefMessageLoopStatistics.invokeLater("CefBrowser_N", new Runnable() {
             @Override
             public void run() {
                 // Trigger close of the parent window.
@@ -156,8 +161,8 @@ abstract class CefBrowser_N extends CefNativeAdapter implements CefBrowser {
             boolean osr, boolean transparent, Component canvas, CefRequestContext context) {
         if (getNativeRef("CefBrowser") == 0 && !isPending_) {
             try {
-                isPending_ = N_CreateBrowser(
-                        clientHandler, windowHandle, url, osr, transparent, canvas, context);
+                isPending_ = N_CreateBrowser(clientHandler, windowHandle, url, osr, transparent,
+                        canvas, context, windowless_frame_rate_, external_begin_frame_);
             } catch (UnsatisfiedLinkError err) {
                 err.printStackTrace();
             }
@@ -172,8 +177,9 @@ abstract class CefBrowser_N extends CefNativeAdapter implements CefBrowser {
             Point inspectAt) {
         if (getNativeRef("CefBrowser") == 0 && !isPending_) {
             try {
-                isPending_ = N_CreateDevTools(
-                        parent, clientHandler, windowHandle, osr, transparent, canvas, inspectAt);
+                isPending_ = N_CreateDevTools(parent, clientHandler, windowHandle, osr,
+                        transparent, canvas, inspectAt, windowless_frame_rate_,
+                        external_begin_frame_);
             } catch (UnsatisfiedLinkError err) {
                 err.printStackTrace();
             }
@@ -470,6 +476,86 @@ abstract class CefBrowser_N extends CefNativeAdapter implements CefBrowser {
         }
     }
 
+    @Override
+    public synchronized void setWindowlessFrameRate(int frameRate) {
+        if (frameRate < 0 || frameRate > 60)
+            throw new IllegalArgumentException("frameRate must be between 0 and 60");
+        windowless_frame_rate_ = frameRate;
+        // A throttled browser keeps its low rate until it becomes visible again.
+        if (!throttled_ && getNativeRef("CefBrowser") != 0) {
+            try {
+                N_SetWindowlessFrameRate(frameRate);
+            } catch (UnsatisfiedLinkError ule) {
+                ule.printStackTrace();
+            }
+        }
+    }
+
+    @Override
+    public synchronized int getWindowlessFrameRate() {
+        return windowless_frame_rate_;
+    }
+
+    @Override
+    public void sendExternalBeginFrame() {
+        if (!external_begin_frame_) return;
+        try {
+            N_SendExternalBeginFrame();
+        } catch (UnsatisfiedLinkError ule) {
+            ule.printStackTrace();
+        }
+    }
+
+    @Override
+    public boolean isExternalBeginFrameEnabled() {
+        return external_begin_frame_;
+    }
+
+    /**
+     * Let an off-screen rendered browser produce frames only on calls to
+     * sendExternalBeginFrame(). Must be called before the browser is created.
+     */
+    protected final void setExternalBeginFrameEnabled(boolean enabled) {
+        external_begin_frame_ = enabled;
+    }
+
+    /**
+     * Attach the driver that is notified of view paints, or detach it with null.
+     * Returns false if another driver is attached already.
+     */
+    synchronized boolean setBeginFrameDriver(CefBeginFrameDriver driver) {
+        if (driver != null && begin_frame_driver_ != null) return false;
+        begin_frame_driver_ = driver;
+        return true;
+    }
+
+    /**
+     * Called by off-screen rendered browsers for every paint of the view.
+     */
+    protected final void notifyViewPainted() {
+        CefBeginFrameDriver driver = begin_frame_driver_;
+        if (driver != null) driver.onViewPainted();
+    }
+
+    /**
+     * Lower the frame rate of an off-screen rendered browser while it is not
+     * visible, or restore the rate set with setWindowlessFrameRate().
+     * @param throttled True if the browser is not visible.
+     * @param frameRate The frame rate to use while throttled.
+     * @param hide True to also stop painting while throttled.
+     */
+    protected final synchronized void setThrottled(
+            boolean throttled, int frameRate, boolean hide) {
+        if (throttled == throttled_) return;
+        throttled_ = throttled;
+        try {
+            N_SetWindowlessFrameRate(throttled ? frameRate : windowless_frame_rate_);
+            if (hide) N_WasHidden(throttled);
+        } catch (UnsatisfiedLinkError ule) {
+            ule.printStackTrace();
+        }
+    }
+
     @Override
     public double getZoomLevel() {
         try {
@@ -766,9 +852,10 @@ abstract class CefBrowser_N extends CefNativeAdapter implements CefBrowser {
 
     private final native boolean N_CreateBrowser(CefClientHandler clientHandler, long windowHandle,
             String url, boolean osr, boolean transparent, Component canvas,
-            CefRequestContext context);
+            CefRequestContext context, int windowlessFrameRate, boolean externalBeginFrame);
     private final native boolean N_CreateDevTools(CefBrowser parent, CefClientHandler clientHandler,
-            long windowHandle, boolean osr, boolean transparent, Component canvas, Point inspectAt);
+            long windowHandle, boolean osr, boolean transparent, Component canvas, Point inspectAt,
+            int windowlessFrameRate, boolean externalBeginFrame);
     private final native long N_GetWindowHandle(long surfaceHandle);
     private final native boolean N_CanGoBack();
     private final native void N_GoBack();
@@ -799,6 +886,9 @@ abstract class CefBrowser_N extends CefNativeAdapter implements CefBrowser {
     private final native void N_SetFocus(boolean enable);
     private final native void N_SetWindowVisibility(boolean visible);
     private final native void N_SetRenderingBlocked(boolean blocked);
+    private final native void N_SetWindowlessFrameRate(int frameRate);
+    private final native void N_WasHidden(boolean hidden);
+    private final native void N_SendExternalBeginFrame();
     private final native double N_GetZoomLevel();
     private final native void N_SetZoomLevel(double zoomLevel);
     private final native void N_RunFileDialog(FileDialogMode mode, String title,
@@ -0,0 +1,147 @@
+// Copyright (c) 2020 The Chromium Embedded Framework Authors. All rights
+// reserved. Use of this source code is governed by a BSD-style license that
+// can be found in the LICENSE file.
+
+package org.cef.browser;
+
+import java.awt.Rectangle;
+
+/**
+ * Merges the dirty rectangles of a paint event into fewer, larger rectangles
+ * before they are uploaded. Two rectangles are merged if the pixels their
+ * bounding box covers in addition to the rectangles themselves do not exceed a
+ * given fraction of the bounding box. If more rectangles than a given limit
+ * remain, the whole frame is reported as dirty instead.
+ *
+ * This class can be used by custom CefRenderHandler implementations. Instances
+ * are not thread safe; use one instance per browser.
+ */
+public class CefDirtyRectCoalescer {
+    private final double maxWasteRatio_;
+    private final int maxRectCount_;
+
+    // Working storage for the rectangle edges, reused between calls.
+    private int[] left_ = new int[16];
+    private int[] top_ = new int[16];
+    private int[] right_ = new int[16];
+    private int[] bottom_ = new int[16];
+
+    /**
+     * Create a new coalescer.
+     * @param maxWasteRatio Fraction (0.0 to 1.0) of the merged rectangle which
+     *         may consist of pixels that were not dirty.
+     * @param maxRectCount Number of rectangles above which the whole frame is
+     *         reported as dirty.
+     */
+    public CefDirtyRectCoalescer(double maxWasteRatio, int maxRectCount) {
+        if (maxWasteRatio < 0.0 || maxWasteRatio > 1.0)
+            throw new IllegalArgumentException("maxWasteRatio must be between 0.0 and 1.0");
+        if (maxRectCount < 1) throw new IllegalArgumentException("maxRectCount must be positive");
+        maxWasteRatio_ = maxWasteRatio;
+        maxRectCount_ = maxRectCount;
+    }
+
+    public double getMaxWasteRatio() {
+        return maxWasteRatio_;
+    }
+
+    public int getMaxRectCount() {
+        return maxRectCount_;
+    }
+
+    /**
+     * Coalesce the dirty rectangles of a paint event. Empty rectangles are
+     * removed and all rectangles are clipped to the frame.
+     * @param dirtyRects The dirty rectangles as passed to CefRenderHandler.onPaint.
+     *         The Rectangle objects may be modified and reused in the result.
+     * @param width Width of the frame.
+     * @param height Height of the frame.
+     * @return The coalesced dirty rectangles. This is |dirtyRects| itself if
+     *         nothing had to be changed.
+     */
+    public Rectangle[] coalesce(Rectangle[] dirtyRects, int width, int height) {
+        if (dirtyRects.length > maxRectCount_) return fullFrame(dirtyRects, width, height);
+
+        ensureCapacity(dirtyRects.length);
+        int count = 0;
+        boolean changed = false;
+        for (Rectangle rect : dirtyRects) {
+            int l = Math.max(rect.x, 0);
+            int t = Math.max(rect.y, 0);
+            int r = Math.min(rect.x + rect.width, width);
+            int b = Math.min(rect.y + rect.height, height);
+            if (r <= l || b <= t) {
+                changed = true;
+                continue;
+            }
+            if (l != rect.x || t != rect.y || r != rect.x + rect.width
+                    || b != rect.y + rect.height) {
+                changed = true;
+            }
+            left_[count] = l;
+            top_[count] = t;
+            right_[count] = r;
+            bottom_[count] = b;
+            count++;
+        }
+
+        boolean merged;
+        do {
+            merged = false;
+            for (int i = 0; i < count && !merged; ++i) {
+                for (int j = i + 1; j < count; ++j) {
+                    if (!shouldMerge(i, j)) continue;
+                    left_[i] = Math.min(left_[i], left_[j]);
+                    top_[i] = Math.min(top_[i], top_[j]);
+                    right_[i] = Math.max(right_[i], right_[j]);
+                    bottom_[i] = Math.max(bottom_[i], bottom_[j]);
+                    count--;
+                    left_[j] = left_[count];
+                    top_[j] = top_[count];
+                    right_[j] = right_[count];
+                    bottom_[j] = bottom_[count];
+                    merged = true;
+                    changed = true;
+                    break;
+                }
+            }
+        } while (merged);
+
+        if (!changed) return dirtyRects;
+
+        Rectangle[] result = new Rectangle[count];
+        for (int i = 0; i < count; ++i) {
+            result[i] = dirtyRects[i];
+            result[i].setBounds(left_[i], top_[i], right_[i] - left_[i], bottom_[i] - top_[i]);
+        }
+        return result;
+    }
+
+    private boolean shouldMerge(int i, int j) {
+        long areaI = (long) (right_[i] - left_[i]) * (bottom_[i] - top_[i]);
+        long areaJ = (long) (right_[j] - left_[j]) * (bottom_[j] - top_[j]);
+
+        long overlapW = Math.min(right_[i], right_[j]) - Math.max(left_[i], left_[j]);
+        long overlapH = Math.min(bottom_[i], bottom_[j]) - Math.max(top_[i], top_[j]);
+        long overlap = (overlapW > 0 && overlapH > 0) ? overlapW * overlapH : 0;
+
+        long unionArea = (long) (Math.max(right_[i], right_[j]) - Math.min(left_[i], left_[j]))
+                * (Math.max(bottom_[i], bottom_[j]) - Math.min(top_[i], top_[j]));
+        long waste = unionArea - (areaI + areaJ - overlap);
+        return waste <= maxWasteRatio_ * unionArea;
+    }
+
+    private void ensureCapacity(int size) {
+        if (left_.length >= size) return;
+        left_ = new int[size];
+        top_ = new int[size];
+        right_ = new int[size];
+        bottom_ = new int[size];
+    }
+
+    private static Rectangle[] fullFrame(Rectangle[] dirtyRects, int width, int height) {
+        Rectangle rect = dirtyRects.length > 0 ? dirtyRects[0] : new Rectangle();
+        rect.setBounds(0, 0, width, height);
+        return new Rectangle[] {rect};
+    }
+}
@@ -0,0 +1,169 @@
+// Copyright (c) 2020 The Chromium Embedded Framework Authors. All rights
+// reserved. Use of this source code is governed by a BSD-style license that
+// can be found in the LICENSE file.
+
+package org.cef.browser;
+
+import com.jogamp.opengl.GLAutoDrawable;
+import com.jogamp.opengl.GLContext;
+import com.jogamp.opengl.GLEventListener;
+
+import org.cef.CefMessageLoopStatistics;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.swing.Timer;
+
+/**
+ * Coalesces display requests of an off-screen rendered browser. Any number of
+ * calls to requestDisplay() between two displays result in a single display()
+ * of the drawable on the AWT event dispatching thread, or on the render
+ * thread if one is used, and displays are never closer together than the
+ * configured refresh interval.
+ *
+ * GLAutoDrawable.display() always runs on the AWT event dispatching thread
+ * with JOGL's default threading, so the render thread doesn't call it. It makes
+ * the context current itself, calls the display method of the drawable's
+ * listener and swaps the buffers. The context lock serializes this with the
+ * displays AWT triggers on its own, e.g. on expose.
+ */
+class CefDisplayScheduler implements Runnable, ActionListener {
+    private final GLAutoDrawable drawable_;
+    private final long minIntervalNanos_;
+    private final AtomicBoolean pending_ = new AtomicBoolean(false);
+    private final Timer timer_;
+    private final Executor renderThread_;
+    private final GLEventListener listener_;
+    private final Runnable display_;
+    private CefPaintStatistics statistics_ = null;
+    // Time of the first request since the last display, and of the request served
+    // by the current display.
+    private volatile long requestNanos_ = 0;
+    private volatile long displayRequestNanos_ = 0;
+
+    // Only accessed on the display thread.
+    private long lastDisplayNanos_ = 0;
+
+    /**
+     * @param drawable The drawable to display.
+     * @param maxRate The maximum number of displays per second, or 0 for no limit.
+     */
+    CefDisplayScheduler(GLAutoDrawable drawable, int maxRate) {
+        this(drawable, maxRate, null, null);
+    }
+
+    /**
+     * @param renderThread The thread to display the drawable on, or null to
+     *         display it on the AWT event dispatching thread.
+     * @param listener The listener that renders the drawable on the render
+     *         thread. Only used with |renderThread|.
+     */
+    CefDisplayScheduler(GLAutoDrawable drawable, int maxRate, Executor renderThread,
+            GLEventListener listener) {
+        drawable_ = drawable;
+        renderThread_ = renderThread;
+        listener_ = listener;
+        display_ = new Runnable() {
+            @Override
+            public void run() {
+                if (statistics_ == null) {
+                    display();
+                    return;
+                }
+                long start = System.nanoTime();
+                display();
+                statistics_.recordDisplay(
+                        start - displayRequestNanos_, System.nanoTime() - start);
+            }
+        };
+        minIntervalNanos_ = maxRate > 0 ? TimeUnit.SECONDS.toNanos(1) / maxRate : 0;
+        timer_ = new Timer(0, this);
+        timer_.setRepeats(false);
+    }
+
+    /**
+     * Record display latencies and coalesced requests in |statistics|.
+     */
+    void setStatistics(CefPaintStatistics statistics) {
+        statistics_ = statistics;
+    }
+
+    /**
+     * Request a display of the drawable. May be called on any thread.
+     */
+    void requestDisplay() {
+        // Only the first request since the last display posts an event. The others
+        // will be served by that display.
+        if (pending_.compareAndSet(false, true)) {
+            if (statistics_ != null) requestNanos_ = System.nanoTime();
+            if (renderThread_ != null) {
+                renderThread_.execute(this);
+            } else {
+                CefMessageLoopStatistics.invokeLater("CefDisplayScheduler", this);
+            }
+        } else if (statistics_ != null) {
+            statistics_.recordCoalescedDisplay();
+        }
+    }
+
+    /**
+     * Stop any pending display.
+     */
+    void dispose() {
+        timer_.stop();
+    }
+
+    @Override
+    public void run() {
+        long now = System.nanoTime();
+        long wait = lastDisplayNanos_ + minIntervalNanos_ - now;
+        if (lastDisplayNanos_ != 0 && wait > 0) {
+            // Too early, display when the refresh interval has elapsed.
+            long waitMs = (wait + TimeUnit.MILLISECONDS.toNanos(1) - 1)
+                    / TimeUnit.MILLISECONDS.toNanos(1);
+            timer_.setInitialDelay((int) waitMs);
+            timer_.restart();
+            return;
+        }
+
+        // Reset before displaying so that paints arriving during display() schedule
+        // another one.
+        displayRequestNanos_ = requestNanos_;
+        pending_.set(false);
+        lastDisplayNanos_ = now;
+        display_.run();
+    }
+
+    @Override
+    public void actionPerformed(ActionEvent e) {
+        // The timer fires on the AWT event dispatching thread.
+        if (renderThread_ != null) {
+            renderThread_.execute(this);
+        } else {
+            run();
+        }
+    }
+
+    private void display() {
+        if (renderThread_ == null) {
+            drawable_.display();
+            return;
+        }
+
+        // Until the canvas created and initialized its context on its first display,
+        // the paints wait for that display.
+        GLContext context = drawable_.getContext();
+        if (context == null || !context.isCreated() || !drawable_.isRealized()) return;
+        if (context.makeCurrent() == GLContext.CONTEXT_NOT_CURRENT) return;
+        try {
+            listener_.display(drawable_);
+            if (drawable_.getAutoSwapBufferMode()) context.getGLDrawable().swapBuffers();
+        } finally {
+            context.release();
+        }
+    }
+}
@@ -19,13 +19,13 @@ import java.io.File;
 import java.util.List;
 
 class CefDropTargetListenerOsr implements DropTargetListener {
-    private CefBrowserOsr browser_;
+    private CefBrowser_N browser_;
     private CefDragData dragData_ = null;
     private int dragOperations_ = CefDragData.DragOperations.DRAG_OPERATION_COPY;
     private int dragModifiers_ = EventFlags.EVENTFLAG_NONE;
     private int acceptOperations_ = DnDConstants.ACTION_COPY;
 
-    CefDropTargetListenerOsr(CefBrowserOsr browser) {
+    CefDropTargetListenerOsr(CefBrowser_N browser) {
         browser_ = browser;
     }
 
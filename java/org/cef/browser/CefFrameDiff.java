@@ -0,0 +1,338 @@
+// Copyright (c) 2020 The Chromium Embedded Framework Authors. All rights
+// reserved. Use of this source code is governed by a BSD-style license that
+// can be found in the LICENSE file.
+
+package org.cef.browser;
+
+import java.awt.Rectangle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tracks which parts of an off-screen rendered browser changed since a
+ * checkpoint, using the dirty rectangles of the frames written to its
+ * CefFrameRing. The view is divided into square tiles. hasChanged() cheaply
+ * tells whether any tile was repainted; checkpoint() returns the pixels of the
+ * repainted tiles and starts tracking anew.
+ *
+ * With tile hashing enabled, checkpoint() compares a hash of every repainted
+ * tile with its hash at the previous checkpoint and drops tiles whose content
+ * did not actually change. If frames were overwritten in the ring before they
+ * were tracked, or the view was resized, all tiles count as repainted.
+ */
+public class CefFrameDiff {
+    /**
+     * A changed tile. Tiles at the right and bottom edges of the view may be
+     * smaller than the tile size.
+     */
+    public static final class Tile {
+        private final int x_;
+        private final int y_;
+        private final int width_;
+        private final int height_;
+        private final ByteBuffer buffer_;
+        private final long hash_;
+
+        private Tile(int x, int y, int width, int height, ByteBuffer buffer, long hash) {
+            x_ = x;
+            y_ = y;
+            width_ = width;
+            height_ = height;
+            buffer_ = buffer;
+            hash_ = hash;
+        }
+
+        public int getX() {
+            return x_;
+        }
+
+        public int getY() {
+            return y_;
+        }
+
+        public int getWidth() {
+            return width_;
+        }
+
+        public int getHeight() {
+            return height_;
+        }
+
+        /**
+         * Returns the premultiplied BGRA pixels of the tile, ordered top to
+         * bottom with a stride of getWidth() * 4 bytes.
+         */
+        public ByteBuffer getBuffer() {
+            return buffer_.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        /**
+         * Returns the hash of the tile pixels, or 0 if tile hashing is disabled.
+         */
+        public long getHash() {
+            return hash_;
+        }
+    }
+
+    /**
+     * The tiles that changed between two checkpoints.
+     */
+    public static final class Changes {
+        private final long sequence_;
+        private final int width_;
+        private final int height_;
+        private final List<Tile> tiles_;
+
+        private Changes(long sequence, int width, int height, List<Tile> tiles) {
+            sequence_ = sequence;
+            width_ = width;
+            height_ = height;
+            tiles_ = Collections.unmodifiableList(tiles);
+        }
+
+        /**
+         * Returns the sequence number of the frame the tiles were taken from.
+         */
+        public long getSequence() {
+            return sequence_;
+        }
+
+        public int getWidth() {
+            return width_;
+        }
+
+        public int getHeight() {
+            return height_;
+        }
+
+        public List<Tile> getTiles() {
+            return tiles_;
+        }
+    }
+
+    private final CefFrameRing ring_;
+    private final int tileSize_;
+    private final boolean hashTiles_;
+
+    // The tracking state is guarded by |trackLock_|, which the frame listener
+    // takes on the paint thread. It is only held briefly, never while pixels are
+    // hashed or copied.
+    private final Object trackLock_ = new Object();
+    private long sequence_ = 0;
+    private int width_ = 0;
+    private int height_ = 0;
+    private int columns_ = 0;
+    private int rows_ = 0;
+    private final BitSet dirty_ = new BitSet();
+
+    // The checkpoint state is guarded by the CefFrameDiff monitor. Hashes of the
+    // tiles at the last checkpoint, valid where |hashed_| is set.
+    private int hashWidth_ = 0;
+    private int hashHeight_ = 0;
+    private long[] hashes_ = new long[0];
+    private final BitSet hashed_ = new BitSet();
+
+    private final Runnable frameListener_ = new Runnable() {
+        @Override
+        public void run() {
+            synchronized (trackLock_) {
+                track();
+            }
+        }
+    };
+
+    /**
+     * Start tracking the frames written to a ring, e.g. CefBrowser.getFrameRing().
+     * @param ring The ring to track.
+     * @param tileSize The width and height of a tile in pixels.
+     * @param hashTiles True to drop tiles whose content did not change.
+     */
+    public CefFrameDiff(CefFrameRing ring, int tileSize, boolean hashTiles) {
+        if (tileSize < 1) throw new IllegalArgumentException("tileSize must be positive");
+        ring_ = ring;
+        tileSize_ = tileSize;
+        hashTiles_ = hashTiles;
+        ring_.addFrameListener(frameListener_);
+        frameListener_.run();
+    }
+
+    /**
+     * Stop tracking the ring.
+     */
+    public void close() {
+        ring_.removeFrameListener(frameListener_);
+    }
+
+    /**
+     * Returns true if any tile was repainted since the last checkpoint. Without
+     * tile hashing every repaint counts, even if it didn't change any pixels.
+     */
+    public boolean hasChanged() {
+        synchronized (trackLock_) {
+            track();
+            return !dirty_.isEmpty();
+        }
+    }
+
+    /**
+     * Returns the bounds of all tiles repainted since the last checkpoint, or an
+     * empty rectangle.
+     */
+    public Rectangle getDirtyBounds() {
+        synchronized (trackLock_) {
+            track();
+            Rectangle bounds = new Rectangle();
+            for (int i = dirty_.nextSetBit(0); i >= 0; i = dirty_.nextSetBit(i + 1)) {
+                Rectangle tile = getTileBounds(i, width_, height_);
+                bounds = bounds.isEmpty() ? tile : bounds.union(tile);
+            }
+            return bounds;
+        }
+    }
+
+    /**
+     * Return the tiles that changed since the last checkpoint and start a new
+     * one. The first checkpoint returns all tiles.
+     * @return The changes, or null if no frame was written yet.
+     */
+    public synchronized Changes checkpoint() throws InterruptedException {
+        // Only claim the frame and take the dirty tiles while tracking is locked.
+        CefFrameRing.Frame frame = null;
+        final BitSet dirty;
+        final long sequence;
+        final int width;
+        final int height;
+        synchronized (trackLock_) {
+            while (true) {
+                track();
+                if (sequence_ == 0) return null;
+                // The pixels must be those of the last tracked frame.
+                frame = ring_.claim(sequence_ - 1, 0, TimeUnit.MILLISECONDS);
+                if (frame == null) return null;
+                if (frame.getSequence() == sequence_) break;
+                // Overwritten in the meantime, track the newer frames first.
+                ring_.release(frame);
+            }
+            dirty = (BitSet) dirty_.clone();
+            dirty_.clear();
+            sequence = sequence_;
+            width = width_;
+            height = height_;
+        }
+
+        try {
+            if (width != hashWidth_ || height != hashHeight_) {
+                // The view was resized, all tiles are dirty.
+                hashWidth_ = width;
+                hashHeight_ = height;
+                hashes_ = new long[((width + tileSize_ - 1) / tileSize_)
+                        * ((height + tileSize_ - 1) / tileSize_)];
+                hashed_.clear();
+            }
+            IntBuffer src = frame.getBuffer().asIntBuffer();
+            List<Tile> tiles = new ArrayList<Tile>();
+            for (int i = dirty.nextSetBit(0); i >= 0; i = dirty.nextSetBit(i + 1)) {
+                Rectangle bounds = getTileBounds(i, width, height);
+                long hash = 0;
+                if (hashTiles_) {
+                    hash = hash(src, width, bounds);
+                    if (hashed_.get(i) && hashes_[i] == hash) continue;
+                    hashes_[i] = hash;
+                    hashed_.set(i);
+                }
+                tiles.add(new Tile(bounds.x, bounds.y, bounds.width, bounds.height,
+                        copy(src, width, bounds), hash));
+            }
+            return new Changes(sequence, width, height, tiles);
+        } finally {
+            ring_.release(frame);
+        }
+    }
+
+    /**
+     * Mark the tiles repainted by all frames written since the last call.
+     */
+    private void track() {
+        try {
+            while (true) {
+                CefFrameRing.Frame frame = ring_.claim(sequence_, 0, TimeUnit.MILLISECONDS);
+                if (frame == null) break;
+                try {
+                    if (frame.getWidth() != width_ || frame.getHeight() != height_) {
+                        resize(frame.getWidth(), frame.getHeight());
+                    } else if (frame.getSequence() != sequence_ + 1) {
+                        // The changes of overwritten frames are unknown.
+                        dirty_.set(0, columns_ * rows_);
+                    } else {
+                        for (Rectangle rect : frame.getDirtyRects()) markDirty(rect);
+                    }
+                    sequence_ = frame.getSequence();
+                } finally {
+                    ring_.release(frame);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void resize(int width, int height) {
+        width_ = width;
+        height_ = height;
+        columns_ = (width + tileSize_ - 1) / tileSize_;
+        rows_ = (height + tileSize_ - 1) / tileSize_;
+        dirty_.clear();
+        dirty_.set(0, columns_ * rows_);
+    }
+
+    private void markDirty(Rectangle rect) {
+        Rectangle clipped = rect.intersection(new Rectangle(0, 0, width_, height_));
+        if (clipped.isEmpty()) return;
+        int left = clipped.x / tileSize_;
+        int right = (clipped.x + clipped.width - 1) / tileSize_;
+        int top = clipped.y / tileSize_;
+        int bottom = (clipped.y + clipped.height - 1) / tileSize_;
+        for (int row = top; row <= bottom; ++row) {
+            dirty_.set(row * columns_ + left, row * columns_ + right + 1);
+        }
+    }
+
+    private Rectangle getTileBounds(int index, int width, int height) {
+        int columns = (width + tileSize_ - 1) / tileSize_;
+        int x = (index % columns) * tileSize_;
+        int y = (index / columns) * tileSize_;
+        return new Rectangle(
+                x, y, Math.min(tileSize_, width - x), Math.min(tileSize_, height - y));
+    }
+
+    private static ByteBuffer copy(IntBuffer src, int width, Rectangle bounds) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bounds.width * bounds.height * 4)
+                                    .order(ByteOrder.LITTLE_ENDIAN);
+        IntBuffer dst = buffer.asIntBuffer();
+        for (int y = bounds.y; y < bounds.y + bounds.height; ++y) {
+            IntBuffer row = src.duplicate();
+            row.limit(y * width + bounds.x + bounds.width).position(y * width + bounds.x);
+            dst.put(row);
+        }
+        return buffer;
+    }
+
+    // 64-bit FNV-1a over the pixels of |bounds|.
+    private static long hash(IntBuffer src, int width, Rectangle bounds) {
+        long hash = 0xcbf29ce484222325L;
+        for (int y = bounds.y; y < bounds.y + bounds.height; ++y) {
+            int offset = y * width;
+            for (int x = bounds.x; x < bounds.x + bounds.width; ++x) {
+                hash ^= src.get(offset + x);
+                hash *= 0x100000001b3L;
+            }
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,127 @@
+// Copyright (c) 2020 The Chromium Embedded Framework Authors. All rights
+// reserved. Use of this source code is governed by a BSD-style license that
+// can be found in the LICENSE file.
+
+package org.cef.browser;
+
+import java.awt.Component;
+import java.awt.Container;
+import java.awt.Frame;
+import java.awt.Rectangle;
+import java.awt.Window;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.event.HierarchyBoundsListener;
+import java.awt.event.HierarchyEvent;
+import java.awt.event.HierarchyListener;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+
+import javax.swing.SwingUtilities;
+
+/**
+ * Throttles an off-screen rendered browser while its UI component cannot be
+ * seen: while it is not showing, while its window is minimized, or while it is
+ * scrolled or clipped out of view completely. Monitoring only starts once the
+ * component was showing, so browsers that are never displayed (e.g. headless
+ * browsers) are never throttled. All methods are called on the AWT event
+ * dispatching thread.
+ */
+class CefFrameRatePolicy extends WindowAdapter implements HierarchyListener,
+                                                          HierarchyBoundsListener {
+    private final CefBrowser_N browser_;
+    private final Component component_;
+    private final int frameRate_;
+    private final boolean hide_;
+    private Window window_ = null;
+    private boolean active_ = false;
+
+    /**
+     * @param browser The browser to throttle.
+     * @param component The UI component of the browser.
+     * @param frameRate The frame rate to use while the browser is not visible.
+     * @param hide True to also stop painting while the browser is not visible.
+     */
+    CefFrameRatePolicy(CefBrowser_N browser, Component component, int frameRate, boolean hide) {
+        browser_ = browser;
+        component_ = component;
+        frameRate_ = Math.max(1, Math.min(frameRate, 60));
+        hide_ = hide;
+        component_.addHierarchyListener(this);
+        component_.addHierarchyBoundsListener(this);
+        component_.addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentResized(ComponentEvent e) {
+                update();
+            }
+
+            @Override
+            public void componentMoved(ComponentEvent e) {
+                update();
+            }
+        });
+    }
+
+    @Override
+    public void hierarchyChanged(HierarchyEvent e) {
+        if ((e.getChangeFlags() & (HierarchyEvent.PARENT_CHANGED
+                                          | HierarchyEvent.DISPLAYABILITY_CHANGED))
+                != 0) {
+            Window window = SwingUtilities.getWindowAncestor(component_);
+            if (window != window_) {
+                if (window_ != null) window_.removeWindowListener(this);
+                window_ = window;
+                if (window_ != null) window_.addWindowListener(this);
+            }
+        }
+        update();
+    }
+
+    @Override
+    public void ancestorMoved(HierarchyEvent e) {
+        update();
+    }
+
+    @Override
+    public void ancestorResized(HierarchyEvent e) {
+        update();
+    }
+
+    @Override
+    public void windowIconified(WindowEvent e) {
+        update();
+    }
+
+    @Override
+    public void windowDeiconified(WindowEvent e) {
+        update();
+    }
+
+    private void update() {
+        boolean showing = component_.isShowing();
+        if (showing) active_ = true;
+        if (!active_) return;
+
+        boolean iconified = window_ instanceof Frame
+                && (((Frame) window_).getExtendedState() & Frame.ICONIFIED) != 0;
+        boolean visible = showing && !iconified && !getVisibleRect().isEmpty();
+        browser_.setThrottled(!visible, frameRate_, hide_);
+    }
+
+    /**
+     * Returns the part of the component that is not clipped by its ancestors, like
+     * JComponent.getVisibleRect() does for Swing components.
+     */
+    private Rectangle getVisibleRect() {
+        Rectangle visible = new Rectangle(0, 0, component_.getWidth(), component_.getHeight());
+        Component child = component_;
+        for (Container parent = child.getParent(); parent != null && !(child instanceof Window);
+                child = parent, parent = parent.getParent()) {
+            visible.translate(child.getX(), child.getY());
+            visible = visible.intersection(
+                    new Rectangle(0, 0, parent.getWidth(), parent.getHeight()));
+            if (visible.isEmpty()) break;
+        }
+        return visible;
+    }
+}
@@ -0,0 +1,388 @@
+// Copyright (c) 2020 The Chromium Embedded Framework Authors. All rights
+// reserved. Use of this source code is governed by a BSD-style license that
+// can be found in the LICENSE file.
+
+package org.cef.browser;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+
+/**
+ * Records the frames of a CefFrameRing to a file at a constant frame rate.
+ * The ring is sampled once per frame interval. If nothing was painted since
+ * the previous sample the previously encoded frame is written again instead of
+ * encoding a new one. Frames are encoded on the common fork join pool and
+ * written in order. If encoding falls behind, samples are dropped and the
+ * previous frame is repeated in their place.
+ *
+ * The size of the recording is the size of the first recorded frame. Frames of
+ * a different size are cropped or padded with black. The recorder only uses
+ * Java2D and ImageIO and can be used in headless environments, e.g. with a
+ * browser created with CefBrowserSettings.windowless_software_rendering.
+ */
+public class CefFrameRecorder {
+    /**
+     * Output formats.
+     */
+    public enum Format {
+        /**
+         * A single file of premultiplied BGRA frames without any header.
+         */
+        RAW_BGRA,
+        /**
+         * A directory with one PNG file per frame, named frame_000000.png etc.
+         * Alpha is not preserved.
+         */
+        PNG_SEQUENCE,
+        /**
+         * An AVI file with a Motion JPEG video stream.
+         */
+        MJPEG_AVI
+    }
+
+    private final CefFrameRing ring_;
+    private final Path path_;
+    private final Format format_;
+    private final int fps_;
+    private volatile float jpegQuality_ = 0.8f;
+    private final int maxPendingFrames_;
+
+    private ScheduledExecutorService sampler_ = null;
+    private FileChannel channel_ = null;
+    private CefAviWriter aviWriter_ = null;
+    private int width_ = 0;
+    private int height_ = 0;
+
+    // Only accessed on the sampler thread.
+    private long lastSequence_ = 0;
+    private CompletableFuture<byte[]> lastFrame_ = null;
+    private CompletableFuture<Void> lastWrite_ = CompletableFuture.completedFuture(null);
+
+    // Only accessed by the write chain, which runs one write at a time.
+    private int framesWritten_ = 0;
+
+    private final AtomicInteger pendingFrames_ = new AtomicInteger(0);
+    private final AtomicLong recordedFrames_ = new AtomicLong(0);
+    private final AtomicLong encodedFrames_ = new AtomicLong(0);
+    private final AtomicLong duplicateFrames_ = new AtomicLong(0);
+    private final AtomicLong droppedFrames_ = new AtomicLong(0);
+    private final AtomicLong encodeNanos_ = new AtomicLong(0);
+    private final AtomicLong maxEncodeNanos_ = new AtomicLong(0);
+
+    /**
+     * Create a new recorder.
+     * @param ring The ring to record, see CefBrowser.getFrameRing().
+     * @param path The file or, for PNG_SEQUENCE, the directory to write to.
+     * @param format The output format.
+     * @param fps The number of frames per second.
+     */
+    public CefFrameRecorder(CefFrameRing ring, Path path, Format format, int fps) {
+        if (ring == null) throw new IllegalArgumentException("No frame ring");
+        if (fps < 1) throw new IllegalArgumentException("fps must be positive");
+        ring_ = ring;
+        path_ = path;
+        format_ = format;
+        fps_ = fps;
+        // Leave at least one frame of the ring to the browser.
+        maxPendingFrames_ = Math.max(1, ring.getSize() - 1);
+    }
+
+    /**
+     * Set the quality of MJPEG_AVI frames, from 0.0 to 1.0. Default is 0.8.
+     */
+    public void setJpegQuality(float quality) {
+        if (quality < 0.0f || quality > 1.0f)
+            throw new IllegalArgumentException("quality must be between 0.0 and 1.0");
+        jpegQuality_ = quality;
+    }
+
+    /**
+     * Start recording. Recording starts with the next frame that is painted.
+     */
+    public synchronized void start() throws IOException {
+        if (sampler_ != null) throw new IllegalStateException("Already started");
+        if (format_ == Format.PNG_SEQUENCE) {
+            Files.createDirectories(path_);
+        } else {
+            channel_ = FileChannel.open(path_, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        sampler_ = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "CefFrameRecorder");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        sampler_.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                sample();
+            }
+        }, 0, TimeUnit.SECONDS.toNanos(1) / fps_, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Stop recording, wait for all pending frames to be written and close the
+     * output. Throws the first error that occurred while writing, if any.
+     */
+    public void stop() throws IOException, InterruptedException {
+        ScheduledExecutorService sampler;
+        synchronized (this) {
+            if (sampler_ == null) return;
+            sampler = sampler_;
+        }
+        sampler.shutdown();
+        sampler.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+
+        synchronized (this) {
+            try {
+                lastWrite_.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+                throw e;
+            } finally {
+                try {
+                    if (aviWriter_ != null) aviWriter_.close();
+                } finally {
+                    if (channel_ != null) channel_.close();
+                    sampler_ = null;
+                    channel_ = null;
+                    aviWriter_ = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of frames in the recording so far, including repeated frames.
+     */
+    public long getRecordedFrameCount() {
+        return recordedFrames_.get();
+    }
+
+    /**
+     * Returns the number of frames that were encoded.
+     */
+    public long getEncodedFrameCount() {
+        return encodedFrames_.get();
+    }
+
+    /**
+     * Returns the number of samples for which nothing had changed, so the
+     * previous frame was repeated without encoding.
+     */
+    public long getDuplicateFrameCount() {
+        return duplicateFrames_.get();
+    }
+
+    /**
+     * Returns the number of samples that were dropped because encoding fell behind.
+     */
+    public long getDroppedFrameCount() {
+        return droppedFrames_.get();
+    }
+
+    /**
+     * Returns the average time from sampling a frame until it is encoded.
+     */
+    public long getAverageEncodeLatency(TimeUnit unit) {
+        long count = encodedFrames_.get();
+        return count > 0 ? unit.convert(encodeNanos_.get() / count, TimeUnit.NANOSECONDS) : 0;
+    }
+
+    /**
+     * Returns the longest time from sampling a frame until it is encoded.
+     */
+    public long getMaxEncodeLatency(TimeUnit unit) {
+        return unit.convert(maxEncodeNanos_.get(), TimeUnit.NANOSECONDS);
+    }
+
+    private void sample() {
+        CefFrameRing.Frame frame;
+        try {
+            frame = ring_.claimLatest(lastSequence_, 0, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            return;
+        }
+
+        CompletableFuture<byte[]> data;
+        if (frame == null || (lastFrame_ != null && !hasChanges(frame))) {
+            // Nothing was painted since the last sample.
+            if (frame != null) {
+                lastSequence_ = frame.getSequence();
+                ring_.release(frame);
+            }
+            if (lastFrame_ == null) return;
+            duplicateFrames_.incrementAndGet();
+            data = lastFrame_;
+        } else if (pendingFrames_.get() >= maxPendingFrames_) {
+            // The frame will be sampled again next time if nothing newer was painted.
+            ring_.release(frame);
+            if (lastFrame_ == null) return;
+            droppedFrames_.incrementAndGet();
+            data = lastFrame_;
+        } else {
+            if (lastFrame_ == null) initialize(frame.getWidth(), frame.getHeight());
+            lastSequence_ = frame.getSequence();
+            pendingFrames_.incrementAndGet();
+            data = CompletableFuture.supplyAsync(
+                    new EncodeTask(frame, System.nanoTime()), ForkJoinPool.commonPool());
+        }
+
+        lastFrame_ = data;
+        recordedFrames_.incrementAndGet();
+        lastWrite_ = lastWrite_.thenCombine(data, new BiFunction<Void, byte[], Void>() {
+            @Override
+            public Void apply(Void ignored, byte[] bytes) {
+                try {
+                    write(bytes);
+                } catch (IOException e) {
+                    throw new CompletionException(e);
+                }
+                return null;
+            }
+        });
+    }
+
+    private static boolean hasChanges(CefFrameRing.Frame frame) {
+        for (Rectangle rect : frame.getDirtyRects()) {
+            if (!rect.isEmpty()) return true;
+        }
+        return false;
+    }
+
+    private void initialize(int width, int height) {
+        width_ = width;
+        height_ = height;
+        if (format_ == Format.MJPEG_AVI) {
+            try {
+                aviWriter_ = new CefAviWriter(channel_, width, height, fps_);
+            } catch (IOException e) {
+                lastWrite_ = new CompletableFuture<Void>();
+                lastWrite_.completeExceptionally(e);
+            }
+        }
+    }
+
+    private class EncodeTask implements Supplier<byte[]> {
+        private final CefFrameRing.Frame frame_;
+        private final long sampleTime_;
+
+        EncodeTask(CefFrameRing.Frame frame, long sampleTime) {
+            frame_ = frame;
+            sampleTime_ = sampleTime;
+        }
+
+        @Override
+        public byte[] get() {
+            try {
+                byte[] bytes = encode(frame_);
+                long latency = System.nanoTime() - sampleTime_;
+                encodeNanos_.addAndGet(latency);
+                long max;
+                do {
+                    max = maxEncodeNanos_.get();
+                } while (latency > max && !maxEncodeNanos_.compareAndSet(max, latency));
+                encodedFrames_.incrementAndGet();
+                return bytes;
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            } finally {
+                ring_.release(frame_);
+                pendingFrames_.decrementAndGet();
+            }
+        }
+    }
+
+    private byte[] encode(CefFrameRing.Frame frame) throws IOException {
+        if (format_ == Format.RAW_BGRA) {
+            byte[] bytes = new byte[width_ * height_ * 4];
+            ByteBuffer src = frame.getBuffer();
+            final int width = Math.min(width_, frame.getWidth());
+            final int height = Math.min(height_, frame.getHeight());
+            for (int y = 0; y < height; ++y) {
+                src.position(y * frame.getWidth() * 4);
+                src.get(bytes, y * width_ * 4, width * 4);
+            }
+            return bytes;
+        }
+
+        // Read as little endian ints the BGRA pixels are ARGB, which TYPE_INT_RGB ignores
+        // the alpha of.
+        BufferedImage image = new BufferedImage(width_, height_, BufferedImage.TYPE_INT_RGB);
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        IntBuffer src = frame.getBuffer().asIntBuffer();
+        final int width = Math.min(width_, frame.getWidth());
+        final int height = Math.min(height_, frame.getHeight());
+        for (int y = 0; y < height; ++y) {
+            src.position(y * frame.getWidth());
+            src.get(pixels, y * width_, width);
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (format_ == Format.PNG_SEQUENCE) {
+            ImageIO.write(image, "png", out);
+            return out.toByteArray();
+        }
+
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("jpeg");
+        if (!writers.hasNext()) throw new IOException("No JPEG encoder available");
+        ImageWriter writer = writers.next();
+        try (ImageOutputStream stream = ImageIO.createImageOutputStream(out)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality_);
+            writer.setOutput(stream);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    private void write(byte[] bytes) throws IOException {
+        switch (format_) {
+            case RAW_BGRA:
+                ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                while (buffer.hasRemaining()) channel_.write(buffer);
+                break;
+            case PNG_SEQUENCE:
+                Files.write(path_.resolve(String.format("frame_%06d.png", framesWritten_)), bytes);
+                break;
+            case MJPEG_AVI:
+                aviWriter_.writeFrame(bytes);
+                break;
+        }
+        framesWritten_++;
+    }
+}
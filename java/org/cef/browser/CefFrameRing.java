@@ -0,0 +1,328 @@
+// Copyright (c) 2020 The Chromium Embedded Framework Authors. All rights
+// reserved. Use of this source code is governed by a BSD-style license that
+// can be found in the LICENSE file.
+
+package org.cef.browser;
+
+import java.awt.Rectangle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A fixed set of reusable direct buffers holding copies of the frames painted
+ * by an off-screen rendered browser. The buffer passed to
+ * CefRenderHandler.onPaint is only valid during the callback; the ring lets
+ * other threads process the frames without holding up the browser.
+ *
+ * Every frame in the ring is a complete copy of the view. When a buffer is
+ * reused only the regions that changed since it was last written are copied.
+ * Frames are numbered by increasing sequence numbers. Consumers claim frames
+ * with claim() or claimLatest() and must release() them when done. Claimed
+ * frames are never overwritten; if no other buffer is free the oldest unclaimed
+ * frame is overwritten, or the new frame is dropped if all frames are claimed.
+ *
+ * write() must only be called by one thread at a time. All other methods may be
+ * called on any thread. This class can also be fed by custom CefRenderHandler
+ * implementations.
+ */
+public class CefFrameRing {
+    // Number of stale rectangles per buffer above which the whole frame is copied.
+    private static final int MAX_STALE_RECTS = 32;
+
+    /**
+     * A frame in the ring. The pixel data is only valid while the frame is claimed.
+     */
+    public static final class Frame {
+        private ByteBuffer buffer_ = null;
+        private long sequence_ = 0;
+        private int width_ = 0;
+        private int height_ = 0;
+        private long timestamp_ = 0;
+        private Rectangle[] dirtyRects_ = new Rectangle[0];
+        private int claims_ = 0;
+        private boolean ready_ = false;
+        private boolean seen_ = false;
+
+        // Regions that changed since the buffer was last written.
+        private List<Rectangle> stale_ = new ArrayList<Rectangle>();
+        private boolean allStale_ = true;
+
+        private Frame() {}
+
+        /**
+         * Returns the sequence number of this frame. Sequence numbers start at 1
+         * and increase by one for every frame passed to write(), including dropped
+         * frames.
+         */
+        public long getSequence() {
+            return sequence_;
+        }
+
+        public int getWidth() {
+            return width_;
+        }
+
+        public int getHeight() {
+            return height_;
+        }
+
+        /**
+         * Returns the value of System.nanoTime() when the frame was painted.
+         */
+        public long getTimestamp() {
+            return timestamp_;
+        }
+
+        /**
+         * Returns the regions that changed with this frame. Regions that changed
+         * with dropped or overwritten frames are not included; compare the sequence
+         * numbers of two frames to detect this.
+         */
+        public Rectangle[] getDirtyRects() {
+            Rectangle[] rects = new Rectangle[dirtyRects_.length];
+            for (int i = 0; i < rects.length; ++i) rects[i] = new Rectangle(dirtyRects_[i]);
+            return rects;
+        }
+
+        /**
+         * Returns a read-only view of the premultiplied BGRA pixels of this frame,
+         * ordered top to bottom with a stride of getWidth() * 4 bytes.
+         */
+        public ByteBuffer getBuffer() {
+            ByteBuffer buffer = buffer_.asReadOnlyBuffer();
+            buffer.limit(width_ * height_ * 4).position(0);
+            return buffer.order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    private final Frame[] frames_;
+    private long sequence_ = 0;
+    private long dropped_ = 0;
+    private int width_ = 0;
+    private int height_ = 0;
+    private boolean closed_ = false;
+    private final List<Runnable> listeners_ = new CopyOnWriteArrayList<Runnable>();
+
+    /**
+     * Create a new ring.
+     * @param size The number of frames in the ring.
+     */
+    public CefFrameRing(int size) {
+        if (size < 1) throw new IllegalArgumentException("size must be positive");
+        frames_ = new Frame[size];
+        for (int i = 0; i < size; ++i) frames_[i] = new Frame();
+    }
+
+    /**
+     * Copy a painted frame into the ring.
+     * @param dirtyRects The regions that changed since the previous call.
+     * @param buffer Pixel buffer for the whole view, in premultiplied BGRA.
+     * @param width Width of the view.
+     * @param height Height of the view.
+     * @return The sequence number of the frame, or 0 if it was dropped.
+     */
+    public long write(Rectangle[] dirtyRects, ByteBuffer buffer, int width, int height) {
+        Frame frame;
+        List<Rectangle> stale;
+        boolean allStale;
+        long sequence;
+        synchronized (this) {
+            if (closed_) return 0;
+            sequence = ++sequence_;
+
+            boolean resized = width != width_ || height != height_;
+            width_ = width;
+            height_ = height;
+            for (Frame f : frames_) {
+                if (resized) {
+                    f.allStale_ = true;
+                } else if (!f.allStale_) {
+                    for (Rectangle rect : dirtyRects) f.stale_.add(rect);
+                    if (f.stale_.size() > MAX_STALE_RECTS) f.allStale_ = true;
+                }
+                if (f.allStale_) f.stale_.clear();
+            }
+
+            frame = nextFrame();
+            if (frame == null) {
+                // All frames are claimed. The changes are carried over to the next frame.
+                ++dropped_;
+                return 0;
+            }
+            if (frame.ready_ && !frame.seen_) ++dropped_;
+            frame.ready_ = false;
+
+            stale = frame.stale_;
+            allStale = frame.allStale_;
+            frame.stale_ = new ArrayList<Rectangle>();
+            frame.allStale_ = false;
+        }
+
+        final int size = width * height * 4;
+        if (frame.buffer_ == null || frame.buffer_.capacity() < size) {
+            frame.buffer_ = ByteBuffer.allocateDirect(size);
+            allStale = true;
+        }
+        ByteBuffer src = buffer.duplicate();
+        ByteBuffer dst = frame.buffer_.duplicate();
+        if (allStale) {
+            copyBytes(src, dst, 0, size);
+        } else {
+            Rectangle bounds = new Rectangle(0, 0, width, height);
+            for (Rectangle rect : stale) copyRect(src, dst, rect.intersection(bounds), width);
+        }
+
+        Rectangle[] rects = new Rectangle[dirtyRects.length];
+        for (int i = 0; i < rects.length; ++i) rects[i] = new Rectangle(dirtyRects[i]);
+
+        synchronized (this) {
+            frame.sequence_ = sequence;
+            frame.width_ = width;
+            frame.height_ = height;
+            frame.timestamp_ = System.nanoTime();
+            frame.dirtyRects_ = rects;
+            frame.seen_ = false;
+            frame.ready_ = true;
+            notifyAll();
+        }
+        for (Runnable listener : listeners_) listener.run();
+        return sequence;
+    }
+
+    /**
+     * Add a listener that is run on the writing thread after each frame is
+     * written. Listeners must return quickly and should hand off any processing
+     * to other threads.
+     */
+    public void addFrameListener(Runnable listener) {
+        listeners_.add(listener);
+    }
+
+    public void removeFrameListener(Runnable listener) {
+        listeners_.remove(listener);
+    }
+
+    /**
+     * Returns the frame that should be written next: a frame that was never
+     * written, or else the oldest frame that is not claimed.
+     */
+    private Frame nextFrame() {
+        Frame oldest = null;
+        for (Frame f : frames_) {
+            if (f.claims_ > 0) continue;
+            if (!f.ready_) return f;
+            if (oldest == null || f.sequence_ < oldest.sequence_) oldest = f;
+        }
+        return oldest;
+    }
+
+    private static void copyRect(ByteBuffer src, ByteBuffer dst, Rectangle rect, int width) {
+        if (rect.isEmpty()) return;
+        final int stride = width * 4;
+        if (rect.x == 0 && rect.width == width) {
+            // Full-width rows are contiguous in memory.
+            copyBytes(src, dst, rect.y * stride, rect.height * stride);
+        } else {
+            for (int y = rect.y; y < rect.y + rect.height; ++y) {
+                copyBytes(src, dst, y * stride + rect.x * 4, rect.width * 4);
+            }
+        }
+    }
+
+    private static void copyBytes(ByteBuffer src, ByteBuffer dst, int offset, int length) {
+        src.limit(offset + length).position(offset);
+        dst.position(offset);
+        dst.put(src);
+    }
+
+    /**
+     * Claim the oldest frame with a sequence number greater than |afterSequence|,
+     * waiting for it to be painted if necessary.
+     * @return The frame, or null if the timeout elapsed or the ring was closed.
+     */
+    public Frame claim(long afterSequence, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        return claim(afterSequence, timeout, unit, false);
+    }
+
+    /**
+     * Claim the newest frame if its sequence number is greater than
+     * |afterSequence|, waiting for it to be painted if necessary.
+     * @return The frame, or null if the timeout elapsed or the ring was closed.
+     */
+    public Frame claimLatest(long afterSequence, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        return claim(afterSequence, timeout, unit, true);
+    }
+
+    private synchronized Frame claim(long afterSequence, long timeout, TimeUnit unit,
+            boolean latest) throws InterruptedException {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (!closed_) {
+            Frame found = null;
+            for (Frame f : frames_) {
+                if (!f.ready_ || f.sequence_ <= afterSequence) continue;
+                if (found == null || (latest ? f.sequence_ > found.sequence_
+                                             : f.sequence_ < found.sequence_)) {
+                    found = f;
+                }
+            }
+            if (found != null) {
+                found.claims_++;
+                found.seen_ = true;
+                return found;
+            }
+            long wait = deadline - System.nanoTime();
+            if (wait <= 0) break;
+            TimeUnit.NANOSECONDS.timedWait(this, wait);
+        }
+        return null;
+    }
+
+    /**
+     * Release a frame returned by claim() or claimLatest().
+     */
+    public synchronized void release(Frame frame) {
+        if (frame.claims_ <= 0) throw new IllegalStateException("Frame is not claimed");
+        frame.claims_--;
+    }
+
+    /**
+     * Returns the number of frames in the ring.
+     */
+    public int getSize() {
+        return frames_.length;
+    }
+
+    /**
+     * Returns the sequence number of the last frame passed to write().
+     */
+    public synchronized long getSequence() {
+        return sequence_;
+    }
+
+    /**
+     * Returns the number of frames that were dropped or overwritten before any
+     * consumer claimed them.
+     */
+    public synchronized long getDroppedFrameCount() {
+        return dropped_;
+    }
+
+    /**
+     * Stop accepting frames and wake up all waiting consumers. Frames that are
+     * still claimed stay valid until they are released.
+     */
+    public synchronized void close() {
+        closed_ = true;
+        notifyAll();
+    }
+
+    public synchronized boolean isClosed() {
+        return closed_;
+    }
+}
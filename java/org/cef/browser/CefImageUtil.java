@@ -0,0 +1,138 @@
+// Copyright (c) 2020 The Chromium Embedded Framework Authors. All rights
+// reserved. Use of this source code is governed by a BSD-style license that
+// can be found in the LICENSE file.
+
+package org.cef.browser;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * Helpers for converting the BGRA pixel data used by CEF and by the OpenGL
+ * readback of CefRenderer. Read as little endian ints, BGRA pixels are ARGB
+ * ints, so all conversions are bulk copies of whole rows.
+ */
+final class CefImageUtil {
+    private CefImageUtil() {}
+
+    /**
+     * Returns an int view of a BGRA byte buffer in which every int is an ARGB pixel.
+     */
+    static IntBuffer asArgb(ByteBuffer bgra) {
+        return bgra.duplicate().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+    }
+
+    /**
+     * Create a new image from ARGB pixels.
+     * @param argb The pixels, starting at position 0.
+     * @param width Width of the pixel data.
+     * @param height Height of the pixel data.
+     * @param flipY True if the rows are ordered bottom to top.
+     * @param imageType One of the TYPE_INT_* image types.
+     */
+    static BufferedImage toImage(
+            IntBuffer argb, int width, int height, boolean flipY, int imageType) {
+        BufferedImage image = new BufferedImage(width, height, imageType);
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        if (!flipY) {
+            argb.position(0);
+            argb.get(pixels, 0, width * height);
+        } else {
+            for (int y = 0; y < height; ++y) {
+                argb.position((height - y - 1) * width);
+                argb.get(pixels, y * width, width);
+            }
+        }
+        return image;
+    }
+
+    /**
+     * Create a new image from a region of ARGB pixels ordered top to bottom. If
+     * the image is smaller than the region, every pixel is the average of the
+     * box of pixels that it covers.
+     * @param argb The pixels, starting at position 0.
+     * @param stride Number of pixels per row of the pixel data.
+     * @param region The region to copy.
+     * @param scale Scale factor in the range (0, 1].
+     * @param imageType One of the TYPE_INT_* image types.
+     */
+    static BufferedImage toImage(
+            IntBuffer argb, int stride, Rectangle region, double scale, int imageType) {
+        final int width = Math.max((int) Math.round(region.width * scale), 1);
+        final int height = Math.max((int) Math.round(region.height * scale), 1);
+        BufferedImage image = new BufferedImage(width, height, imageType);
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+
+        if (width >= region.width && height >= region.height) {
+            for (int y = 0; y < height; ++y) {
+                argb.position((region.y + y) * stride + region.x);
+                argb.get(pixels, y * width, width);
+            }
+            return image;
+        }
+
+        // First source column of every destination column, plus the end.
+        int[] columns = new int[width + 1];
+        for (int x = 0; x <= width; ++x) columns[x] = (int) ((long) x * region.width / width);
+
+        int[] row = new int[region.width];
+        long[] sums = new long[width * 4];
+        for (int y = 0; y < height; ++y) {
+            final int top = (int) ((long) y * region.height / height);
+            final int bottom = (int) ((long) (y + 1) * region.height / height);
+            Arrays.fill(sums, 0);
+            for (int srcY = top; srcY < bottom; ++srcY) {
+                argb.position((region.y + srcY) * stride + region.x);
+                argb.get(row);
+                for (int x = 0; x < width; ++x) {
+                    long a = 0, r = 0, g = 0, b = 0;
+                    for (int srcX = columns[x]; srcX < columns[x + 1]; ++srcX) {
+                        int pixel = row[srcX];
+                        a += pixel >>> 24;
+                        r += (pixel >> 16) & 0xff;
+                        g += (pixel >> 8) & 0xff;
+                        b += pixel & 0xff;
+                    }
+                    sums[x * 4] += a;
+                    sums[x * 4 + 1] += r;
+                    sums[x * 4 + 2] += g;
+                    sums[x * 4 + 3] += b;
+                }
+            }
+            for (int x = 0; x < width; ++x) {
+                long count = (long) (bottom - top) * (columns[x + 1] - columns[x]);
+                pixels[y * width + x] = (int) (sums[x * 4] / count) << 24
+                        | (int) (sums[x * 4 + 1] / count) << 16
+                        | (int) (sums[x * 4 + 2] / count) << 8 | (int) (sums[x * 4 + 3] / count);
+            }
+        }
+        return image;
+    }
+
+    /**
+     * Reverse the order of the rows of a BGRA buffer in place.
+     */
+    static void flipRows(ByteBuffer bgra, int width, int height) {
+        final int stride = width * 4;
+        byte[] top = new byte[stride];
+        byte[] bottom = new byte[stride];
+        for (int y = 0; y < height / 2; ++y) {
+            int topOffset = y * stride;
+            int bottomOffset = (height - y - 1) * stride;
+            bgra.position(topOffset);
+            bgra.get(top);
+            bgra.position(bottomOffset);
+            bgra.get(bottom);
+            bgra.position(topOffset);
+            bgra.put(bottom);
+            bgra.position(bottomOffset);
+            bgra.put(top);
+        }
+        bgra.position(0);
+    }
+}
@@ -0,0 +1,139 @@
+// Copyright (c) 2020 The Chromium Embedded Framework Authors. All rights
+// reserved. Use of this source code is governed by a BSD-style license that
+// can be found in the LICENSE file.
+
+package org.cef.browser;
+
+import com.jogamp.opengl.GL2;
+
+import java.awt.Rectangle;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Holds the paints of an off-screen rendered browser until the render thread
+ * uploads them. put() copies the dirty regions of a paint into a staging
+ * buffer on the browser thread; apply() passes everything painted since the
+ * previous call to the renderer in a single onPaint per paint element type.
+ */
+class CefPaintQueue {
+    // Number of queued dirty rectangles above which the whole frame is uploaded.
+    private static final int MAX_RECTS = 32;
+
+    private static final class Element {
+        private final boolean popup_;
+        private ByteBuffer buffer_ = null;
+        private int width_ = 0;
+        private int height_ = 0;
+        private final List<Rectangle> rects_ = new ArrayList<Rectangle>();
+        private Rectangle[] rectArray_ = new Rectangle[0];
+
+        private Element(boolean popup) {
+            popup_ = popup;
+        }
+    }
+
+    private final Element view_ = new Element(false);
+    private final Element popup_ = new Element(true);
+    // The popup rectangle to pass to the renderer with the next apply(), or null
+    // to clear it.
+    private Rectangle popupRect_ = null;
+    private boolean popupRectChanged_ = false;
+
+    /**
+     * Copy a paint into the staging buffer. Called on the browser thread.
+     */
+    synchronized void put(
+            boolean popup, Rectangle[] dirtyRects, ByteBuffer buffer, int width, int height) {
+        Element element = popup ? popup_ : view_;
+        final int size = width * height * 4;
+        final boolean resized = width != element.width_ || height != element.height_;
+        if (element.buffer_ == null || element.buffer_.capacity() < size) {
+            element.buffer_ = ByteBuffer.allocateDirect(size);
+        }
+        element.width_ = width;
+        element.height_ = height;
+
+        ByteBuffer src = buffer.duplicate();
+        ByteBuffer dst = element.buffer_.duplicate();
+        if (resized || element.rects_.size() + dirtyRects.length > MAX_RECTS) {
+            // Pending regions of the old size are superseded by the whole new frame.
+            element.rects_.clear();
+            element.rects_.add(new Rectangle(0, 0, width, height));
+            copyBytes(src, dst, 0, size);
+            return;
+        }
+        if (element.rects_.size() == 1 && element.rects_.get(0).width == width
+                && element.rects_.get(0).height == height) {
+            // The whole frame is pending already.
+            copyBytes(src, dst, 0, size);
+            return;
+        }
+        Rectangle bounds = new Rectangle(0, 0, width, height);
+        final int stride = width * 4;
+        for (Rectangle rect : dirtyRects) {
+            Rectangle clipped = rect.intersection(bounds);
+            if (clipped.isEmpty()) continue;
+            for (int y = clipped.y; y < clipped.y + clipped.height; ++y) {
+                copyBytes(src, dst, y * stride + clipped.x * 4, clipped.width * 4);
+            }
+            element.rects_.add(clipped);
+        }
+    }
+
+    private static void copyBytes(ByteBuffer src, ByteBuffer dst, int offset, int length) {
+        src.limit(offset + length).position(offset);
+        dst.position(offset);
+        dst.put(src);
+    }
+
+    /**
+     * Pass the queued paints to |renderer|. Called on the render thread with the
+     * GL context current.
+     * @return The number of bytes uploaded.
+     */
+    synchronized long apply(CefRenderer renderer, GL2 gl2) {
+        if (popupRectChanged_) {
+            // CEF sends the popup size before the paints of the popup.
+            if (popupRect_ != null) {
+                renderer.onPopupSize(popupRect_);
+            } else {
+                renderer.clearPopupRects();
+            }
+            popupRect_ = null;
+            popupRectChanged_ = false;
+        }
+        return apply(view_, renderer, gl2) + apply(popup_, renderer, gl2);
+    }
+
+    private static long apply(Element element, CefRenderer renderer, GL2 gl2) {
+        if (element.rects_.isEmpty()) return 0;
+        if (element.rectArray_.length != element.rects_.size()) {
+            element.rectArray_ = new Rectangle[element.rects_.size()];
+        }
+        element.rects_.toArray(element.rectArray_);
+        element.rects_.clear();
+        element.buffer_.clear();
+        return renderer.onPaint(gl2, element.popup_, element.rectArray_, element.buffer_,
+                element.width_, element.height_);
+    }
+
+    /**
+     * Queue a new popup rectangle. Called on the browser thread.
+     */
+    synchronized void setPopupSize(Rectangle rect) {
+        popupRect_ = new Rectangle(rect);
+        popupRectChanged_ = true;
+    }
+
+    /**
+     * Drop queued popup paints and clear the popup rectangle, e.g. when the popup
+     * is hidden.
+     */
+    synchronized void clearPopup() {
+        popup_.rects_.clear();
+        popupRect_ = null;
+        popupRectChanged_ = true;
+    }
+}
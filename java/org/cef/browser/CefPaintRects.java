@@ -0,0 +1,31 @@
+// Copyright (c) 2020 The Chromium Embedded Framework Authors. All rights
+// reserved. Use of this source code is governed by a BSD-style license that
+// can be found in the LICENSE file.
+
+package org.cef.browser;
+
+import java.awt.Rectangle;
+
+/**
+ * Unpacks the dirty regions passed to the allocation-free
+ * CefRenderHandler.onPaint into Rectangle objects that are reused between
+ * paints. The returned array is only valid until the next call to unpack().
+ */
+class CefPaintRects {
+    private Rectangle[] rects_ = new Rectangle[0];
+
+    Rectangle[] unpack(int[] packed, int count) {
+        if (rects_.length != count) {
+            Rectangle[] rects = new Rectangle[count];
+            for (int i = 0; i < count; ++i) {
+                rects[i] = i < rects_.length ? rects_[i] : new Rectangle();
+            }
+            rects_ = rects;
+        }
+        for (int i = 0; i < count; ++i) {
+            rects_[i].setBounds(
+                    packed[i * 4], packed[i * 4 + 1], packed[i * 4 + 2], packed[i * 4 + 3]);
+        }
+        return rects_;
+    }
+}
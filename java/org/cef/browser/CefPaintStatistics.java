@@ -0,0 +1,272 @@
+// Copyright (c) 2020 The Chromium Embedded Framework Authors. All rights
+// reserved. Use of this source code is governed by a BSD-style license that
+// can be found in the LICENSE file.
+
+package org.cef.browser;
+
+import java.awt.Rectangle;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.cef.misc.CefHistogram;
+
+/**
+ * Counters and histograms of the paints of an off-screen rendered browser.
+ * Only collected for browsers created with
+ * CefBrowserSettings.windowless_paint_statistics set; see
+ * CefBrowser.getPaintStatistics(). The statistics of each browser are also
+ * registered as an MBean named "org.cef:type=PaintStatistics,name=browser-N"
+ * while the browser is open.
+ *
+ * Paints are the onPaint callbacks of the browser. Uploads copy painted pixels
+ * to the renderer. Displays draw the renderer to the screen; display latency is
+ * the time between the first paint requesting a display and the start of that
+ * display. All methods may be called on any thread.
+ */
+public class CefPaintStatistics implements CefPaintStatisticsMBean {
+    private static final AtomicInteger nextId_ = new AtomicInteger(1);
+
+    private long paints_ = 0;
+    private long popupPaints_ = 0;
+    private long droppedPaints_ = 0;
+    private long dirtyRects_ = 0;
+    private long dirtyArea_ = 0;
+    private long coalescedRects_ = 0;
+    private long bytesUploaded_ = 0;
+    private long displays_ = 0;
+    private long coalescedDisplays_ = 0;
+
+    // Paints per second are counted in windows of one second.
+    private long windowStartNanos_ = 0;
+    private long windowPaints_ = 0;
+    private double paintsPerSecond_ = 0;
+
+    private final CefHistogram dirtyRectsPerPaint_ = new CefHistogram();
+    private final CefHistogram uploadLatency_ = new CefHistogram();
+    private final CefHistogram displayLatency_ = new CefHistogram();
+    private final CefHistogram displayDuration_ = new CefHistogram();
+
+    private ObjectName objectName_ = null;
+
+    CefPaintStatistics() {}
+
+    /**
+     * Register the MBean with the platform MBean server.
+     */
+    synchronized void register() {
+        try {
+            objectName_ = new ObjectName(
+                    "org.cef:type=PaintStatistics,name=browser-" + nextId_.getAndIncrement());
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName_);
+        } catch (JMException e) {
+            System.out.println("paint statistics can't be registered: " + e);
+            objectName_ = null;
+        }
+    }
+
+    synchronized void unregister() {
+        if (objectName_ == null) return;
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName_);
+        } catch (JMException e) {
+            // Already unregistered.
+        }
+        objectName_ = null;
+    }
+
+    synchronized void recordPaint(boolean popup, Rectangle[] dirtyRects) {
+        if (popup) {
+            popupPaints_++;
+        } else {
+            paints_++;
+        }
+        dirtyRects_ += dirtyRects.length;
+        for (Rectangle rect : dirtyRects) dirtyArea_ += (long) rect.width * rect.height;
+        dirtyRectsPerPaint_.record(dirtyRects.length);
+
+        long now = System.nanoTime();
+        if (windowStartNanos_ == 0) windowStartNanos_ = now;
+        long elapsed = now - windowStartNanos_;
+        if (elapsed >= TimeUnit.SECONDS.toNanos(1)) {
+            paintsPerSecond_ = windowPaints_ * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+            windowStartNanos_ = now;
+            windowPaints_ = 0;
+        }
+        windowPaints_++;
+    }
+
+    synchronized void recordDroppedPaint() {
+        droppedPaints_++;
+    }
+
+    synchronized void recordCoalescedRects(int before, int after) {
+        coalescedRects_ += before - after;
+    }
+
+    void recordUpload(long bytes, long nanos) {
+        synchronized (this) {
+            bytesUploaded_ += bytes;
+        }
+        uploadLatency_.record(TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    synchronized void recordCoalescedDisplay() {
+        coalescedDisplays_++;
+    }
+
+    void recordDisplay(long latencyNanos, long durationNanos) {
+        synchronized (this) {
+            displays_++;
+        }
+        displayLatency_.record(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+        displayDuration_.record(TimeUnit.NANOSECONDS.toMicros(durationNanos));
+    }
+
+    @Override
+    public synchronized long getPaintCount() {
+        return paints_;
+    }
+
+    @Override
+    public synchronized long getPopupPaintCount() {
+        return popupPaints_;
+    }
+
+    /**
+     * Returns the number of paints per second during the last completed window
+     * of at least one second, or 0 if there was no paint for two seconds.
+     */
+    @Override
+    public synchronized double getPaintsPerSecond() {
+        if (System.nanoTime() - windowStartNanos_ >= TimeUnit.SECONDS.toNanos(2)) return 0;
+        return paintsPerSecond_;
+    }
+
+    /**
+     * Returns the number of paints that were not uploaded because the renderer
+     * wasn't ready.
+     */
+    @Override
+    public synchronized long getDroppedPaintCount() {
+        return droppedPaints_;
+    }
+
+    @Override
+    public synchronized long getDirtyRectCount() {
+        return dirtyRects_;
+    }
+
+    /**
+     * Returns the total area of all dirty rectangles in pixels.
+     */
+    @Override
+    public synchronized long getDirtyArea() {
+        return dirtyArea_;
+    }
+
+    /**
+     * Returns the number of dirty rectangles removed by merging them.
+     */
+    @Override
+    public synchronized long getCoalescedRectCount() {
+        return coalescedRects_;
+    }
+
+    @Override
+    public synchronized long getBytesUploaded() {
+        return bytesUploaded_;
+    }
+
+    @Override
+    public double getMeanUploadLatency() {
+        return uploadLatency_.getMean();
+    }
+
+    @Override
+    public long getMaxUploadLatency() {
+        return uploadLatency_.getMax();
+    }
+
+    @Override
+    public synchronized long getDisplayCount() {
+        return displays_;
+    }
+
+    /**
+     * Returns the number of display requests that were served by an already
+     * pending display.
+     */
+    @Override
+    public synchronized long getCoalescedDisplayCount() {
+        return coalescedDisplays_;
+    }
+
+    @Override
+    public double getMeanDisplayLatency() {
+        return displayLatency_.getMean();
+    }
+
+    @Override
+    public long getMaxDisplayLatency() {
+        return displayLatency_.getMax();
+    }
+
+    @Override
+    public double getMeanDisplayDuration() {
+        return displayDuration_.getMean();
+    }
+
+    /**
+     * Returns the histogram of the number of dirty rectangles per paint.
+     */
+    public CefHistogram getDirtyRectsPerPaint() {
+        return dirtyRectsPerPaint_;
+    }
+
+    /**
+     * Returns the histogram of upload latencies in microseconds.
+     */
+    public CefHistogram getUploadLatency() {
+        return uploadLatency_;
+    }
+
+    /**
+     * Returns the histogram of display latencies in microseconds.
+     */
+    public CefHistogram getDisplayLatency() {
+        return displayLatency_;
+    }
+
+    /**
+     * Returns the histogram of display durations in microseconds.
+     */
+    public CefHistogram getDisplayDuration() {
+        return displayDuration_;
+    }
+
+    @Override
+    public void reset() {
+        synchronized (this) {
+            paints_ = 0;
+            popupPaints_ = 0;
+            droppedPaints_ = 0;
+            dirtyRects_ = 0;
+            dirtyArea_ = 0;
+            coalescedRects_ = 0;
+            bytesUploaded_ = 0;
+            displays_ = 0;
+            coalescedDisplays_ = 0;
+            windowStartNanos_ = 0;
+            windowPaints_ = 0;
+            paintsPerSecond_ = 0;
+        }
+        dirtyRectsPerPaint_.reset();
+        uploadLatency_.reset();
+        displayLatency_.reset();
+        displayDuration_.reset();
+    }
+}
@@ -0,0 +1,28 @@
+// Copyright (c) 2020 The Chromium Embedded Framework Authors. All rights
+// reserved. Use of this source code is governed by a BSD-style license that
+// can be found in the LICENSE file.
+
+package org.cef.browser;
+
+/**
+ * JMX management interface of CefPaintStatistics. Latencies are in
+ * microseconds.
+ */
+public interface CefPaintStatisticsMBean {
+    public long getPaintCount();
+    public long getPopupPaintCount();
+    public double getPaintsPerSecond();
+    public long getDroppedPaintCount();
+    public long getDirtyRectCount();
+    public long getDirtyArea();
+    public long getCoalescedRectCount();
+    public long getBytesUploaded();
+    public double getMeanUploadLatency();
+    public long getMaxUploadLatency();
+    public long getDisplayCount();
+    public long getCoalescedDisplayCount();
+    public double getMeanDisplayLatency();
+    public long getMaxDisplayLatency();
+    public double getMeanDisplayDuration();
+    public void reset();
+}
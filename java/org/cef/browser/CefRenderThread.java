@@ -0,0 +1,87 @@
+// Copyright (c) 2020 The Chromium Embedded Framework Authors. All rights
+// reserved. Use of this source code is governed by a BSD-style license that
+// can be found in the LICENSE file.
+
+package org.cef.browser;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * A thread that owns the OpenGL work of off-screen rendered browsers: texture
+ * uploads of queued paints and displays of their canvases. Tasks queued while
+ * the thread is busy are run back to back, so the uploads of several browsers
+ * sharing the thread are batched into one pass. Queuing a task that is already
+ * queued has no effect.
+ */
+class CefRenderThread implements Executor, Runnable {
+    private static CefRenderThread shared_ = null;
+
+    private final Thread thread_;
+    private final Set<Runnable> queue_ = new LinkedHashSet<Runnable>();
+    private boolean disposed_ = false;
+
+    CefRenderThread(String name) {
+        thread_ = new Thread(this, name);
+        thread_.setDaemon(true);
+        thread_.start();
+    }
+
+    /**
+     * Returns the thread shared by all browsers that share textures.
+     */
+    static synchronized CefRenderThread getShared() {
+        if (shared_ == null) shared_ = new CefRenderThread("CEF shared render thread");
+        return shared_;
+    }
+
+    /**
+     * Queue a task. May be called on any thread. Tasks queued after dispose() are
+     * ignored.
+     */
+    @Override
+    public synchronized void execute(Runnable task) {
+        if (disposed_) return;
+        if (queue_.add(task)) notifyAll();
+    }
+
+    /**
+     * Stop the thread once the queued tasks are done. Has no effect on the
+     * shared thread.
+     */
+    synchronized void dispose() {
+        if (this == shared_) return;
+        disposed_ = true;
+        notifyAll();
+    }
+
+    @Override
+    public void run() {
+        List<Runnable> tasks = new ArrayList<Runnable>();
+        while (true) {
+            synchronized (this) {
+                while (queue_.isEmpty() && !disposed_) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (queue_.isEmpty()) return;
+                tasks.addAll(queue_);
+                queue_.clear();
+            }
+            for (Runnable task : tasks) {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                }
+            }
+            tasks.clear();
+        }
+    }
+}
@@ -6,6 +6,7 @@ package org.cef.browser;
 
 import java.awt.Rectangle;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.FloatBuffer;
 
 import com.jogamp.opengl.GL2;
@@ -13,7 +14,29 @@ import com.jogamp.opengl.GL2;
 class CefRenderer {
     private boolean transparent_;
     private GL2 initialized_context_ = null;
-    private int[] texture_id_ = new int[1];
+    private CefTexturePool texture_pool_;
+    private boolean private_texture_pool_;
+    // The view is stored in a grid of equally sized textures, each covering
+    // tile_width_ x tile_height_ pixels of the view. Unless a tile size is set
+    // there is a single tile covering the whole view.
+    private int tile_size_;
+    private int max_texture_size_ = 0;
+    private CefTexturePool.Texture[] tiles_ = new CefTexturePool.Texture[0];
+    private int tile_columns_ = 0;
+    private int tile_width_ = 0;
+    private int tile_height_ = 0;
+    private ByteBuffer tile_read_buffer_ = null;
+    // Reused by render() so that drawing the tiles doesn't allocate.
+    private final Rectangle tile_bounds_ = new Rectangle();
+    private int[] read_framebuffer_id_ = new int[1];
+    private int[] popup_texture_id_ = new int[1];
+    private int popup_width_ = 0;
+    private int popup_height_ = 0;
+    // Size of the popup texture storage, larger than the popup if the context
+    // requires power-of-2 textures.
+    private int popup_texture_width_ = 0;
+    private int popup_texture_height_ = 0;
+    private boolean power_of_two_ = false;
     private int view_width_ = 0;
     private int view_height_ = 0;
     private float spin_x_ = 0f;
@@ -22,8 +45,78 @@ class CefRenderer {
     private Rectangle original_popup_rect_ = new Rectangle(0, 0, 0, 0);
     private boolean use_draw_pixels_ = false;
 
+    // Format of the pixels uploaded into textures. The shader path uploads the BGRA
+    // bytes unconverted and swizzles them when sampling.
+    private int pixel_format_ = GL2.GL_BGRA;
+    private int pixel_type_ = GL2.GL_UNSIGNED_INT_8_8_8_8_REV;
+
+    // Shader path. The vertex buffer holds the quads for the background, the view and
+    // the popup, 4 vertices of (x, y, tu, tv) each. |shader_vertices_| is refilled on
+    // every frame and uploaded with glBufferSubData.
+    private static final int SHADER_VERTEX_FLOATS = 4;
+    private static final int SHADER_QUAD_FLOATS = 4 * SHADER_VERTEX_FLOATS;
+    private static final String VERTEX_SHADER = "#version 120\n"
+            + "uniform mat4 u_matrix;\n"
+            + "attribute vec2 a_position;\n"
+            + "attribute vec2 a_texcoord;\n"
+            + "varying vec2 v_texcoord;\n"
+            + "void main() {\n"
+            + "    v_texcoord = a_texcoord;\n"
+            + "    gl_Position = u_matrix * vec4(a_position, 0.0, 1.0);\n"
+            + "}\n";
+    private static final String FRAGMENT_SHADER = "#version 120\n"
+            + "uniform sampler2D u_texture;\n"
+            + "uniform bool u_gradient;\n"
+            + "varying vec2 v_texcoord;\n"
+            + "void main() {\n"
+            + "    if (u_gradient)\n"
+            + "        gl_FragColor = mix(vec4(1.0, 0.0, 0.0, 1.0), vec4(0.0, 0.0, 1.0, 1.0),\n"
+            + "                           v_texcoord.y);\n"
+            + "    else\n"
+            + "        gl_FragColor = texture2D(u_texture, v_texcoord).bgra;\n"
+            + "}\n";
+    private static final float[] IDENTITY_MATRIX = {
+            1.0f, 0.0f, 0.0f, 0.0f, 0.0f, 1.0f, 0.0f, 0.0f,
+            0.0f, 0.0f, 1.0f, 0.0f, 0.0f, 0.0f, 0.0f, 1.0f};
+    private boolean use_shaders_;
+    private int program_ = 0;
+    private int[] shader_vbo_ = new int[1];
+    private int matrix_location_ = -1;
+    private int gradient_location_ = -1;
+    private final float[] matrix_ = new float[16];
+    private FloatBuffer shader_vertices_ = null;
+
+    // Ring of pixel buffer objects used for asynchronous texture uploads. Slots
+    // [pbo_first_pending_, pbo_first_pending_ + pbo_pending_count_) (modulo the
+    // ring size) hold dirty regions which still have to be copied into the texture.
+    private int pbo_count_;
+    private int[] pbo_id_ = null;
+    private Rectangle[][] pbo_dirty_rects_ = null;
+    private int[] pbo_dirty_rect_count_ = null;
+    private int pbo_first_pending_ = 0;
+    private int pbo_pending_count_ = 0;
+
     protected CefRenderer(boolean transparent) {
+        this(transparent, 0, null, false, 0);
+    }
+
+    /**
+     * @param pixelBufferCount The number of pixel buffer objects for asynchronous uploads.
+     * @param texturePool The pool to take view textures from, or null for a private pool.
+     * @param useShaders True to render with a shader program and a vertex buffer if
+     *         the context supports it, instead of the fixed-function pipeline.
+     * @param tileSize The size of the textures the view is split into, or 0 to use a
+     *         single texture unless the view exceeds the maximum texture size.
+     */
+    protected CefRenderer(boolean transparent, int pixelBufferCount, CefTexturePool texturePool,
+            boolean useShaders, int tileSize) {
         transparent_ = transparent;
+        use_shaders_ = useShaders;
+        tile_size_ = Math.max(tileSize, 0);
+        private_texture_pool_ = texturePool == null;
+        texture_pool_ = texturePool != null ? texturePool : new CefTexturePool();
+        // A single buffer would have to be flushed on every paint, which doesn't buy anything.
+        pbo_count_ = pixelBufferCount >= 2 ? pixelBufferCount : 0;
     }
 
     protected boolean isTransparent() {
@@ -31,22 +124,60 @@ class CefRenderer {
     }
 
 	protected int getTextureID() {
-		return texture_id_[0];
+		return tiles_.length == 1 ? tiles_[0].id : 0;
 	}
 
+    protected int getViewWidth() {
+        return view_width_;
+    }
+
+    protected int getViewHeight() {
+        return view_height_;
+    }
+
+    /**
+     * Returns true if popup widgets are drawn as a separate layer on top of the
+     * view, so that hiding them does not require the view to be repainted.
+     */
+    protected boolean hasPopupLayer() {
+        return !use_draw_pixels_;
+    }
+
+    /**
+     * Returns true if the view is rendered from a texture, which can be read back
+     * with readTexturePixels(). Otherwise pixels are drawn to the framebuffer directly.
+     */
+    protected boolean usesTexture() {
+        return !use_draw_pixels_;
+    }
+
     @SuppressWarnings("static-access")
     protected void initialize(GL2 gl2) {
         if (initialized_context_ == gl2) return;
 
         initialized_context_ = gl2;
 
-        if (!gl2.getContext().isHardwareRasterizer()) {
-            // Workaround for Windows Remote Desktop which requires pot textures.
-            System.out.println(
-                    "opengl rendering may be slow as hardware rendering isn't available");
+        // Software rasterizers like llvmpipe take the same paths as hardware ones;
+        // only contexts that can't upload BGRA textures fall back to glDrawPixels.
+        if (!gl2.isExtensionAvailable("GL_VERSION_1_2")
+                && !gl2.isExtensionAvailable("GL_EXT_bgra")) {
+            System.out.println("BGRA textures are not available, falling back to glDrawPixels");
             use_draw_pixels_ = true;
             return;
         }
+        if (!gl2.isExtensionAvailable("GL_VERSION_1_2")) {
+            // BGRA is provided by GL_EXT_bgra, packed pixel types are not.
+            pixel_type_ = gl2.GL_UNSIGNED_BYTE;
+        }
+        if (!gl2.isExtensionAvailable("GL_VERSION_2_0")
+                && !gl2.isExtensionAvailable("GL_ARB_texture_non_power_of_two")) {
+            // E.g. the OpenGL 1.1 GDI renderer of Windows Remote Desktop. The view and
+            // the popup only use part of their power-of-2 textures.
+            System.out.println("non-power-of-2 textures are not available, "
+                    + "falling back to power-of-2 texture storage");
+            power_of_two_ = true;
+            texture_pool_.setPowerOfTwo();
+        }
 
         gl2.glHint(gl2.GL_POLYGON_SMOOTH_HINT, gl2.GL_NICEST);
 
@@ -55,30 +186,164 @@ class CefRenderer {
         // Necessary for non-power-of-2 textures to render correctly.
         gl2.glPixelStorei(gl2.GL_UNPACK_ALIGNMENT, 1);
 
-        // Create the texture.
-        gl2.glGenTextures(1, texture_id_, 0);
-        assert(texture_id_[0] != 0);
+        int[] max_texture_size = new int[1];
+        gl2.glGetIntegerv(gl2.GL_MAX_TEXTURE_SIZE, max_texture_size, 0);
+        max_texture_size_ = max_texture_size[0];
+        if (max_texture_size_ > 0 && tile_size_ > max_texture_size_) tile_size_ = max_texture_size_;
+
+        // Create the texture for popup widgets. The view texture is taken from the
+        // texture pool once the size of the view is known.
+        createTexture(gl2, popup_texture_id_);
+
+        if (use_shaders_ && !initializeShaders(gl2)) {
+            System.out.println("shaders are not available, "
+                    + "falling back to fixed-function rendering");
+            use_shaders_ = false;
+        }
+
+        if (pbo_count_ > 0) {
+            if (gl2.isExtensionAvailable("GL_ARB_pixel_buffer_object")) {
+                pbo_id_ = new int[pbo_count_];
+                pbo_dirty_rects_ = new Rectangle[pbo_count_][];
+                pbo_dirty_rect_count_ = new int[pbo_count_];
+                gl2.glGenBuffers(pbo_count_, pbo_id_, 0);
+            } else {
+                System.out.println("pixel buffer objects are not available, "
+                        + "falling back to synchronous texture uploads");
+                pbo_count_ = 0;
+            }
+        }
+    }
+
+    /**
+     * Create the shader program and vertex buffer of the shader path. Returns false
+     * if the context doesn't support them.
+     */
+    @SuppressWarnings("static-access")
+    private boolean initializeShaders(GL2 gl2) {
+        if (!gl2.hasGLSL()) return false;
+
+        int vertexShader = compileShader(gl2, gl2.GL_VERTEX_SHADER, VERTEX_SHADER);
+        int fragmentShader = compileShader(gl2, gl2.GL_FRAGMENT_SHADER, FRAGMENT_SHADER);
+        if (vertexShader == 0 || fragmentShader == 0) {
+            if (vertexShader != 0) gl2.glDeleteShader(vertexShader);
+            if (fragmentShader != 0) gl2.glDeleteShader(fragmentShader);
+            return false;
+        }
+
+        int program = gl2.glCreateProgram();
+        gl2.glAttachShader(program, vertexShader);
+        gl2.glAttachShader(program, fragmentShader);
+        gl2.glBindAttribLocation(program, 0, "a_position");
+        gl2.glBindAttribLocation(program, 1, "a_texcoord");
+        gl2.glLinkProgram(program);
+        // The shaders are deleted together with the program.
+        gl2.glDeleteShader(vertexShader);
+        gl2.glDeleteShader(fragmentShader);
+
+        int[] status = new int[1];
+        gl2.glGetProgramiv(program, gl2.GL_LINK_STATUS, status, 0);
+        if (status[0] == 0) {
+            byte[] log = new byte[1024];
+            int[] length = new int[1];
+            gl2.glGetProgramInfoLog(program, log.length, length, 0, log, 0);
+            System.out.println("shader program failed to link: " + new String(log, 0, length[0]));
+            gl2.glDeleteProgram(program);
+            return false;
+        }
+
+        program_ = program;
+        matrix_location_ = gl2.glGetUniformLocation(program_, "u_matrix");
+        gradient_location_ = gl2.glGetUniformLocation(program_, "u_gradient");
+        gl2.glUseProgram(program_);
+        gl2.glUniform1i(gl2.glGetUniformLocation(program_, "u_texture"), 0);
+        gl2.glUseProgram(0);
+
+        shader_vertices_ = ByteBuffer.allocateDirect(3 * SHADER_QUAD_FLOATS * 4)
+                                   .order(ByteOrder.nativeOrder())
+                                   .asFloatBuffer();
+        gl2.glGenBuffers(1, shader_vbo_, 0);
+        gl2.glBindBuffer(gl2.GL_ARRAY_BUFFER, shader_vbo_[0]);
+        gl2.glBufferData(gl2.GL_ARRAY_BUFFER, shader_vertices_.capacity() * 4, null,
+                gl2.GL_DYNAMIC_DRAW);
+        gl2.glBindBuffer(gl2.GL_ARRAY_BUFFER, 0);
+
+        // Textures are uploaded without conversion, the shader swizzles BGRA.
+        pixel_format_ = gl2.GL_RGBA;
+        pixel_type_ = gl2.GL_UNSIGNED_BYTE;
+        return true;
+    }
+
+    private static int compileShader(GL2 gl2, int type, String source) {
+        int shader = gl2.glCreateShader(type);
+        gl2.glShaderSource(shader, 1, new String[] {source}, null, 0);
+        gl2.glCompileShader(shader);
+        int[] status = new int[1];
+        gl2.glGetShaderiv(shader, GL2.GL_COMPILE_STATUS, status, 0);
+        if (status[0] == 0) {
+            byte[] log = new byte[1024];
+            int[] length = new int[1];
+            gl2.glGetShaderInfoLog(shader, log.length, length, 0, log, 0);
+            System.out.println("shader failed to compile: " + new String(log, 0, length[0]));
+            gl2.glDeleteShader(shader);
+            return 0;
+        }
+        return shader;
+    }
+
+    @SuppressWarnings("static-access")
+    static void createTexture(GL2 gl2, int[] id) {
+        gl2.glGenTextures(1, id, 0);
+        assert(id[0] != 0);
 
-        gl2.glBindTexture(gl2.GL_TEXTURE_2D, texture_id_[0]);
+        gl2.glBindTexture(gl2.GL_TEXTURE_2D, id[0]);
         gl2.glTexParameteri(gl2.GL_TEXTURE_2D, gl2.GL_TEXTURE_MIN_FILTER, gl2.GL_NEAREST);
         gl2.glTexParameteri(gl2.GL_TEXTURE_2D, gl2.GL_TEXTURE_MAG_FILTER, gl2.GL_NEAREST);
         gl2.glTexEnvf(gl2.GL_TEXTURE_ENV, gl2.GL_TEXTURE_ENV_MODE, gl2.GL_MODULATE);
     }
 
     protected void cleanup(GL2 gl2) {
-        if (texture_id_[0] != 0) gl2.glDeleteTextures(1, texture_id_, 0);
+        for (CefTexturePool.Texture tile : tiles_) texture_pool_.release(gl2, tile);
+        tiles_ = new CefTexturePool.Texture[0];
+        if (private_texture_pool_) texture_pool_.clear(gl2);
+        if (popup_texture_id_[0] != 0) gl2.glDeleteTextures(1, popup_texture_id_, 0);
+        if (read_framebuffer_id_[0] != 0) {
+            gl2.glDeleteFramebuffers(1, read_framebuffer_id_, 0);
+            read_framebuffer_id_[0] = 0;
+        }
+        if (pbo_id_ != null) {
+            gl2.glDeleteBuffers(pbo_count_, pbo_id_, 0);
+            pbo_id_ = null;
+            pbo_pending_count_ = 0;
+        }
+        if (program_ != 0) {
+            gl2.glDeleteProgram(program_);
+            gl2.glDeleteBuffers(1, shader_vbo_, 0);
+            program_ = 0;
+        }
     }
 
-    @SuppressWarnings("static-access")
     protected void render(GL2 gl2) {
-        if (use_draw_pixels_ || view_width_ == 0 || view_height_ == 0) return;
+        render(gl2, view_width_, view_height_);
+    }
+
+    /**
+     * Render the view stretched to the given viewport size, e.g. while the
+     * browser has not been resized to the size of the canvas yet.
+     */
+    @SuppressWarnings("static-access")
+    protected void render(GL2 gl2, int viewport_width, int viewport_height) {
+        if (use_draw_pixels_ || tiles_.length == 0 || view_width_ == 0 || view_height_ == 0) return;
 
         assert(initialized_context_ != null);
 
-        final float[] vertex_data = {// tu,   tv,     x,     y,    z
-                0.0f, 1.0f, -1.0f, -1.0f, 0.0f, 1.0f, 1.0f, 1.0f, -1.0f, 0.0f, 1.0f, 0.0f, 1.0f,
-                1.0f, 0.0f, 0.0f, 0.0f, -1.0f, 1.0f, 0.0f};
-        FloatBuffer vertices = FloatBuffer.wrap(vertex_data);
+        // Apply the dirty regions that were queued by onPaint since the last frame.
+        flushPixelBuffers(gl2);
+
+        if (program_ != 0) {
+            renderShaders(gl2, viewport_width, viewport_height);
+            return;
+        }
 
         gl2.glClear(gl2.GL_COLOR_BUFFER_BIT | gl2.GL_DEPTH_BUFFER_BIT);
 
@@ -86,7 +351,7 @@ class CefRenderer {
         gl2.glLoadIdentity();
 
         // Match GL units to screen coordinates.
-        gl2.glViewport(0, 0, view_width_, view_height_);
+        gl2.glViewport(0, 0, viewport_width, viewport_height);
         gl2.glMatrixMode(gl2.GL_PROJECTION);
         gl2.glLoadIdentity();
 
@@ -117,12 +382,42 @@ class CefRenderer {
         // Enable 2D textures.
         gl2.glEnable(gl2.GL_TEXTURE_2D);
 
-        // Draw the facets with the texture.
-        assert(texture_id_[0] != 0);
+        // Draw the facets with the texture of each tile.
         gl2.glColor4f(1.0f, 1.0f, 1.0f, 1.0f);
-        gl2.glBindTexture(gl2.GL_TEXTURE_2D, texture_id_[0]);
-        gl2.glInterleavedArrays(gl2.GL_T2F_V3F, 0, vertices);
-        gl2.glDrawArrays(gl2.GL_QUADS, 0, 4);
+        final Rectangle bounds = tile_bounds_;
+        for (int i = 0; i < tiles_.length; ++i) {
+            getTileBounds(i, bounds);
+            // The texture storage may be larger than the tile.
+            final float tu = (float) bounds.width / tiles_[i].width;
+            final float tv = (float) bounds.height / tiles_[i].height;
+            final float left = -1.0f + 2.0f * bounds.x / view_width_;
+            final float right = -1.0f + 2.0f * (bounds.x + bounds.width) / view_width_;
+            final float top = 1.0f - 2.0f * bounds.y / view_height_;
+            final float bottom = 1.0f - 2.0f * (bounds.y + bounds.height) / view_height_;
+            final float[] vertex_data = {// tu,   tv,     x,     y,    z
+                    0.0f, tv, left, bottom, 0.0f, tu, tv, right, bottom, 0.0f, tu, 0.0f, right,
+                    top, 0.0f, 0.0f, 0.0f, left, top, 0.0f};
+            gl2.glBindTexture(gl2.GL_TEXTURE_2D, tiles_[i].id);
+            gl2.glInterleavedArrays(gl2.GL_T2F_V3F, 0, FloatBuffer.wrap(vertex_data));
+            gl2.glDrawArrays(gl2.GL_QUADS, 0, 4);
+        }
+
+        // Draw the popup widget, if any, on top of the view.
+        if (popup_width_ > 0 && popup_rect_.width > 0 && popup_rect_.height > 0) {
+            final float left = -1.0f + 2.0f * popup_rect_.x / view_width_;
+            final float right = -1.0f + 2.0f * (popup_rect_.x + popup_width_) / view_width_;
+            final float top = 1.0f - 2.0f * popup_rect_.y / view_height_;
+            final float bottom = 1.0f - 2.0f * (popup_rect_.y + popup_height_) / view_height_;
+            // The texture storage may be larger than the popup.
+            final float tu = (float) popup_width_ / popup_texture_width_;
+            final float tv = (float) popup_height_ / popup_texture_height_;
+            final float[] popup_vertex_data = {// tu,   tv,     x,     y,    z
+                    0.0f, tv, left, bottom, 0.0f, tu, tv, right, bottom, 0.0f, tu, 0.0f, right,
+                    top, 0.0f, 0.0f, 0.0f, left, top, 0.0f};
+            gl2.glBindTexture(gl2.GL_TEXTURE_2D, popup_texture_id_[0]);
+            gl2.glInterleavedArrays(gl2.GL_T2F_V3F, 0, FloatBuffer.wrap(popup_vertex_data));
+            gl2.glDrawArrays(gl2.GL_QUADS, 0, 4);
+        }
 
         // Disable 2D textures.
         gl2.glDisable(gl2.GL_TEXTURE_2D);
@@ -133,6 +428,125 @@ class CefRenderer {
         }
     }
 
+    /**
+     * Render with the shader program. Unlike the fixed-function path this neither
+     * allocates buffers nor saves and restores the GL state.
+     */
+    @SuppressWarnings("static-access")
+    private void renderShaders(GL2 gl2, int viewport_width, int viewport_height) {
+        final boolean drawPopup =
+                popup_width_ > 0 && popup_rect_.width > 0 && popup_rect_.height > 0;
+
+        // Quads: the background, the popup and one per tile.
+        final int floats = (2 + tiles_.length) * SHADER_QUAD_FLOATS;
+        gl2.glBindBuffer(gl2.GL_ARRAY_BUFFER, shader_vbo_[0]);
+        if (shader_vertices_.capacity() < floats) {
+            // Only happens when the number of tiles grows.
+            shader_vertices_ =
+                    ByteBuffer.allocateDirect(floats * 4).order(ByteOrder.nativeOrder()).asFloatBuffer();
+            gl2.glBufferData(gl2.GL_ARRAY_BUFFER, floats * 4, null, gl2.GL_DYNAMIC_DRAW);
+        }
+
+        shader_vertices_.clear();
+        // Background gradient, from red at the bottom to blue at the top.
+        putQuad(-1.0f, 1.0f, 1.0f, -1.0f, 0.0f, 1.0f, 1.0f, 0.0f);
+        putQuad(-1.0f + 2.0f * popup_rect_.x / view_width_,
+                1.0f - 2.0f * popup_rect_.y / view_height_,
+                -1.0f + 2.0f * (popup_rect_.x + popup_width_) / view_width_,
+                1.0f - 2.0f * (popup_rect_.y + popup_height_) / view_height_, 0.0f, 0.0f,
+                (float) popup_width_ / Math.max(popup_texture_width_, 1),
+                (float) popup_height_ / Math.max(popup_texture_height_, 1));
+        final Rectangle bounds = tile_bounds_;
+        for (int i = 0; i < tiles_.length; ++i) {
+            getTileBounds(i, bounds);
+            // The texture storage may be larger than the tile.
+            putQuad(-1.0f + 2.0f * bounds.x / view_width_,
+                    1.0f - 2.0f * bounds.y / view_height_,
+                    -1.0f + 2.0f * (bounds.x + bounds.width) / view_width_,
+                    1.0f - 2.0f * (bounds.y + bounds.height) / view_height_, 0.0f, 0.0f,
+                    (float) bounds.width / tiles_[i].width,
+                    (float) bounds.height / tiles_[i].height);
+        }
+        shader_vertices_.flip();
+
+        gl2.glViewport(0, 0, viewport_width, viewport_height);
+        gl2.glUseProgram(program_);
+        gl2.glBufferSubData(
+                gl2.GL_ARRAY_BUFFER, 0, shader_vertices_.remaining() * 4, shader_vertices_);
+        gl2.glEnableVertexAttribArray(0);
+        gl2.glEnableVertexAttribArray(1);
+        gl2.glVertexAttribPointer(0, 2, gl2.GL_FLOAT, false, SHADER_VERTEX_FLOATS * 4, 0L);
+        gl2.glVertexAttribPointer(1, 2, gl2.GL_FLOAT, false, SHADER_VERTEX_FLOATS * 4, 8L);
+
+        gl2.glUniformMatrix4fv(matrix_location_, 1, false, IDENTITY_MATRIX, 0);
+        gl2.glUniform1i(gradient_location_, 1);
+        gl2.glDrawArrays(gl2.GL_TRIANGLE_FAN, 0, 4);
+
+        // Rotate the view based on the mouse spin.
+        gl2.glUniformMatrix4fv(matrix_location_, 1, false, getSpinMatrix(), 0);
+        gl2.glUniform1i(gradient_location_, 0);
+        if (transparent_) {
+            // Texture values have premultiplied alpha.
+            gl2.glBlendFunc(gl2.GL_ONE, gl2.GL_ONE_MINUS_SRC_ALPHA);
+            gl2.glEnable(gl2.GL_BLEND);
+        }
+        for (int i = 0; i < tiles_.length; ++i) {
+            gl2.glBindTexture(gl2.GL_TEXTURE_2D, tiles_[i].id);
+            gl2.glDrawArrays(gl2.GL_TRIANGLE_FAN, (2 + i) * 4, 4);
+        }
+        if (drawPopup) {
+            gl2.glBindTexture(gl2.GL_TEXTURE_2D, popup_texture_id_[0]);
+            gl2.glDrawArrays(gl2.GL_TRIANGLE_FAN, 4, 4);
+        }
+        if (transparent_) gl2.glDisable(gl2.GL_BLEND);
+
+        // Leave the fixed-function state used by the upload and read back code intact.
+        gl2.glDisableVertexAttribArray(0);
+        gl2.glDisableVertexAttribArray(1);
+        gl2.glBindBuffer(gl2.GL_ARRAY_BUFFER, 0);
+        gl2.glUseProgram(0);
+    }
+
+    /**
+     * Append a quad with the given corners to |shader_vertices_|.
+     */
+    private void putQuad(float left, float top, float right, float bottom, float tuLeft,
+            float tvTop, float tuRight, float tvBottom) {
+        shader_vertices_.put(left).put(bottom).put(tuLeft).put(tvBottom);
+        shader_vertices_.put(right).put(bottom).put(tuRight).put(tvBottom);
+        shader_vertices_.put(right).put(top).put(tuRight).put(tvTop);
+        shader_vertices_.put(left).put(top).put(tuLeft).put(tvTop);
+    }
+
+    /**
+     * Returns the column-major rotation matrix that the fixed-function path applies
+     * with glRotatef for the mouse spin.
+     */
+    private float[] getSpinMatrix() {
+        final double a = Math.toRadians(-spin_x_);
+        final double b = Math.toRadians(-spin_y_);
+        final float ca = (float) Math.cos(a), sa = (float) Math.sin(a);
+        final float cb = (float) Math.cos(b), sb = (float) Math.sin(b);
+        final float[] m = matrix_;
+        m[0] = cb;
+        m[1] = sa * sb;
+        m[2] = -ca * sb;
+        m[3] = 0.0f;
+        m[4] = 0.0f;
+        m[5] = ca;
+        m[6] = sa;
+        m[7] = 0.0f;
+        m[8] = sb;
+        m[9] = -sa * cb;
+        m[10] = ca * cb;
+        m[11] = 0.0f;
+        m[12] = 0.0f;
+        m[13] = 0.0f;
+        m[14] = 0.0f;
+        m[15] = 1.0f;
+        return m;
+    }
+
     protected void onPopupSize(Rectangle rect) {
         if (rect.width <= 0 || rect.height <= 0) return;
         original_popup_rect_ = rect;
@@ -160,10 +574,17 @@ class CefRenderer {
     protected void clearPopupRects() {
         popup_rect_.setBounds(0, 0, 0, 0);
         original_popup_rect_.setBounds(0, 0, 0, 0);
+        // Don't draw the old popup until the next one is painted.
+        popup_width_ = 0;
+        popup_height_ = 0;
     }
 
+    /**
+     * Upload a paint.
+     * @return The number of bytes of pixel data passed to OpenGL.
+     */
     @SuppressWarnings("static-access")
-    protected void onPaint(GL2 gl2, boolean popup, Rectangle[] dirtyRects, ByteBuffer buffer,
+    protected long onPaint(GL2 gl2, boolean popup, Rectangle[] dirtyRects, ByteBuffer buffer,
             int width, int height) {
         initialize(gl2);
 
@@ -171,9 +592,11 @@ class CefRenderer {
             gl2.glRasterPos2f(-1, 1);
             gl2.glPixelZoom(1, -1);
             gl2.glDrawPixels(width, height, GL2.GL_BGRA, GL2.GL_UNSIGNED_BYTE, buffer);
-            return;
+            return (long) width * height * 4;
         }
 
+        long bytes = 0;
+
         if (transparent_) {
             // Enable alpha blending.
             gl2.glEnable(gl2.GL_BLEND);
@@ -182,9 +605,6 @@ class CefRenderer {
         // Enable 2D textures.
         gl2.glEnable(gl2.GL_TEXTURE_2D);
 
-        assert(texture_id_[0] != 0);
-        gl2.glBindTexture(gl2.GL_TEXTURE_2D, texture_id_[0]);
-
         if (!popup) {
             int old_width = view_width_;
             int old_height = view_height_;
@@ -195,12 +615,21 @@ class CefRenderer {
             gl2.glPixelStorei(gl2.GL_UNPACK_ROW_LENGTH, view_width_);
 
             if (old_width != view_width_ || old_height != view_height_) {
-                // Update/resize the whole texture.
-                gl2.glPixelStorei(gl2.GL_UNPACK_SKIP_PIXELS, 0);
-                gl2.glPixelStorei(gl2.GL_UNPACK_SKIP_ROWS, 0);
-                gl2.glTexImage2D(gl2.GL_TEXTURE_2D, 0, gl2.GL_RGBA, view_width_, view_height_, 0,
-                        gl2.GL_BGRA, gl2.GL_UNSIGNED_INT_8_8_8_8_REV, buffer);
+                // Pending uploads refer to the old size and are superseded by this frame.
+                pbo_pending_count_ = 0;
+
+                updateTiles(gl2);
+
+                // Update the whole view, one tile at a time.
+                uploadRect(gl2, new Rectangle(0, 0, view_width_, view_height_), buffer);
+                bytes = (long) view_width_ * view_height_ * 4;
+            } else if (pbo_id_ != null && queuePixelBuffer(gl2, dirtyRects, buffer)) {
+                // The dirty rectangles will be uploaded on the next call to render().
+                bytes = getBytes(dirtyRects);
             } else {
+                // Pixel buffers must not be applied on top of newer content.
+                flushPixelBuffers(gl2);
+
                 // Update just the dirty rectangles.
                 for (int i = 0; i < dirtyRects.length; ++i) {
                     Rectangle rect = dirtyRects[i];
@@ -208,36 +637,45 @@ class CefRenderer {
                         // This appears to be possible sometimes on window resizing. It crashes the process if not eliminated here!
                         continue;
                     }
+                    uploadRect(gl2, rect, buffer);
+                }
+                bytes = getBytes(dirtyRects);
+            }
+        } else if (popup && popup_rect_.width > 0 && popup_rect_.height > 0) {
+            // Popups have a texture of their own which render() draws on top of the view,
+            // so showing and hiding them leaves the view texture alone.
+            gl2.glBindTexture(gl2.GL_TEXTURE_2D, popup_texture_id_[0]);
+            gl2.glPixelStorei(gl2.GL_UNPACK_ROW_LENGTH, width);
+
+            if (width != popup_width_ || height != popup_height_) {
+                popup_width_ = width;
+                popup_height_ = height;
+                popup_texture_width_ = power_of_two_ ? CefTexturePool.getPowerOfTwo(width) : width;
+                popup_texture_height_ =
+                        power_of_two_ ? CefTexturePool.getPowerOfTwo(height) : height;
+                gl2.glPixelStorei(gl2.GL_UNPACK_SKIP_PIXELS, 0);
+                gl2.glPixelStorei(gl2.GL_UNPACK_SKIP_ROWS, 0);
+                if (popup_texture_width_ == width && popup_texture_height_ == height) {
+                    gl2.glTexImage2D(gl2.GL_TEXTURE_2D, 0, gl2.GL_RGBA, width, height, 0,
+                            pixel_format_, pixel_type_, buffer);
+                } else {
+                    gl2.glTexImage2D(gl2.GL_TEXTURE_2D, 0, gl2.GL_RGBA, popup_texture_width_,
+                            popup_texture_height_, 0, pixel_format_, pixel_type_, null);
+                    gl2.glTexSubImage2D(gl2.GL_TEXTURE_2D, 0, 0, 0, width, height,
+                            pixel_format_, pixel_type_, buffer);
+                }
+                bytes = (long) width * height * 4;
+            } else {
+                for (int i = 0; i < dirtyRects.length; ++i) {
+                    Rectangle rect = dirtyRects[i];
+                    if (rect.width <= 0 || rect.height <= 0) continue;
                     gl2.glPixelStorei(gl2.GL_UNPACK_SKIP_PIXELS, rect.x);
                     gl2.glPixelStorei(gl2.GL_UNPACK_SKIP_ROWS, rect.y);
                     gl2.glTexSubImage2D(gl2.GL_TEXTURE_2D, 0, rect.x, rect.y, rect.width,
-                            rect.height, gl2.GL_BGRA, gl2.GL_UNSIGNED_INT_8_8_8_8_REV, buffer);
+                            rect.height, pixel_format_, pixel_type_, buffer);
                 }
+                bytes = getBytes(dirtyRects);
             }
-        } else if (popup && popup_rect_.width > 0 && popup_rect_.height > 0) {
-            int skip_pixels = 0, x = popup_rect_.x;
-            int skip_rows = 0, y = popup_rect_.y;
-            int w = width;
-            int h = height;
-
-            // Adjust the popup to fit inside the view.
-            if (x < 0) {
-                skip_pixels = -x;
-                x = 0;
-            }
-            if (y < 0) {
-                skip_rows = -y;
-                y = 0;
-            }
-            if (x + w > view_width_) w -= x + w - view_width_;
-            if (y + h > view_height_) h -= y + h - view_height_;
-
-            // Update the popup rectangle.
-            gl2.glPixelStorei(gl2.GL_UNPACK_ROW_LENGTH, width);
-            gl2.glPixelStorei(gl2.GL_UNPACK_SKIP_PIXELS, skip_pixels);
-            gl2.glPixelStorei(gl2.GL_UNPACK_SKIP_ROWS, skip_rows);
-            gl2.glTexSubImage2D(gl2.GL_TEXTURE_2D, 0, x, y, w, h, gl2.GL_BGRA,
-                    gl2.GL_UNSIGNED_INT_8_8_8_8_REV, buffer);
         }
 
         // Disable 2D textures.
@@ -247,6 +685,313 @@ class CefRenderer {
             // Disable alpha blending.
             gl2.glDisable(gl2.GL_BLEND);
         }
+        return bytes;
+    }
+
+    /**
+     * Make the tiles match the current view size. A single texture is kept as
+     * long as the view fits its size class; tiles of a fixed size are reused and
+     * only added or released as their number changes.
+     */
+    private void updateTiles(GL2 gl2) {
+        int tileSize = tile_size_;
+        if (tileSize == 0 && max_texture_size_ > 0
+                && (view_width_ > max_texture_size_ || view_height_ > max_texture_size_)) {
+            // The view doesn't fit into a single texture.
+            tileSize = max_texture_size_;
+        }
+        final int tileWidth = tileSize > 0 ? tileSize : view_width_;
+        final int tileHeight = tileSize > 0 ? tileSize : view_height_;
+        final int columns = (view_width_ + tileWidth - 1) / tileWidth;
+        final int count = columns * ((view_height_ + tileHeight - 1) / tileHeight);
+
+        boolean reuse;
+        if (tileSize == 0) {
+            reuse = tiles_.length == 1 && texture_pool_.fits(tiles_[0], tileWidth, tileHeight);
+        } else {
+            reuse = tile_width_ == tileWidth && tile_height_ == tileHeight;
+        }
+        if (!reuse) {
+            for (CefTexturePool.Texture tile : tiles_) texture_pool_.release(gl2, tile);
+            tiles_ = new CefTexturePool.Texture[0];
+        }
+        if (tiles_.length != count) {
+            CefTexturePool.Texture[] tiles = new CefTexturePool.Texture[count];
+            for (int i = 0; i < Math.max(count, tiles_.length); ++i) {
+                if (i >= count) {
+                    texture_pool_.release(gl2, tiles_[i]);
+                } else if (i < tiles_.length) {
+                    tiles[i] = tiles_[i];
+                } else {
+                    tiles[i] = texture_pool_.acquire(gl2, tileWidth, tileHeight);
+                }
+            }
+            tiles_ = tiles;
+        }
+        tile_columns_ = columns;
+        tile_width_ = tileWidth;
+        tile_height_ = tileHeight;
+    }
+
+    /**
+     * Returns the part of the view covered by a tile.
+     */
+    private void getTileBounds(int index, Rectangle bounds) {
+        final int x = (index % tile_columns_) * tile_width_;
+        final int y = (index / tile_columns_) * tile_height_;
+        bounds.setBounds(x, y, Math.min(tile_width_, view_width_ - x),
+                Math.min(tile_height_, view_height_ - y));
+    }
+
+    /**
+     * Upload a rectangle of the view into the tiles it intersects. The pixels are
+     * taken from |buffer|, or from the bound pixel unpack buffer if |buffer| is
+     * null. GL_UNPACK_ROW_LENGTH must be set to the view width.
+     */
+    @SuppressWarnings("static-access")
+    private void uploadRect(GL2 gl2, Rectangle rect, ByteBuffer buffer) {
+        if (tiles_.length == 0) return;
+        final int firstColumn = rect.x / tile_width_;
+        final int lastColumn = Math.min((rect.x + rect.width - 1) / tile_width_, tile_columns_ - 1);
+        final int firstRow = rect.y / tile_height_;
+        final int lastRow =
+                Math.min((rect.y + rect.height - 1) / tile_height_, tiles_.length / tile_columns_ - 1);
+        for (int row = firstRow; row <= lastRow; ++row) {
+            for (int column = firstColumn; column <= lastColumn; ++column) {
+                final int tileX = column * tile_width_;
+                final int tileY = row * tile_height_;
+                final int left = Math.max(rect.x, tileX);
+                final int top = Math.max(rect.y, tileY);
+                final int right = Math.min(rect.x + rect.width, tileX + tile_width_);
+                final int bottom = Math.min(rect.y + rect.height, tileY + tile_height_);
+                if (right <= left || bottom <= top) continue;
+
+                gl2.glBindTexture(gl2.GL_TEXTURE_2D, tiles_[row * tile_columns_ + column].id);
+                gl2.glPixelStorei(gl2.GL_UNPACK_SKIP_PIXELS, left);
+                gl2.glPixelStorei(gl2.GL_UNPACK_SKIP_ROWS, top);
+                if (buffer != null) {
+                    gl2.glTexSubImage2D(gl2.GL_TEXTURE_2D, 0, left - tileX, top - tileY,
+                            right - left, bottom - top, pixel_format_, pixel_type_, buffer);
+                } else {
+                    gl2.glTexSubImage2D(gl2.GL_TEXTURE_2D, 0, left - tileX, top - tileY,
+                            right - left, bottom - top, pixel_format_, pixel_type_, 0L);
+                }
+            }
+        }
+    }
+
+    private static long getBytes(Rectangle[] rects) {
+        long bytes = 0;
+        for (Rectangle rect : rects) {
+            if (rect.width > 0 && rect.height > 0) bytes += (long) rect.width * rect.height * 4;
+        }
+        return bytes;
+    }
+
+    /**
+     * Copy the dirty rectangles of |buffer| into the next free pixel buffer object.
+     * Returns false if the buffer could not be mapped, in which case the caller
+     * must upload the rectangles directly.
+     */
+    @SuppressWarnings("static-access")
+    private boolean queuePixelBuffer(GL2 gl2, Rectangle[] dirtyRects, ByteBuffer buffer) {
+        if (pbo_pending_count_ == pbo_count_) {
+            // All buffers are still waiting for a display. Apply the oldest one now.
+            flushPixelBuffer(gl2);
+        }
+
+        final int slot = (pbo_first_pending_ + pbo_pending_count_) % pbo_count_;
+        final int size = view_width_ * view_height_ * 4;
+
+        gl2.glBindBuffer(gl2.GL_PIXEL_UNPACK_BUFFER, pbo_id_[slot]);
+        // Orphan the storage on every paint. The previous upload from this slot may
+        // still be reading it, and mapping it in place would wait for that upload.
+        // Nothing but the dirty rectangles copied below is uploaded from the slot.
+        gl2.glBufferData(gl2.GL_PIXEL_UNPACK_BUFFER, size, null, gl2.GL_STREAM_DRAW);
+        ByteBuffer mapped = gl2.glMapBuffer(gl2.GL_PIXEL_UNPACK_BUFFER, gl2.GL_WRITE_ONLY);
+        if (mapped == null) {
+            gl2.glBindBuffer(gl2.GL_PIXEL_UNPACK_BUFFER, 0);
+            return false;
+        }
+
+        Rectangle[] slotRects = pbo_dirty_rects_[slot];
+        if (slotRects == null || slotRects.length < dirtyRects.length) {
+            slotRects = new Rectangle[dirtyRects.length];
+            for (int i = 0; i < slotRects.length; ++i) slotRects[i] = new Rectangle();
+            pbo_dirty_rects_[slot] = slotRects;
+        }
+
+        // Only the dirty rectangles are copied. Everything else in the buffer may be stale
+        // but is never uploaded from this slot.
+        final int stride = view_width_ * 4;
+        final int oldLimit = buffer.limit();
+        int count = 0;
+        for (int i = 0; i < dirtyRects.length; ++i) {
+            Rectangle rect = dirtyRects[i];
+            if (rect.width <= 0 || rect.height <= 0) continue;
+            if (rect.x == 0 && rect.width == view_width_) {
+                // Full-width rows are contiguous in memory.
+                copyBytes(buffer, mapped, rect.y * stride, rect.height * stride);
+            } else {
+                for (int y = rect.y; y < rect.y + rect.height; ++y) {
+                    copyBytes(buffer, mapped, y * stride + rect.x * 4, rect.width * 4);
+                }
+            }
+            slotRects[count++].setBounds(rect);
+        }
+        buffer.limit(oldLimit).position(0);
+        pbo_dirty_rect_count_[slot] = count;
+
+        gl2.glUnmapBuffer(gl2.GL_PIXEL_UNPACK_BUFFER);
+        gl2.glBindBuffer(gl2.GL_PIXEL_UNPACK_BUFFER, 0);
+        pbo_pending_count_++;
+        return true;
+    }
+
+    private static void copyBytes(ByteBuffer src, ByteBuffer dst, int offset, int length) {
+        src.limit(offset + length).position(offset);
+        dst.position(offset);
+        dst.put(src);
+    }
+
+    /**
+     * Upload all queued pixel buffer objects into the texture.
+     */
+    private void flushPixelBuffers(GL2 gl2) {
+        while (pbo_pending_count_ > 0) flushPixelBuffer(gl2);
+    }
+
+    /**
+     * Upload the oldest queued pixel buffer object into the texture. The copy
+     * from the buffer object is performed asynchronously by the driver.
+     */
+    @SuppressWarnings("static-access")
+    private void flushPixelBuffer(GL2 gl2) {
+        final int slot = pbo_first_pending_;
+        pbo_first_pending_ = (pbo_first_pending_ + 1) % pbo_count_;
+        pbo_pending_count_--;
+
+        gl2.glBindBuffer(gl2.GL_PIXEL_UNPACK_BUFFER, pbo_id_[slot]);
+        gl2.glPixelStorei(gl2.GL_UNPACK_ROW_LENGTH, view_width_);
+        Rectangle[] rects = pbo_dirty_rects_[slot];
+        for (int i = 0; i < pbo_dirty_rect_count_[slot]; ++i) {
+            uploadRect(gl2, rects[i], null);
+        }
+        gl2.glBindBuffer(gl2.GL_PIXEL_UNPACK_BUFFER, 0);
+    }
+
+    /**
+     * Read back a region of the view, including the popup widget, as BGRA pixels
+     * ordered top to bottom. Tiles outside the region are not read. Only available
+     * if usesTexture() returns true.
+     * @param region The region to read, which must lie within the view.
+     * @param pixels Receives region.width * region.height pixels.
+     */
+    @SuppressWarnings("static-access")
+    protected void readTexturePixels(GL2 gl2, Rectangle region, ByteBuffer pixels) {
+        if (tiles_.length == 0 || region.isEmpty()) return;
+
+        // Parts of tiles are read with glReadPixels from a framebuffer object the
+        // tile is attached to.
+        final boolean useFramebuffer = gl2.hasBasicFBOSupport();
+        final int drawFramebuffer = gl2.getBoundFramebuffer(gl2.GL_DRAW_FRAMEBUFFER);
+        final int readFramebuffer = gl2.getBoundFramebuffer(gl2.GL_READ_FRAMEBUFFER);
+        if (useFramebuffer) {
+            if (read_framebuffer_id_[0] == 0) gl2.glGenFramebuffers(1, read_framebuffer_id_, 0);
+            gl2.glBindFramebuffer(gl2.GL_FRAMEBUFFER, read_framebuffer_id_[0]);
+        }
+
+        Rectangle bounds = new Rectangle();
+        for (int i = 0; i < tiles_.length; ++i) {
+            getTileBounds(i, bounds);
+            Rectangle part = bounds.intersection(region);
+            if (part.isEmpty()) continue;
+            CefTexturePool.Texture tile = tiles_[i];
+            if (useFramebuffer) {
+                gl2.glFramebufferTexture2D(gl2.GL_FRAMEBUFFER, gl2.GL_COLOR_ATTACHMENT0,
+                        gl2.GL_TEXTURE_2D, tile.id, 0);
+            }
+            if (useFramebuffer
+                    && gl2.glCheckFramebufferStatus(gl2.GL_FRAMEBUFFER)
+                            == gl2.GL_FRAMEBUFFER_COMPLETE) {
+                // Texture rows are stored top to bottom, like the view.
+                gl2.glPixelStorei(gl2.GL_PACK_ROW_LENGTH, region.width);
+                pixels.position(((part.y - region.y) * region.width + part.x - region.x) * 4);
+                gl2.glReadPixels(part.x - bounds.x, part.y - bounds.y, part.width, part.height,
+                        pixel_format_, gl2.GL_UNSIGNED_BYTE, pixels);
+                gl2.glPixelStorei(gl2.GL_PACK_ROW_LENGTH, 0);
+            } else {
+                // Textures can only be read as a whole, including storage beyond the view.
+                final int size = tile.width * tile.height * 4;
+                if (tile_read_buffer_ == null || tile_read_buffer_.capacity() < size) {
+                    tile_read_buffer_ = ByteBuffer.allocateDirect(size);
+                }
+                tile_read_buffer_.clear();
+                gl2.glEnable(gl2.GL_TEXTURE_2D);
+                gl2.glBindTexture(gl2.GL_TEXTURE_2D, tile.id);
+                gl2.glGetTexImage(gl2.GL_TEXTURE_2D, 0, pixel_format_, gl2.GL_UNSIGNED_BYTE,
+                        tile_read_buffer_);
+                gl2.glDisable(gl2.GL_TEXTURE_2D);
+                for (int y = 0; y < part.height; ++y) {
+                    copyBytes(tile_read_buffer_, pixels,
+                            ((part.y - bounds.y + y) * tile.width + part.x - bounds.x) * 4,
+                            ((part.y - region.y + y) * region.width + part.x - region.x) * 4,
+                            part.width * 4);
+                }
+            }
+        }
+        pixels.clear();
+
+        if (useFramebuffer) {
+            gl2.glFramebufferTexture2D(
+                    gl2.GL_FRAMEBUFFER, gl2.GL_COLOR_ATTACHMENT0, gl2.GL_TEXTURE_2D, 0, 0);
+            if (drawFramebuffer == readFramebuffer) {
+                gl2.glBindFramebuffer(gl2.GL_FRAMEBUFFER, drawFramebuffer);
+            } else {
+                gl2.glBindFramebuffer(gl2.GL_DRAW_FRAMEBUFFER, drawFramebuffer);
+                gl2.glBindFramebuffer(gl2.GL_READ_FRAMEBUFFER, readFramebuffer);
+            }
+        }
+
+        // Popups are drawn from a texture of their own, which has to be added on top.
+        readPopupPixels(gl2, region, pixels);
+    }
+
+    /**
+     * Copy the part of the popup widget, if any, that is visible in a region of
+     * the view into BGRA pixels of that region.
+     */
+    @SuppressWarnings("static-access")
+    private void readPopupPixels(GL2 gl2, Rectangle region, ByteBuffer pixels) {
+        if (popup_width_ == 0 || popup_rect_.width <= 0 || popup_rect_.height <= 0) return;
+        Rectangle rect = new Rectangle(popup_rect_.x, popup_rect_.y, popup_width_, popup_height_)
+                                 .intersection(region);
+        if (rect.isEmpty()) return;
+
+        // The whole texture storage is read, which may be larger than the popup.
+        ByteBuffer popup =
+                ByteBuffer.allocateDirect(popup_texture_width_ * popup_texture_height_ * 4);
+        gl2.glEnable(gl2.GL_TEXTURE_2D);
+        gl2.glBindTexture(gl2.GL_TEXTURE_2D, popup_texture_id_[0]);
+        gl2.glGetTexImage(gl2.GL_TEXTURE_2D, 0, pixel_format_, gl2.GL_UNSIGNED_BYTE, popup);
+        gl2.glDisable(gl2.GL_TEXTURE_2D);
+
+        for (int y = 0; y < rect.height; ++y) {
+            copyBytes(popup, pixels,
+                    ((y + rect.y - popup_rect_.y) * popup_texture_width_ + rect.x - popup_rect_.x)
+                            * 4,
+                    ((rect.y - region.y + y) * region.width + rect.x - region.x) * 4,
+                    rect.width * 4);
+        }
+        popup.clear();
+        pixels.clear();
+    }
+
+    private static void copyBytes(
+            ByteBuffer src, ByteBuffer dst, int srcOffset, int dstOffset, int length) {
+        src.limit(srcOffset + length).position(srcOffset);
+        dst.position(dstOffset);
+        dst.put(src);
     }
 
     protected void setSpin(float spinX, float spinY) {
@@ -0,0 +1,91 @@
+// Copyright (c) 2020 The Chromium Embedded Framework Authors. All rights
+// reserved. Use of this source code is governed by a BSD-style license that
+// can be found in the LICENSE file.
+
+package org.cef.browser;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.nio.IntBuffer;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A pending call to CefBrowser.createScreenshotAsync(). Requests are collected
+ * by the browser and served together from a single readback of its content.
+ * Cropping and scaling happen on the common fork join pool so that the thread
+ * doing the readback is not held up.
+ */
+class CefScreenshotRequest {
+    private final Rectangle region_;
+    private final double scale_;
+    private final CompletableFuture<BufferedImage> future_ =
+            new CompletableFuture<BufferedImage>();
+
+    /**
+     * @param region The region to capture in view pixels, or null for the whole view.
+     * @param scale The scale factor, in the range (0, 1].
+     */
+    CefScreenshotRequest(Rectangle region, double scale) {
+        if (region != null && (region.width <= 0 || region.height <= 0))
+            throw new IllegalArgumentException("Empty screenshot region");
+        if (!(scale > 0.0 && scale <= 1.0))
+            throw new IllegalArgumentException("Screenshot scale must be in (0, 1]");
+        region_ = region != null ? new Rectangle(region) : null;
+        scale_ = scale;
+    }
+
+    CompletableFuture<BufferedImage> getFuture() {
+        return future_;
+    }
+
+    /**
+     * Returns the area of the view that has to be read back to serve all requests,
+     * or null if the whole view is needed.
+     */
+    static Rectangle getBounds(List<CefScreenshotRequest> requests) {
+        Rectangle bounds = null;
+        for (CefScreenshotRequest request : requests) {
+            if (request.region_ == null) return null;
+            if (bounds == null)
+                bounds = new Rectangle(request.region_);
+            else
+                bounds.add(request.region_);
+        }
+        return bounds;
+    }
+
+    /**
+     * Complete all requests from the same pixel data.
+     * @param requests The requests to complete.
+     * @param argb ARGB pixels ordered top to bottom, or null if nothing could be read.
+     * @param bounds The area of the view that is covered by the pixel data.
+     */
+    static void completeAll(final List<CefScreenshotRequest> requests, final IntBuffer argb,
+            final Rectangle bounds) {
+        ForkJoinPool.commonPool().execute(new Runnable() {
+            @Override
+            public void run() {
+                for (CefScreenshotRequest request : requests) request.complete(argb, bounds);
+            }
+        });
+    }
+
+    private void complete(IntBuffer argb, Rectangle bounds) {
+        try {
+            Rectangle region =
+                    region_ != null ? region_.intersection(bounds) : new Rectangle(bounds);
+            if (argb == null || region.isEmpty()) {
+                future_.completeExceptionally(
+                        new IllegalStateException("No content in the screenshot region"));
+                return;
+            }
+            region.translate(-bounds.x, -bounds.y);
+            future_.complete(CefImageUtil.toImage(
+                    argb.duplicate(), bounds.width, region, scale_, BufferedImage.TYPE_INT_RGB));
+        } catch (RuntimeException e) {
+            future_.completeExceptionally(e);
+        }
+    }
+}
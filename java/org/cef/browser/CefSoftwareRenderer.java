@@ -0,0 +1,241 @@
+// Copyright (c) 2020 The Chromium Embedded Framework Authors. All rights
+// reserved. Use of this source code is governed by a BSD-style license that
+// can be found in the LICENSE file.
+
+package org.cef.browser;
+
+import org.cef.misc.IntRef;
+
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+
+/**
+ * Applies off-screen rendered paint events to a BufferedImage without using
+ * OpenGL. The BGRA pixels delivered by CEF are premultiplied, so read as
+ * little endian ints they are exactly the pixels of a TYPE_INT_ARGB_PRE image.
+ */
+class CefSoftwareRenderer {
+    private boolean transparent_;
+    private BufferedImage image_ = null;
+    private int[] pixels_ = null;
+    private int view_width_ = 0;
+    private int view_height_ = 0;
+    private Rectangle popup_rect_ = new Rectangle(0, 0, 0, 0);
+    private Rectangle original_popup_rect_ = new Rectangle(0, 0, 0, 0);
+    // Popups are kept in an image of their own and drawn on top of the view.
+    private BufferedImage popup_image_ = null;
+    private int[] popup_pixels_ = null;
+
+    protected CefSoftwareRenderer(boolean transparent) {
+        transparent_ = transparent;
+    }
+
+    protected boolean isTransparent() {
+        return transparent_;
+    }
+
+    protected synchronized int getViewWidth() {
+        return view_width_;
+    }
+
+    protected synchronized int getViewHeight() {
+        return view_height_;
+    }
+
+    protected synchronized void onPopupSize(Rectangle rect) {
+        if (rect.width <= 0 || rect.height <= 0) return;
+        original_popup_rect_ = rect;
+        popup_rect_ = getPopupRectInWebView(original_popup_rect_);
+    }
+
+    protected Rectangle getPopupRectInWebView(Rectangle original_rect) {
+        Rectangle rc = original_rect;
+        // if x or y are negative, move them to 0.
+        if (rc.x < 0) rc.x = 0;
+        if (rc.y < 0) rc.y = 0;
+        // if popup goes outside the view, try to reposition origin
+        if (rc.x + rc.width > view_width_) rc.x = view_width_ - rc.width;
+        if (rc.y + rc.height > view_height_) rc.y = view_height_ - rc.height;
+        // if x or y became negative, move them to 0 again.
+        if (rc.x < 0) rc.x = 0;
+        if (rc.y < 0) rc.y = 0;
+        return rc;
+    }
+
+    protected synchronized void clearPopupRects() {
+        popup_rect_.setBounds(0, 0, 0, 0);
+        original_popup_rect_.setBounds(0, 0, 0, 0);
+        // Don't draw the old popup until the next one is painted.
+        popup_image_ = null;
+        popup_pixels_ = null;
+    }
+
+    /**
+     * Returns the area of the view covered by the popup, or null if no popup is drawn.
+     */
+    protected synchronized Rectangle getPopupBounds() {
+        if (popup_image_ == null || popup_rect_.width <= 0 || popup_rect_.height <= 0)
+            return null;
+        Rectangle bounds = new Rectangle(popup_rect_.x, popup_rect_.y, popup_image_.getWidth(),
+                popup_image_.getHeight());
+        return bounds.intersection(new Rectangle(0, 0, view_width_, view_height_));
+    }
+
+    /**
+     * Copy the dirty rectangles of a paint event into the image.
+     * @return The area of the view that was changed, or null if nothing was changed.
+     */
+    protected synchronized Rectangle onPaint(boolean popup, Rectangle[] dirtyRects,
+            ByteBuffer buffer, int width, int height) {
+        // The buffer is shared with other handlers, so its byte order is left alone.
+        IntBuffer src = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+
+        if (!popup) {
+            if (width != view_width_ || height != view_height_ || image_ == null) {
+                // Resize the image and copy the whole frame.
+                view_width_ = width;
+                view_height_ = height;
+                image_ = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+                pixels_ = ((DataBufferInt) image_.getRaster().getDataBuffer()).getData();
+                src.get(pixels_, 0, width * height);
+                return new Rectangle(0, 0, width, height);
+            }
+
+            Rectangle bounds = null;
+            for (Rectangle rect : dirtyRects) {
+                if (rect.width <= 0 || rect.height <= 0) continue;
+                if (rect.x == 0 && rect.width == view_width_) {
+                    // Full-width rows are contiguous in memory.
+                    int offset = rect.y * view_width_;
+                    src.position(offset);
+                    src.get(pixels_, offset, rect.height * view_width_);
+                } else {
+                    for (int y = rect.y; y < rect.y + rect.height; ++y) {
+                        int offset = y * view_width_ + rect.x;
+                        src.position(offset);
+                        src.get(pixels_, offset, rect.width);
+                    }
+                }
+                if (bounds == null)
+                    bounds = new Rectangle(rect);
+                else
+                    bounds.add(rect);
+            }
+            return bounds;
+        } else if (popup_rect_.width > 0 && popup_rect_.height > 0 && pixels_ != null) {
+            // Showing and hiding the popup leaves the view image alone.
+            if (popup_image_ == null || popup_image_.getWidth() != width
+                    || popup_image_.getHeight() != height) {
+                popup_image_ = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+                popup_pixels_ = ((DataBufferInt) popup_image_.getRaster().getDataBuffer()).getData();
+                src.get(popup_pixels_, 0, width * height);
+                return getPopupBounds();
+            }
+
+            Rectangle bounds = null;
+            for (Rectangle rect : dirtyRects) {
+                if (rect.width <= 0 || rect.height <= 0) continue;
+                for (int y = rect.y; y < rect.y + rect.height; ++y) {
+                    src.position(y * width + rect.x);
+                    src.get(popup_pixels_, y * width + rect.x, rect.width);
+                }
+                if (bounds == null)
+                    bounds = new Rectangle(rect);
+                else
+                    bounds.add(rect);
+            }
+            if (bounds == null) return null;
+            bounds.translate(popup_rect_.x, popup_rect_.y);
+            bounds = bounds.intersection(new Rectangle(0, 0, view_width_, view_height_));
+            return bounds.isEmpty() ? null : bounds;
+        }
+        return null;
+    }
+
+    /**
+     * Draw the current content scaled to the given size.
+     */
+    protected synchronized void render(Graphics g, int width, int height) {
+        if (image_ == null) return;
+        g.drawImage(image_, 0, 0, width, height, null);
+        Rectangle popup = getPopupBounds();
+        if (popup != null) {
+            // Draw the popup scaled and clipped like the view.
+            double scaleX = (double) width / view_width_;
+            double scaleY = (double) height / view_height_;
+            Graphics clip = g.create(0, 0, width, height);
+            clip.drawImage(popup_image_, (int) Math.round(popup_rect_.x * scaleX),
+                    (int) Math.round(popup_rect_.y * scaleY),
+                    (int) Math.round(popup_image_.getWidth() * scaleX),
+                    (int) Math.round(popup_image_.getHeight() * scaleY), null);
+            clip.dispose();
+        }
+    }
+
+    /**
+     * Copy a region of the view and the popup on top of it into |dst|, which has a
+     * stride of bounds.width.
+     */
+    private void copyPixels(Rectangle bounds, int[] dst) {
+        for (int y = 0; y < bounds.height; ++y) {
+            System.arraycopy(pixels_, (bounds.y + y) * view_width_ + bounds.x, dst,
+                    y * bounds.width, bounds.width);
+        }
+        Rectangle popup = getPopupBounds();
+        if (popup == null) return;
+        popup = popup.intersection(bounds);
+        final int popupWidth = popup_image_.getWidth();
+        for (int y = popup.y; y < popup.y + popup.height; ++y) {
+            System.arraycopy(popup_pixels_,
+                    (y - popup_rect_.y) * popupWidth + popup.x - popup_rect_.x, dst,
+                    (y - bounds.y) * bounds.width + popup.x - bounds.x, popup.width);
+        }
+    }
+
+    /**
+     * Returns a copy of the current content, or null if nothing was painted yet.
+     */
+    protected synchronized BufferedImage createScreenshot() {
+        if (image_ == null) return null;
+        BufferedImage copy =
+                new BufferedImage(view_width_, view_height_, BufferedImage.TYPE_INT_ARGB_PRE);
+        copyPixels(new Rectangle(0, 0, view_width_, view_height_),
+                ((DataBufferInt) copy.getRaster().getDataBuffer()).getData());
+        return copy;
+    }
+
+    /**
+     * Returns a copy of the current content as BGRA pixels, or null if nothing was
+     * painted yet.
+     */
+    protected synchronized ByteBuffer createScreenshotBuffer(IntRef width, IntRef height) {
+        if (image_ == null) return null;
+        int[] copy = new int[view_width_ * view_height_];
+        copyPixels(new Rectangle(0, 0, view_width_, view_height_), copy);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(copy.length * 4);
+        buffer.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().put(copy);
+        width.set(view_width_);
+        height.set(view_height_);
+        return buffer;
+    }
+
+    /**
+     * Returns a copy of a region of the current content as ARGB pixels, or null if
+     * nothing was painted yet.
+     * @param region The region to copy, or null for the whole view.
+     * @param bounds Receives the region that was copied.
+     */
+    protected synchronized IntBuffer copyRegion(Rectangle region, Rectangle bounds) {
+        bounds.setBounds(0, 0, view_width_, view_height_);
+        if (region != null) bounds.setBounds(bounds.intersection(region));
+        if (image_ == null || bounds.isEmpty()) return null;
+        int[] copy = new int[bounds.width * bounds.height];
+        copyPixels(bounds, copy);
+        return IntBuffer.wrap(copy);
+    }
+}
@@ -0,0 +1,192 @@
+// Copyright (c) 2020 The Chromium Embedded Framework Authors. All rights
+// reserved. Use of this source code is governed by a BSD-style license that
+// can be found in the LICENSE file.
+
+package org.cef.browser;
+
+import com.jogamp.opengl.GL2;
+import com.jogamp.opengl.GLAutoDrawable;
+import com.jogamp.opengl.GLCapabilities;
+import com.jogamp.opengl.GLDrawableFactory;
+import com.jogamp.opengl.GLException;
+import com.jogamp.opengl.GLProfile;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hands out view textures of CefRenderer. Texture storage is allocated in size
+ * classes, rounded up to a multiple of SIZE_STEP pixels in each direction, so
+ * that resizing a browser by a few pixels does not reallocate its texture. On
+ * contexts without non-power-of-2 textures the size classes are powers of 2.
+ * Released textures are kept for reuse by the next browser of the same size
+ * class, up to a total of MAX_FREE_BYTES.
+ *
+ * A pool can be private to one renderer, or shared by all renderers whose GL
+ * contexts share objects with the context of getSharedDrawable(). All methods
+ * must be called with a GL context of the pool current.
+ */
+class CefTexturePool {
+    private static final int SIZE_STEP = 256;
+    private static final long MAX_FREE_BYTES = 64L * 1024 * 1024;
+
+    private static CefTexturePool shared_ = null;
+
+    /**
+     * A texture handed out by the pool.
+     */
+    static final class Texture {
+        final int id;
+        final int width;
+        final int height;
+
+        private Texture(int id, int width, int height) {
+            this.id = id;
+            this.width = width;
+            this.height = height;
+        }
+    }
+
+    private final GLAutoDrawable sharedDrawable_;
+    private final Map<Long, List<Texture>> free_ = new HashMap<Long, List<Texture>>();
+    private long freeBytes_ = 0;
+    private int maxTextureSize_ = 0;
+    private boolean powerOfTwo_ = false;
+
+    CefTexturePool() {
+        this(null);
+    }
+
+    private CefTexturePool(GLAutoDrawable sharedDrawable) {
+        sharedDrawable_ = sharedDrawable;
+    }
+
+    /**
+     * Returns the pool shared by all browsers, or null if no context could be
+     * created to share textures with.
+     */
+    static synchronized CefTexturePool getShared(GLProfile profile) {
+        if (shared_ == null) {
+            try {
+                GLAutoDrawable drawable =
+                        GLDrawableFactory.getFactory(profile).createDummyAutoDrawable(
+                                null, true, new GLCapabilities(profile), null);
+                // Realize the context that the contexts of all browsers will share.
+                drawable.display();
+                shared_ = new CefTexturePool(drawable);
+            } catch (GLException e) {
+                System.out.println("textures can't be shared between browsers: " + e);
+                return null;
+            }
+        }
+        return shared_;
+    }
+
+    /**
+     * Returns the drawable whose context must be shared by the contexts using
+     * this pool, or null for a private pool.
+     */
+    GLAutoDrawable getSharedDrawable() {
+        return sharedDrawable_;
+    }
+
+    /**
+     * Allocate textures acquired from now on with power-of-2 sizes.
+     */
+    synchronized void setPowerOfTwo() {
+        powerOfTwo_ = true;
+    }
+
+    /**
+     * Returns a texture with storage of at least the given size. The content of
+     * the texture is undefined.
+     */
+    @SuppressWarnings("static-access")
+    synchronized Texture acquire(GL2 gl2, int width, int height) {
+        if (maxTextureSize_ == 0) {
+            int[] value = new int[1];
+            gl2.glGetIntegerv(gl2.GL_MAX_TEXTURE_SIZE, value, 0);
+            maxTextureSize_ = value[0] > 0 ? value[0] : Integer.MAX_VALUE;
+        }
+        final int classWidth = getSizeClass(width);
+        final int classHeight = getSizeClass(height);
+
+        List<Texture> textures = free_.get(getKey(classWidth, classHeight));
+        if (textures != null && !textures.isEmpty()) {
+            Texture texture = textures.remove(textures.size() - 1);
+            freeBytes_ -= getBytes(texture);
+            return texture;
+        }
+
+        int[] id = new int[1];
+        CefRenderer.createTexture(gl2, id);
+        gl2.glTexImage2D(gl2.GL_TEXTURE_2D, 0, gl2.GL_RGBA, classWidth, classHeight, 0,
+                gl2.GL_BGRA, gl2.GL_UNSIGNED_BYTE, null);
+        return new Texture(id[0], classWidth, classHeight);
+    }
+
+    /**
+     * Return a texture to the pool.
+     */
+    synchronized void release(GL2 gl2, Texture texture) {
+        if (freeBytes_ + getBytes(texture) > MAX_FREE_BYTES) {
+            gl2.glDeleteTextures(1, new int[] {texture.id}, 0);
+            return;
+        }
+        Long key = getKey(texture.width, texture.height);
+        List<Texture> textures = free_.get(key);
+        if (textures == null) {
+            textures = new ArrayList<Texture>();
+            free_.put(key, textures);
+        }
+        textures.add(texture);
+        freeBytes_ += getBytes(texture);
+    }
+
+    /**
+     * Delete all textures kept for reuse.
+     */
+    synchronized void clear(GL2 gl2) {
+        for (List<Texture> textures : free_.values()) {
+            for (Texture texture : textures) gl2.glDeleteTextures(1, new int[] {texture.id}, 0);
+        }
+        free_.clear();
+        freeBytes_ = 0;
+    }
+
+    /**
+     * Returns true if a texture may keep being used for content of the given size.
+     * Textures are replaced when they are too small or when their size class is
+     * more than twice the size class of the content.
+     */
+    synchronized boolean fits(Texture texture, int width, int height) {
+        if (width > texture.width || height > texture.height) return false;
+        return (long) getSizeClass(width) * getSizeClass(height) * 2
+                >= (long) texture.width * texture.height;
+    }
+
+    private int getSizeClass(int size) {
+        // Sizes up to the maximum texture size, which is a power of 2 itself.
+        if (powerOfTwo_) return getPowerOfTwo(size);
+        int sizeClass = (size + SIZE_STEP - 1) / SIZE_STEP * SIZE_STEP;
+        // Fall back to the exact size if the size class exceeds the GL limits.
+        return sizeClass <= maxTextureSize_ || maxTextureSize_ == 0 ? sizeClass : size;
+    }
+
+    /**
+     * Returns the smallest power of 2 that is not smaller than |size|.
+     */
+    static int getPowerOfTwo(int size) {
+        return size > 1 ? Integer.highestOneBit(size - 1) << 1 : 1;
+    }
+
+    private static Long getKey(int width, int height) {
+        return ((long) width << 32) | height;
+    }
+
+    private static long getBytes(Texture texture) {
+        return (long) texture.width * texture.height * 4;
+    }
+}
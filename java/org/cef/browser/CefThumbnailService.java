@@ -0,0 +1,295 @@
+// Copyright (c) 2020 The Chromium Embedded Framework Authors. All rights
+// reserved. Use of this source code is governed by a BSD-style license that
+// can be found in the LICENSE file.
+
+package org.cef.browser;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps downscaled copies of off-screen rendered browsers up to date, e.g. for
+ * showing live thumbnails of many browsers. Each thumbnail is fed by the
+ * CefFrameRing of its browser. Whenever frames are written to the ring, the
+ * regions they changed are rescaled on a worker pool; the rest of the
+ * thumbnail is left alone. If frames were overwritten in the ring before the
+ * thumbnail saw them, the whole thumbnail is rescaled.
+ *
+ * Views are scaled down by the smallest power of two that fits the maximum
+ * thumbnail size, averaging each block of view pixels (box filter).
+ */
+public class CefThumbnailService {
+    /**
+     * Notified when a thumbnail changed.
+     */
+    public interface Listener {
+        /**
+         * Called on a worker thread after a thumbnail was updated.
+         * @param thumbnail The thumbnail.
+         * @param region The changed region, in thumbnail pixels.
+         */
+        void onThumbnailChanged(Thumbnail thumbnail, Rectangle region);
+    }
+
+    /**
+     * The thumbnail of one browser.
+     */
+    public final class Thumbnail {
+        private final CefFrameRing ring_;
+        private final AtomicBoolean scheduled_ = new AtomicBoolean(false);
+        private BufferedImage image_ = null;
+        private int[] pixels_ = null;
+        private int scale_ = 1;
+        private int viewWidth_ = 0;
+        private int viewHeight_ = 0;
+        private long sequence_ = 0;
+        private volatile boolean removed_ = false;
+
+        // Run by the ring on the writing thread.
+        private final Runnable frameListener_ = new Runnable() {
+            @Override
+            public void run() {
+                schedule();
+            }
+        };
+
+        private Thumbnail(CefFrameRing ring) {
+            ring_ = ring;
+        }
+
+        /**
+         * Returns the thumbnail image. The image is reused for all updates until
+         * the size of the view changes. The image is updated with the monitor of
+         * this thumbnail held; synchronize on the thumbnail while reading it.
+         * @return The image, or null if no frame was painted yet.
+         */
+        public synchronized BufferedImage getImage() {
+            return image_;
+        }
+
+        /**
+         * Returns the factor by which the view is scaled down.
+         */
+        public synchronized int getScale() {
+            return scale_;
+        }
+
+        /**
+         * Returns the sequence number of the frame shown by the thumbnail.
+         */
+        public synchronized long getSequence() {
+            return sequence_;
+        }
+
+        private void schedule() {
+            if (!removed_ && scheduled_.compareAndSet(false, true)) {
+                executor_.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        scheduled_.set(false);
+                        update();
+                    }
+                });
+            }
+        }
+
+        /**
+         * Rescale the regions changed by all frames that were written since the
+         * last update.
+         */
+        private void update() {
+            List<Rectangle> dirty = new ArrayList<Rectangle>();
+            boolean full = false;
+            CefFrameRing.Frame latest = null;
+            long sequence;
+            synchronized (this) {
+                sequence = sequence_;
+            }
+            try {
+                while (!removed_) {
+                    CefFrameRing.Frame frame = ring_.claim(sequence, 0, TimeUnit.MILLISECONDS);
+                    if (frame == null) break;
+                    if (frame.getSequence() != sequence + 1) full = true;
+                    for (Rectangle rect : frame.getDirtyRects()) dirty.add(rect);
+                    // Only the newest frame is needed, it is a complete copy of the view.
+                    if (latest != null) ring_.release(latest);
+                    latest = frame;
+                    sequence = frame.getSequence();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (latest == null) return;
+
+            Rectangle changed;
+            try {
+                synchronized (this) {
+                    changed = scale(latest, full, dirty);
+                    sequence_ = latest.getSequence();
+                }
+            } finally {
+                ring_.release(latest);
+            }
+            if (changed != null && !changed.isEmpty()) {
+                for (Listener listener : listeners_) listener.onThumbnailChanged(this, changed);
+            }
+        }
+
+        /**
+         * Rescale the given regions of |frame| into the image. Returns the changed
+         * region of the image.
+         */
+        private Rectangle scale(CefFrameRing.Frame frame, boolean full, List<Rectangle> dirty) {
+            final int width = frame.getWidth();
+            final int height = frame.getHeight();
+            if (width <= 0 || height <= 0) return null;
+            if (image_ == null || width != viewWidth_ || height != viewHeight_) {
+                viewWidth_ = width;
+                viewHeight_ = height;
+                scale_ = getScaleFor(width, height);
+                image_ = new BufferedImage((width + scale_ - 1) / scale_,
+                        (height + scale_ - 1) / scale_, BufferedImage.TYPE_INT_ARGB_PRE);
+                pixels_ = ((DataBufferInt) image_.getRaster().getDataBuffer()).getData();
+                full = true;
+            }
+
+            final IntBuffer src = frame.getBuffer().asIntBuffer();
+            final Rectangle bounds = new Rectangle(0, 0, image_.getWidth(), image_.getHeight());
+            if (full) {
+                scaleRegion(src, bounds);
+                return bounds;
+            }
+            Rectangle changed = null;
+            for (Rectangle rect : dirty) {
+                // Round out to whole blocks of view pixels.
+                int left = rect.x / scale_;
+                int top = rect.y / scale_;
+                int right = (rect.x + rect.width + scale_ - 1) / scale_;
+                int bottom = (rect.y + rect.height + scale_ - 1) / scale_;
+                Rectangle region =
+                        new Rectangle(left, top, right - left, bottom - top).intersection(bounds);
+                if (region.isEmpty()) continue;
+                scaleRegion(src, region);
+                changed = changed == null ? region : changed.union(region);
+            }
+            return changed;
+        }
+
+        /**
+         * Average the view pixels of each image pixel in |region|. Pixels are
+         * premultiplied, so the channels can be averaged independently.
+         */
+        private void scaleRegion(IntBuffer src, Rectangle region) {
+            final int imageWidth = image_.getWidth();
+            for (int y = region.y; y < region.y + region.height; ++y) {
+                final int top = y * scale_;
+                final int bottom = Math.min(top + scale_, viewHeight_);
+                for (int x = region.x; x < region.x + region.width; ++x) {
+                    final int left = x * scale_;
+                    final int right = Math.min(left + scale_, viewWidth_);
+                    int a = 0, r = 0, g = 0, b = 0;
+                    for (int sy = top; sy < bottom; ++sy) {
+                        int offset = sy * viewWidth_;
+                        for (int sx = left; sx < right; ++sx) {
+                            int pixel = src.get(offset + sx);
+                            a += pixel >>> 24;
+                            r += (pixel >> 16) & 0xff;
+                            g += (pixel >> 8) & 0xff;
+                            b += pixel & 0xff;
+                        }
+                    }
+                    final int count = (bottom - top) * (right - left);
+                    pixels_[y * imageWidth + x] =
+                            (a / count) << 24 | (r / count) << 16 | (g / count) << 8 | b / count;
+                }
+            }
+        }
+    }
+
+    private final int maxWidth_;
+    private final int maxHeight_;
+    private final Executor executor_;
+    private final List<Listener> listeners_ = new CopyOnWriteArrayList<Listener>();
+
+    /**
+     * Create a service that scales on the common fork-join pool.
+     * @param maxWidth The maximum width of a thumbnail.
+     * @param maxHeight The maximum height of a thumbnail.
+     */
+    public CefThumbnailService(int maxWidth, int maxHeight) {
+        this(maxWidth, maxHeight, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param maxWidth The maximum width of a thumbnail.
+     * @param maxHeight The maximum height of a thumbnail.
+     * @param executor The executor to scale thumbnails on.
+     */
+    public CefThumbnailService(int maxWidth, int maxHeight, Executor executor) {
+        if (maxWidth < 1 || maxHeight < 1) {
+            throw new IllegalArgumentException("thumbnail size must be positive");
+        }
+        maxWidth_ = maxWidth;
+        maxHeight_ = maxHeight;
+        executor_ = executor;
+    }
+
+    /**
+     * Start keeping a thumbnail of a browser.
+     * @param browser An off-screen rendered browser with a frame ring, see
+     *         CefBrowser.getFrameRing().
+     */
+    public Thumbnail add(CefBrowser browser) {
+        CefFrameRing ring = browser.getFrameRing();
+        if (ring == null) throw new IllegalArgumentException("browser has no frame ring");
+        return add(ring);
+    }
+
+    /**
+     * Start keeping a thumbnail of the frames written to a ring.
+     */
+    public Thumbnail add(CefFrameRing ring) {
+        Thumbnail thumbnail = new Thumbnail(ring);
+        ring.addFrameListener(thumbnail.frameListener_);
+        // Pick up frames that were written before.
+        thumbnail.schedule();
+        return thumbnail;
+    }
+
+    /**
+     * Stop updating a thumbnail.
+     */
+    public void remove(Thumbnail thumbnail) {
+        thumbnail.removed_ = true;
+        thumbnail.ring_.removeFrameListener(thumbnail.frameListener_);
+    }
+
+    public void addListener(Listener listener) {
+        listeners_.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners_.remove(listener);
+    }
+
+    /**
+     * Returns the smallest power of two by which a view of the given size has to
+     * be divided to fit the maximum thumbnail size.
+     */
+    private int getScaleFor(int width, int height) {
+        int scale = 1;
+        while ((width + scale - 1) / scale > maxWidth_ || (height + scale - 1) / scale > maxHeight_) {
+            scale *= 2;
+        }
+        return scale;
+    }
+}
@@ -56,6 +56,30 @@ public interface CefRenderHandler {
     public void onPaint(CefBrowser browser, boolean popup, Rectangle[] dirtyRects,
             ByteBuffer buffer, int width, int height);
 
+    /**
+     * Handle painting without allocating objects. This is the method called by the
+     * native code; by default it converts the dirty regions and forwards them to
+     * the method above. The array and the buffer are reused for all paints of the
+     * browser and must not be used after this method returns.
+     * @param browser The browser generating the event.
+     * @param popup True if painting a popup window.
+     * @param dirtyRects Dirty regions packed as (x, y, width, height). The array
+     *         may be larger than needed.
+     * @param dirtyRectCount The number of dirty regions in |dirtyRects|.
+     * @param buffer Pixel buffer for the whole window.
+     * @param width Width of the buffer.
+     * @param height Height of the buffer.
+     */
+    public default void onPaint(CefBrowser browser, boolean popup, int[] dirtyRects,
+            int dirtyRectCount, ByteBuffer buffer, int width, int height) {
+        Rectangle[] rects = new Rectangle[dirtyRectCount];
+        for (int i = 0; i < dirtyRectCount; ++i) {
+            rects[i] = new Rectangle(dirtyRects[i * 4], dirtyRects[i * 4 + 1],
+                    dirtyRects[i * 4 + 2], dirtyRects[i * 4 + 3]);
+        }
+        onPaint(browser, popup, rects, buffer, width, height);
+    }
+
     /**
      * Handle cursor changes.
      * @param browser The browser generating the event.
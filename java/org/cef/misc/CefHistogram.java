@@ -0,0 +1,63 @@
+// Copyright (c) 2020 The Chromium Embedded Framework Authors. All rights
+// reserved. Use of this source code is governed by a BSD-style license that
+// can be found in the LICENSE file.
+
+package org.cef.misc;
+
+/**
+ * A histogram with power of two buckets. Bucket 0 counts the value 0, bucket
+ * i counts values from 2^(i-1) to 2^i - 1.
+ */
+public class CefHistogram {
+    private static final int BUCKET_COUNT = 32;
+
+    private final long[] buckets_ = new long[BUCKET_COUNT];
+    private long count_ = 0;
+    private long sum_ = 0;
+    private long max_ = 0;
+
+    public synchronized void record(long value) {
+        if (value < 0) value = 0;
+        int bucket = Math.min(64 - Long.numberOfLeadingZeros(value), BUCKET_COUNT - 1);
+        buckets_[bucket]++;
+        count_++;
+        sum_ += value;
+        if (value > max_) max_ = value;
+    }
+
+    public synchronized void reset() {
+        for (int i = 0; i < BUCKET_COUNT; ++i) buckets_[i] = 0;
+        count_ = 0;
+        sum_ = 0;
+        max_ = 0;
+    }
+
+    public synchronized long getCount() {
+        return count_;
+    }
+
+    public synchronized double getMean() {
+        return count_ > 0 ? (double) sum_ / count_ : 0;
+    }
+
+    public synchronized long getMax() {
+        return max_;
+    }
+
+    /**
+     * Returns an upper bound of the given percentile, e.g. 0.99 for the 99th
+     * percentile.
+     */
+    public synchronized long getPercentile(double percentile) {
+        long remaining = (long) Math.ceil(percentile * count_);
+        for (int i = 0; i < BUCKET_COUNT; ++i) {
+            remaining -= buckets_[i];
+            if (remaining <= 0) return Math.min(i == 0 ? 0 : (1L << i) - 1, max_);
+        }
+        return max_;
+    }
+
+    public synchronized long[] getBuckets() {
+        return buckets_.clone();
+    }
+}
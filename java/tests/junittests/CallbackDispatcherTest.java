@@ -0,0 +1,132 @@
+// Copyright (c) 2020 The Chromium Embedded Framework Authors. All rights
+// reserved. Use of this source code is governed by a BSD-style license that
+// can be found in the LICENSE file.
+
+package tests.junittests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.cef.CefClient.CallbackCategory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+// Test the callback dispatcher behind CefClient.setCallbackExecutor. The
+// dispatcher is package private and accessed by reflection. Does not require
+// CEF.
+class CallbackDispatcherTest {
+    // Collects the tasks passed to it until they are run explicitly.
+    private static class ManualExecutor implements Executor {
+        private final List<Runnable> tasks_ = new ArrayList<Runnable>();
+
+        @Override
+        public void execute(Runnable task) {
+            tasks_.add(task);
+        }
+
+        int size() {
+            return tasks_.size();
+        }
+
+        void runAll() {
+            while (!tasks_.isEmpty()) tasks_.remove(0).run();
+        }
+    }
+
+    private Object dispatcher_;
+    private Method setExecutor_;
+    private Method dispatch_;
+    private final List<String> calls_ = new ArrayList<String>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Class<?> cls = Class.forName("org.cef.CefCallbackDispatcher");
+        Constructor<?> constructor = cls.getDeclaredConstructor();
+        constructor.setAccessible(true);
+        dispatcher_ = constructor.newInstance();
+        setExecutor_ = cls.getDeclaredMethod("setExecutor", CallbackCategory.class, Executor.class);
+        setExecutor_.setAccessible(true);
+        dispatch_ = cls.getDeclaredMethod(
+                "dispatch", CallbackCategory.class, int.class, Runnable.class);
+        dispatch_.setAccessible(true);
+    }
+
+    private void setExecutor(CallbackCategory category, Executor executor) throws Exception {
+        setExecutor_.invoke(dispatcher_, category, executor);
+    }
+
+    private void dispatch(CallbackCategory category, int browser, final String name)
+            throws Exception {
+        try {
+            dispatch_.invoke(dispatcher_, category, browser, new Runnable() {
+                @Override
+                public void run() {
+                    calls_.add(name);
+                }
+            });
+        } catch (InvocationTargetException e) {
+            throw (Exception) e.getCause();
+        }
+    }
+
+    @Test
+    void otherCategoryKeepsQueue() throws Exception {
+        ManualExecutor display = new ManualExecutor();
+        setExecutor(CallbackCategory.DISPLAY, display);
+        dispatch(CallbackCategory.DISPLAY, 1, "a");
+
+        // Changing another category must not start a second queue for the browser.
+        setExecutor(CallbackCategory.LOAD, new ManualExecutor());
+        dispatch(CallbackCategory.DISPLAY, 1, "b");
+        assertEquals(1, display.size());
+
+        display.runAll();
+        assertEquals("[a, b]", calls_.toString());
+    }
+
+    @Test
+    void runningQueueDrainsOnPreviousExecutor() throws Exception {
+        ManualExecutor first = new ManualExecutor();
+        ManualExecutor second = new ManualExecutor();
+        setExecutor(CallbackCategory.DISPLAY, first);
+        dispatch(CallbackCategory.DISPLAY, 1, "a");
+
+        setExecutor(CallbackCategory.DISPLAY, second);
+        dispatch(CallbackCategory.DISPLAY, 1, "b");
+        assertEquals(1, first.size());
+        assertEquals(0, second.size());
+
+        first.runAll();
+        assertEquals("[a, b]", calls_.toString());
+
+        // The idle queue uses the new executor.
+        dispatch(CallbackCategory.DISPLAY, 1, "c");
+        assertEquals(0, first.size());
+        assertEquals(1, second.size());
+        second.runAll();
+        assertEquals("[a, b, c]", calls_.toString());
+    }
+
+    @Test
+    void synchronousAfterQueueDrained() throws Exception {
+        ManualExecutor executor = new ManualExecutor();
+        setExecutor(CallbackCategory.DISPLAY, executor);
+        dispatch(CallbackCategory.DISPLAY, 1, "a");
+
+        setExecutor(CallbackCategory.DISPLAY, null);
+        // Still behind "a", which is queued.
+        dispatch(CallbackCategory.DISPLAY, 1, "b");
+        assertEquals("[]", calls_.toString());
+
+        executor.runAll();
+        dispatch(CallbackCategory.DISPLAY, 1, "c");
+        assertEquals("[a, b, c]", calls_.toString());
+        assertEquals(0, executor.size());
+    }
+}
@@ -0,0 +1,86 @@
+// Copyright (c) 2020 The Chromium Embedded Framework Authors. All rights
+// reserved. Use of this source code is governed by a BSD-style license that
+// can be found in the LICENSE file.
+
+package tests.junittests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.cef.browser.CefDirtyRectCoalescer;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Rectangle;
+
+// Test the CefDirtyRectCoalescer implementation. Does not require CEF.
+class DirtyRectCoalescerTest {
+    @Test
+    void singleRectUnchanged() {
+        CefDirtyRectCoalescer coalescer = new CefDirtyRectCoalescer(0.25, 16);
+        Rectangle[] rects = {new Rectangle(10, 10, 20, 20)};
+        assertSame(rects, coalescer.coalesce(rects, 100, 100));
+    }
+
+    @Test
+    void mergeTouching() {
+        CefDirtyRectCoalescer coalescer = new CefDirtyRectCoalescer(0.0, 16);
+        Rectangle[] result = coalescer.coalesce(
+                new Rectangle[] {new Rectangle(0, 0, 10, 10), new Rectangle(10, 0, 10, 10)}, 100,
+                100);
+        assertEquals(1, result.length);
+        assertEquals(new Rectangle(0, 0, 20, 10), result[0]);
+    }
+
+    @Test
+    void mergeOverlapping() {
+        CefDirtyRectCoalescer coalescer = new CefDirtyRectCoalescer(0.0, 16);
+        Rectangle[] result = coalescer.coalesce(
+                new Rectangle[] {new Rectangle(0, 0, 10, 10), new Rectangle(0, 0, 10, 10)}, 100,
+                100);
+        assertEquals(1, result.length);
+        assertEquals(new Rectangle(0, 0, 10, 10), result[0]);
+    }
+
+    @Test
+    void keepDistant() {
+        CefDirtyRectCoalescer coalescer = new CefDirtyRectCoalescer(0.25, 16);
+        Rectangle[] result = coalescer.coalesce(
+                new Rectangle[] {new Rectangle(0, 0, 10, 10), new Rectangle(80, 80, 10, 10)}, 100,
+                100);
+        assertEquals(2, result.length);
+    }
+
+    @Test
+    void mergeTransitively() {
+        // The first two rectangles only become mergeable with the third one after
+        // they have been merged with each other.
+        CefDirtyRectCoalescer coalescer = new CefDirtyRectCoalescer(0.0, 16);
+        Rectangle[] result = coalescer.coalesce(
+                new Rectangle[] {new Rectangle(0, 0, 10, 10), new Rectangle(10, 0, 10, 10),
+                        new Rectangle(0, 10, 20, 10)},
+                100, 100);
+        assertEquals(1, result.length);
+        assertEquals(new Rectangle(0, 0, 20, 20), result[0]);
+    }
+
+    @Test
+    void clipAndDropEmpty() {
+        CefDirtyRectCoalescer coalescer = new CefDirtyRectCoalescer(0.0, 16);
+        Rectangle[] result = coalescer.coalesce(
+                new Rectangle[] {new Rectangle(-5, 90, 20, 20), new Rectangle(50, 50, 0, 10)}, 100,
+                100);
+        assertEquals(1, result.length);
+        assertEquals(new Rectangle(0, 90, 15, 10), result[0]);
+    }
+
+    @Test
+    void collapseToFullFrame() {
+        CefDirtyRectCoalescer coalescer = new CefDirtyRectCoalescer(0.0, 2);
+        Rectangle[] result = coalescer.coalesce(
+                new Rectangle[] {new Rectangle(0, 0, 1, 1), new Rectangle(50, 50, 1, 1),
+                        new Rectangle(90, 90, 1, 1)},
+                100, 100);
+        assertEquals(1, result.length);
+        assertEquals(new Rectangle(0, 0, 100, 100), result[0]);
+    }
+}
@@ -0,0 +1,111 @@
+// Copyright (c) 2020 The Chromium Embedded Framework Authors. All rights
+// reserved. Use of this source code is governed by a BSD-style license that
+// can be found in the LICENSE file.
+
+package tests.junittests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.cef.browser.CefFrameDiff;
+import org.cef.browser.CefFrameRing;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Rectangle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+
+// Test the CefFrameDiff implementation. Does not require CEF.
+class FrameDiffTest {
+    private static final int WIDTH = 10;
+    private static final int HEIGHT = 8;
+    private static final Rectangle FULL = new Rectangle(0, 0, WIDTH, HEIGHT);
+
+    private static void fill(ByteBuffer view, Rectangle rect, int value) {
+        IntBuffer pixels = view.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        for (int y = rect.y; y < rect.y + rect.height; ++y) {
+            for (int x = rect.x; x < rect.x + rect.width; ++x) pixels.put(y * WIDTH + x, value);
+        }
+    }
+
+    @Test
+    void firstCheckpointReturnsAllTiles() throws InterruptedException {
+        CefFrameRing ring = new CefFrameRing(2);
+        CefFrameDiff diff = new CefFrameDiff(ring, 4, false);
+        assertNull(diff.checkpoint());
+
+        ByteBuffer view = ByteBuffer.allocateDirect(WIDTH * HEIGHT * 4);
+        fill(view, FULL, 7);
+        ring.write(new Rectangle[] {FULL}, view, WIDTH, HEIGHT);
+
+        assertTrue(diff.hasChanged());
+        CefFrameDiff.Changes changes = diff.checkpoint();
+        // 3 columns (the last one 2 pixels wide) and 2 rows.
+        assertEquals(6, changes.getTiles().size());
+        CefFrameDiff.Tile last = changes.getTiles().get(5);
+        assertEquals(new Rectangle(8, 4, 2, 4),
+                new Rectangle(last.getX(), last.getY(), last.getWidth(), last.getHeight()));
+        assertEquals(7, last.getBuffer().getInt(0));
+        assertFalse(diff.hasChanged());
+    }
+
+    @Test
+    void onlyRepaintedTilesAreReturned() throws InterruptedException {
+        CefFrameRing ring = new CefFrameRing(2);
+        CefFrameDiff diff = new CefFrameDiff(ring, 4, false);
+        ByteBuffer view = ByteBuffer.allocateDirect(WIDTH * HEIGHT * 4);
+        ring.write(new Rectangle[] {FULL}, view, WIDTH, HEIGHT);
+        diff.checkpoint();
+
+        Rectangle dirty = new Rectangle(3, 3, 2, 2);
+        fill(view, dirty, 1);
+        ring.write(new Rectangle[] {dirty}, view, WIDTH, HEIGHT);
+        assertEquals(new Rectangle(0, 0, 8, 8), diff.getDirtyBounds());
+        assertEquals(4, diff.checkpoint().getTiles().size());
+    }
+
+    @Test
+    void hashingDropsNoOpRepaints() throws InterruptedException {
+        CefFrameRing ring = new CefFrameRing(2);
+        CefFrameDiff diff = new CefFrameDiff(ring, 4, true);
+        ByteBuffer view = ByteBuffer.allocateDirect(WIDTH * HEIGHT * 4);
+        ring.write(new Rectangle[] {FULL}, view, WIDTH, HEIGHT);
+        diff.checkpoint();
+
+        // Repaint without changing anything.
+        ring.write(new Rectangle[] {FULL}, view, WIDTH, HEIGHT);
+        assertTrue(diff.hasChanged());
+        assertEquals(0, diff.checkpoint().getTiles().size());
+
+        fill(view, new Rectangle(9, 7, 1, 1), 1);
+        ring.write(new Rectangle[] {FULL}, view, WIDTH, HEIGHT);
+        CefFrameDiff.Changes changes = diff.checkpoint();
+        assertEquals(1, changes.getTiles().size());
+        assertEquals(8, changes.getTiles().get(0).getX());
+        assertEquals(3, changes.getSequence());
+    }
+
+    @Test
+    void writeDoesNotWaitForCheckpoint() throws InterruptedException {
+        final CefFrameRing ring = new CefFrameRing(2);
+        CefFrameDiff diff = new CefFrameDiff(ring, 4, true);
+        final ByteBuffer view = ByteBuffer.allocateDirect(WIDTH * HEIGHT * 4);
+        Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                ring.write(new Rectangle[] {FULL}, view, WIDTH, HEIGHT);
+            }
+        });
+
+        // checkpoint() hashes and copies tiles while holding the monitor of the diff.
+        synchronized (diff) {
+            writer.start();
+            writer.join(5000);
+            assertFalse(writer.isAlive());
+        }
+        assertTrue(diff.hasChanged());
+    }
+}
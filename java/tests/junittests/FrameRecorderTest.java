@@ -0,0 +1,71 @@
+// Copyright (c) 2020 The Chromium Embedded Framework Authors. All rights
+// reserved. Use of this source code is governed by a BSD-style license that
+// can be found in the LICENSE file.
+
+package tests.junittests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.cef.browser.CefFrameRecorder;
+import org.cef.browser.CefFrameRing;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.awt.Rectangle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Test the CefFrameRecorder implementation. Does not require CEF.
+class FrameRecorderTest {
+    private static final int WIDTH = 16;
+    private static final int HEIGHT = 8;
+
+    private static void record(CefFrameRecorder recorder, CefFrameRing ring) throws Exception {
+        ByteBuffer view = ByteBuffer.allocateDirect(WIDTH * HEIGHT * 4);
+        recorder.start();
+        ring.write(new Rectangle[] {new Rectangle(0, 0, WIDTH, HEIGHT)}, view, WIDTH, HEIGHT);
+        while (recorder.getRecordedFrameCount() < 3) Thread.sleep(10);
+        recorder.stop();
+        assertEquals(1, recorder.getEncodedFrameCount());
+        assertTrue(recorder.getDuplicateFrameCount() >= 2);
+    }
+
+    @Test
+    void rawFramesAreRepeated(@TempDir Path dir) throws Exception {
+        CefFrameRing ring = new CefFrameRing(2);
+        Path file = dir.resolve("frames.raw");
+        CefFrameRecorder recorder =
+                new CefFrameRecorder(ring, file, CefFrameRecorder.Format.RAW_BGRA, 50);
+        record(recorder, ring);
+        assertEquals(recorder.getRecordedFrameCount() * WIDTH * HEIGHT * 4, Files.size(file));
+    }
+
+    @Test
+    void aviHeaderIsComplete(@TempDir Path dir) throws Exception {
+        CefFrameRing ring = new CefFrameRing(2);
+        Path file = dir.resolve("frames.avi");
+        CefFrameRecorder recorder =
+                new CefFrameRecorder(ring, file, CefFrameRecorder.Format.MJPEG_AVI, 50);
+        record(recorder, ring);
+
+        ByteBuffer avi = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(0x46464952, avi.getInt(0)); // "RIFF"
+        assertEquals(avi.capacity() - 8, avi.getInt(4));
+        assertEquals(recorder.getRecordedFrameCount(), avi.getInt(48)); // dwTotalFrames
+        assertEquals(WIDTH, avi.getInt(64)); // dwWidth
+        assertEquals(HEIGHT, avi.getInt(68)); // dwHeight
+    }
+
+    @Test
+    void pngSequence(@TempDir Path dir) throws Exception {
+        CefFrameRing ring = new CefFrameRing(2);
+        CefFrameRecorder recorder =
+                new CefFrameRecorder(ring, dir, CefFrameRecorder.Format.PNG_SEQUENCE, 50);
+        record(recorder, ring);
+        assertTrue(Files.exists(dir.resolve("frame_000000.png")));
+        assertTrue(Files.exists(dir.resolve("frame_000002.png")));
+    }
+}
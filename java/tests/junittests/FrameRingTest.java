@@ -0,0 +1,139 @@
+// Copyright (c) 2020 The Chromium Embedded Framework Authors. All rights
+// reserved. Use of this source code is governed by a BSD-style license that
+// can be found in the LICENSE file.
+
+package tests.junittests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.cef.browser.CefFrameRing;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Rectangle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.concurrent.TimeUnit;
+
+// Test the CefFrameRing implementation. Does not require CEF.
+class FrameRingTest {
+    private static final int WIDTH = 8;
+    private static final int HEIGHT = 4;
+
+    private static ByteBuffer newView(int fill) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(WIDTH * HEIGHT * 4);
+        IntBuffer pixels = buffer.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        for (int i = 0; i < WIDTH * HEIGHT; ++i) pixels.put(i, fill);
+        return buffer;
+    }
+
+    private static void fill(ByteBuffer view, Rectangle rect, int value) {
+        IntBuffer pixels = view.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        for (int y = rect.y; y < rect.y + rect.height; ++y) {
+            for (int x = rect.x; x < rect.x + rect.width; ++x) pixels.put(y * WIDTH + x, value);
+        }
+    }
+
+    private static void assertFrame(ByteBuffer expected, CefFrameRing.Frame frame) {
+        assertEquals(WIDTH, frame.getWidth());
+        assertEquals(HEIGHT, frame.getHeight());
+        IntBuffer a = expected.duplicate().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        IntBuffer b = frame.getBuffer().asIntBuffer();
+        for (int i = 0; i < WIDTH * HEIGHT; ++i) assertEquals(a.get(i), b.get(i), "pixel " + i);
+    }
+
+    @Test
+    void claimInOrder() throws InterruptedException {
+        CefFrameRing ring = new CefFrameRing(3);
+        ByteBuffer view = newView(1);
+        Rectangle full = new Rectangle(0, 0, WIDTH, HEIGHT);
+        assertEquals(1, ring.write(new Rectangle[] {full}, view, WIDTH, HEIGHT));
+        assertEquals(2, ring.write(new Rectangle[] {full}, view, WIDTH, HEIGHT));
+
+        CefFrameRing.Frame frame = ring.claim(0, 0, TimeUnit.MILLISECONDS);
+        assertEquals(1, frame.getSequence());
+        ring.release(frame);
+        frame = ring.claim(frame.getSequence(), 0, TimeUnit.MILLISECONDS);
+        assertEquals(2, frame.getSequence());
+        ring.release(frame);
+        assertNull(ring.claim(2, 0, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void dirtyRectsKeepFramesCoherent() throws InterruptedException {
+        CefFrameRing ring = new CefFrameRing(2);
+        ByteBuffer view = newView(1);
+        ring.write(new Rectangle[] {new Rectangle(0, 0, WIDTH, HEIGHT)}, view, WIDTH, HEIGHT);
+
+        // Each buffer is reused several times and must pick up the changes it missed.
+        Rectangle[] changes = {new Rectangle(1, 1, 2, 2), new Rectangle(0, 3, WIDTH, 1),
+                new Rectangle(5, 0, 3, 2), new Rectangle(2, 0, 1, 4)};
+        for (int i = 0; i < changes.length; ++i) {
+            fill(view, changes[i], i + 2);
+            long sequence = ring.write(new Rectangle[] {changes[i]}, view, WIDTH, HEIGHT);
+            CefFrameRing.Frame frame = ring.claimLatest(0, 0, TimeUnit.MILLISECONDS);
+            assertEquals(sequence, frame.getSequence());
+            assertEquals(changes[i], frame.getDirtyRects()[0]);
+            assertFrame(view, frame);
+            ring.release(frame);
+        }
+    }
+
+    @Test
+    void oldestUnclaimedFrameIsOverwritten() throws InterruptedException {
+        CefFrameRing ring = new CefFrameRing(2);
+        ByteBuffer view = newView(1);
+        Rectangle[] full = {new Rectangle(0, 0, WIDTH, HEIGHT)};
+        ring.write(full, view, WIDTH, HEIGHT);
+        ring.write(full, view, WIDTH, HEIGHT);
+        ring.write(full, view, WIDTH, HEIGHT);
+        assertEquals(1, ring.getDroppedFrameCount());
+
+        CefFrameRing.Frame frame = ring.claim(0, 0, TimeUnit.MILLISECONDS);
+        assertEquals(2, frame.getSequence());
+    }
+
+    @Test
+    void claimedFramesAreNotOverwritten() throws InterruptedException {
+        CefFrameRing ring = new CefFrameRing(2);
+        ByteBuffer view = newView(1);
+        Rectangle[] full = {new Rectangle(0, 0, WIDTH, HEIGHT)};
+        ring.write(full, view, WIDTH, HEIGHT);
+        ring.write(full, view, WIDTH, HEIGHT);
+        CefFrameRing.Frame first = ring.claim(0, 0, TimeUnit.MILLISECONDS);
+        CefFrameRing.Frame second = ring.claim(1, 0, TimeUnit.MILLISECONDS);
+        assertNotSame(first, second);
+
+        // Both frames are claimed, so the next frame is dropped.
+        Rectangle changed = new Rectangle(0, 0, 2, 2);
+        fill(view, changed, 7);
+        assertEquals(0, ring.write(new Rectangle[] {changed}, view, WIDTH, HEIGHT));
+        assertEquals(1, first.getSequence());
+        assertFrame(newView(1), first);
+
+        // The dropped changes are carried over to the next frame.
+        ring.release(first);
+        long sequence =
+                ring.write(new Rectangle[] {new Rectangle(4, 0, 1, 1)}, view, WIDTH, HEIGHT);
+        assertEquals(4, sequence);
+        CefFrameRing.Frame latest = ring.claimLatest(2, 0, TimeUnit.MILLISECONDS);
+        assertEquals(4, latest.getSequence());
+        assertFrame(view, latest);
+        ring.release(latest);
+        ring.release(second);
+    }
+
+    @Test
+    void closeWakesUpConsumers() throws InterruptedException {
+        final CefFrameRing ring = new CefFrameRing(2);
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                ring.close();
+            }
+        }).start();
+        assertNull(ring.claim(0, 10, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,43 @@
+// Copyright (c) 2020 The Chromium Embedded Framework Authors. All rights
+// reserved. Use of this source code is governed by a BSD-style license that
+// can be found in the LICENSE file.
+
+package tests.junittests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import org.cef.CefBrowserSettings;
+import org.cef.browser.CefBrowser;
+import org.cef.browser.CefBrowserFactory;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Component;
+import java.awt.GraphicsEnvironment;
+
+// Test that software rendered browsers can be created without a display. The
+// native browser is only created by createImmediately(), so this does not
+// require CEF.
+class HeadlessSoftwareBrowserTest {
+    static {
+        // Only effective if AWT wasn't initialized by another test yet.
+        System.setProperty("java.awt.headless", "true");
+    }
+
+    @Test
+    void createComponent() {
+        assumeTrue(GraphicsEnvironment.isHeadless());
+
+        CefBrowserSettings settings = new CefBrowserSettings();
+        settings.windowless_software_rendering = true;
+        CefBrowser browser =
+                CefBrowserFactory.create(null, "about:blank", true, false, null, settings);
+
+        Component component = browser.getUIComponent();
+        assertNotNull(component);
+        component.setSize(320, 240);
+        assertEquals(320, component.getWidth());
+        assertEquals(240, component.getHeight());
+    }
+}
@@ -0,0 +1,55 @@
+// Copyright (c) 2020 The Chromium Embedded Framework Authors. All rights
+// reserved. Use of this source code is governed by a BSD-style license that
+// can be found in the LICENSE file.
+
+package tests.junittests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.cef.misc.CefHistogram;
+import org.junit.jupiter.api.Test;
+
+// Test the CefHistogram implementation. Does not require CEF.
+class HistogramTest {
+    @Test
+    void recordsIntoPowerOfTwoBuckets() {
+        CefHistogram histogram = new CefHistogram();
+        histogram.record(0);
+        histogram.record(1);
+        histogram.record(3);
+        histogram.record(100);
+        histogram.record(-5);
+
+        long[] buckets = histogram.getBuckets();
+        assertEquals(2, buckets[0]);
+        assertEquals(1, buckets[1]);
+        assertEquals(1, buckets[2]);
+        assertEquals(1, buckets[7]);
+        assertEquals(5, histogram.getCount());
+        assertEquals(100, histogram.getMax());
+        assertEquals(104.0 / 5, histogram.getMean(), 0.0001);
+    }
+
+    @Test
+    void percentileIsBucketUpperBound() {
+        CefHistogram histogram = new CefHistogram();
+        for (int i = 0; i < 99; ++i) histogram.record(10);
+        histogram.record(1000);
+
+        assertEquals(15, histogram.getPercentile(0.5));
+        assertEquals(15, histogram.getPercentile(0.99));
+        assertEquals(1000, histogram.getPercentile(1.0));
+    }
+
+    @Test
+    void resetClearsEverything() {
+        CefHistogram histogram = new CefHistogram();
+        histogram.record(42);
+        histogram.reset();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0.0, histogram.getMean(), 0.0);
+        assertEquals(0, histogram.getPercentile(0.99));
+    }
+}
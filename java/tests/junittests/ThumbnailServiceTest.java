@@ -0,0 +1,98 @@
+// Copyright (c) 2020 The Chromium Embedded Framework Authors. All rights
+// reserved. Use of this source code is governed by a BSD-style license that
+// can be found in the LICENSE file.
+
+package tests.junittests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.cef.browser.CefFrameRing;
+import org.cef.browser.CefThumbnailService;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+// Test the CefThumbnailService implementation. Does not require CEF.
+class ThumbnailServiceTest {
+    private static final int WIDTH = 16;
+    private static final int HEIGHT = 8;
+
+    // Scale synchronously on the thread writing to the ring.
+    private static final Executor DIRECT = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    private static void fill(ByteBuffer view, Rectangle rect, int value) {
+        IntBuffer pixels = view.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        for (int y = rect.y; y < rect.y + rect.height; ++y) {
+            for (int x = rect.x; x < rect.x + rect.width; ++x) pixels.put(y * WIDTH + x, value);
+        }
+    }
+
+    @Test
+    void boxFilter() {
+        CefFrameRing ring = new CefFrameRing(2);
+        CefThumbnailService service = new CefThumbnailService(4, 4, DIRECT);
+        CefThumbnailService.Thumbnail thumbnail = service.add(ring);
+
+        ByteBuffer view = ByteBuffer.allocateDirect(WIDTH * HEIGHT * 4);
+        Rectangle full = new Rectangle(0, 0, WIDTH, HEIGHT);
+        fill(view, full, 0xff000000);
+        // Half of the first 4x4 block is white.
+        fill(view, new Rectangle(0, 0, 4, 2), 0xffffffff);
+        ring.write(new Rectangle[] {full}, view, WIDTH, HEIGHT);
+
+        assertEquals(4, thumbnail.getScale());
+        BufferedImage image = thumbnail.getImage();
+        assertEquals(4, image.getWidth());
+        assertEquals(2, image.getHeight());
+        assertEquals(0xff7f7f7f, image.getRGB(0, 0));
+        assertEquals(0xff000000, image.getRGB(1, 0));
+    }
+
+    @Test
+    void onlyDirtyRegionsAreRescaled() {
+        CefFrameRing ring = new CefFrameRing(2);
+        CefThumbnailService service = new CefThumbnailService(8, 8, DIRECT);
+        final List<Rectangle> changes = new ArrayList<Rectangle>();
+        service.addListener(new CefThumbnailService.Listener() {
+            @Override
+            public void onThumbnailChanged(
+                    CefThumbnailService.Thumbnail thumbnail, Rectangle region) {
+                changes.add(region);
+            }
+        });
+        CefThumbnailService.Thumbnail thumbnail = service.add(ring);
+
+        ByteBuffer view = ByteBuffer.allocateDirect(WIDTH * HEIGHT * 4);
+        Rectangle full = new Rectangle(0, 0, WIDTH, HEIGHT);
+        fill(view, full, 0xff000000);
+        ring.write(new Rectangle[] {full}, view, WIDTH, HEIGHT);
+        BufferedImage image = thumbnail.getImage();
+
+        Rectangle dirty = new Rectangle(5, 3, 2, 1);
+        fill(view, dirty, 0xffffffff);
+        ring.write(new Rectangle[] {dirty}, view, WIDTH, HEIGHT);
+
+        assertSame(image, thumbnail.getImage());
+        assertEquals(2, changes.size());
+        assertEquals(new Rectangle(0, 0, 8, 4), changes.get(0));
+        assertEquals(new Rectangle(2, 1, 2, 1), changes.get(1));
+        // One of the four view pixels of each changed thumbnail pixel is white.
+        assertEquals(0xff3f3f3f, image.getRGB(2, 1));
+        assertEquals(0xff3f3f3f, image.getRGB(3, 1));
+        assertEquals(0xff000000, image.getRGB(1, 1));
+        assertEquals(2, thumbnail.getSequence());
+    }
+}
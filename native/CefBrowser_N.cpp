@@ -897,7 +897,9 @@ jboolean create(JNIEnv* env,
                 jboolean transparent,
                 jobject canvas,
                 jobject jcontext,
-                jobject jinspectAt) {
+                jobject jinspectAt,
+                jint windowlessFrameRate,
+                jboolean externalBeginFrame) {
   CefRefPtr<ClientHandler> clientHandler = GetCefFromJNIObject<ClientHandler>(
       env, jclientHandler, "CefClientHandler");
   if (!clientHandler.get())
@@ -946,10 +948,16 @@ jboolean create(JNIEnv* env,
 #endif
   } else {
     windowInfo.SetAsWindowless((CefWindowHandle)windowHandle);
+    // Frames are only produced on calls to SendExternalBeginFrame.
+    windowInfo.external_begin_frame_enabled = externalBeginFrame != JNI_FALSE;
   }
 
   CefBrowserSettings settings;
 
+  if (osr != JNI_FALSE && windowlessFrameRate > 0) {
+    settings.windowless_frame_rate = windowlessFrameRate;
+  }
+
   if (transparent == JNI_FALSE) {
     // Specify an opaque background color (white) to disable transparency.
     settings.background_color = CefColorSetARGB(255, 255, 255, 255);
@@ -1031,9 +1039,12 @@ Java_org_cef_browser_CefBrowser_1N_N_1CreateBrowser(JNIEnv* env,
                                                     jboolean osr,
                                                     jboolean transparent,
                                                     jobject canvas,
-                                                    jobject jcontext) {
+                                                    jobject jcontext,
+                                                    jint windowlessFrameRate,
+                                                    jboolean externalBeginFrame) {
   return create(env, jbrowser, NULL, jclientHandler, windowHandle, url, osr,
-                transparent, canvas, jcontext, NULL);
+                transparent, canvas, jcontext, NULL, windowlessFrameRate,
+                externalBeginFrame);
 }
 
 JNIEXPORT jboolean JNICALL
@@ -1045,9 +1056,12 @@ Java_org_cef_browser_CefBrowser_1N_N_1CreateDevTools(JNIEnv* env,
                                                      jboolean osr,
                                                      jboolean transparent,
                                                      jobject canvas,
-                                                     jobject inspect) {
+                                                     jobject inspect,
+                                                     jint windowlessFrameRate,
+                                                     jboolean externalBeginFrame) {
   return create(env, jbrowser, jparent, jclientHandler, windowHandle, NULL, osr,
-                transparent, canvas, NULL, inspect);
+                transparent, canvas, NULL, inspect, windowlessFrameRate,
+                externalBeginFrame);
 }
 
 JNIEXPORT jlong JNICALL
@@ -1322,6 +1336,36 @@ Java_org_cef_browser_CefBrowser_1N_N_1SetRenderingBlocked(JNIEnv* env,
   browser->GetHost()->SetRenderingBlocked(blocked);
 }
 
+JNIEXPORT void JNICALL
+Java_org_cef_browser_CefBrowser_1N_N_1SetWindowlessFrameRate(JNIEnv* env,
+                                                             jobject obj,
+                                                             jint frameRate) {
+  CefRefPtr<CefBrowser> browser = JNI_GET_BROWSER_OR_RETURN(env, obj);
+  if (browser->GetHost()->IsWindowRenderingDisabled()) {
+    // A rate of 0 restores the default rate.
+    browser->GetHost()->SetWindowlessFrameRate(frameRate > 0 ? frameRate : 30);
+  }
+}
+
+JNIEXPORT void JNICALL
+Java_org_cef_browser_CefBrowser_1N_N_1SendExternalBeginFrame(JNIEnv* env,
+                                                             jobject obj) {
+  CefRefPtr<CefBrowser> browser = JNI_GET_BROWSER_OR_RETURN(env, obj);
+  if (browser->GetHost()->IsWindowRenderingDisabled()) {
+    browser->GetHost()->SendExternalBeginFrame();
+  }
+}
+
+JNIEXPORT void JNICALL
+Java_org_cef_browser_CefBrowser_1N_N_1WasHidden(JNIEnv* env,
+                                                jobject obj,
+                                                jboolean hidden) {
+  CefRefPtr<CefBrowser> browser = JNI_GET_BROWSER_OR_RETURN(env, obj);
+  if (browser->GetHost()->IsWindowRenderingDisabled()) {
+    browser->GetHost()->WasHidden(hidden != JNI_FALSE);
+  }
+}
+
 JNIEXPORT jdouble JNICALL
 Java_org_cef_browser_CefBrowser_1N_N_1GetZoomLevel(JNIEnv* env, jobject obj) {
   CefRefPtr<CefBrowser> browser = JNI_GET_BROWSER_OR_RETURN(env, obj, 0.0);
@@ -11,7 +11,7 @@ extern "C" {
  * Class:     org_cef_browser_CefBrowser_N
  * Method:    N_CreateBrowser
  * Signature:
- * (Lorg/cef/handler/CefClientHandler;JLjava/lang/String;ZZLjava/awt/Component;Lorg/cef/browser/CefRequestContext;)Z
+ * (Lorg/cef/handler/CefClientHandler;JLjava/lang/String;ZZLjava/awt/Component;Lorg/cef/browser/CefRequestContext;IZ)Z
  */
 JNIEXPORT jboolean JNICALL
 Java_org_cef_browser_CefBrowser_1N_N_1CreateBrowser(JNIEnv*,
@@ -22,13 +22,15 @@ Java_org_cef_browser_CefBrowser_1N_N_1CreateBrowser(JNIEnv*,
                                                     jboolean,
                                                     jboolean,
                                                     jobject,
-                                                    jobject);
+                                                    jobject,
+                                                    jint,
+                                                    jboolean);
 
 /*
  * Class:     org_cef_browser_CefBrowser_N
  * Method:    N_CreateDevTools
  * Signature:
- * (Lorg/cef/browser/CefBrowser;Lorg/cef/handler/CefClientHandler;JZZLjava/awt/Component;Ljava/awt/Point;)Z
+ * (Lorg/cef/browser/CefBrowser;Lorg/cef/handler/CefClientHandler;JZZLjava/awt/Component;Ljava/awt/Point;IZ)Z
  */
 JNIEXPORT jboolean JNICALL
 Java_org_cef_browser_CefBrowser_1N_N_1CreateDevTools(JNIEnv*,
@@ -39,7 +41,9 @@ Java_org_cef_browser_CefBrowser_1N_N_1CreateDevTools(JNIEnv*,
                                                      jboolean,
                                                      jboolean,
                                                      jobject,
-                                                     jobject);
+                                                     jobject,
+                                                     jint,
+                                                     jboolean);
 
 /*
  * Class:     org_cef_browser_CefBrowser_N
@@ -294,6 +298,32 @@ Java_org_cef_browser_CefBrowser_1N_N_1SetRenderingBlocked(JNIEnv*,
                                                           jobject,
                                                           jboolean);
 
+/*
+ * Class:     org_cef_browser_CefBrowser_N
+ * Method:    N_SetWindowlessFrameRate
+ * Signature: (I)V
+ */
+JNIEXPORT void JNICALL
+Java_org_cef_browser_CefBrowser_1N_N_1SetWindowlessFrameRate(JNIEnv*,
+                                                             jobject,
+                                                             jint);
+
+/*
+ * Class:     org_cef_browser_CefBrowser_N
+ * Method:    N_SendExternalBeginFrame
+ * Signature: ()V
+ */
+JNIEXPORT void JNICALL
+Java_org_cef_browser_CefBrowser_1N_N_1SendExternalBeginFrame(JNIEnv*, jobject);
+
+/*
+ * Class:     org_cef_browser_CefBrowser_N
+ * Method:    N_WasHidden
+ * Signature: (Z)V
+ */
+JNIEXPORT void JNICALL
+Java_org_cef_browser_CefBrowser_1N_N_1WasHidden(JNIEnv*, jobject, jboolean);
+
 /*
  * Class:     org_cef_browser_CefBrowser_N
  * Method:    N_GetZoomLevel
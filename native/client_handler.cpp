@@ -237,6 +237,11 @@ void ClientHandler::OnAfterCreated() {}
 void ClientHandler::OnBeforeClose(CefRefPtr<CefBrowser> browser) {
   REQUIRE_UI_THREAD();
 
+  CefRefPtr<RenderHandler> render_handler =
+      GetHandler<RenderHandler>("RenderHandler");
+  if (render_handler)
+    render_handler->OnBeforeClose(browser);
+
   base::AutoLock lock_scope(message_router_lock_);
   for (auto& router : message_routers_) {
     router->OnBeforeClose(browser);
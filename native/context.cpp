@@ -60,6 +60,7 @@ bool Context::PreInitialize(JNIEnv* env, jobject c) {
     return false;
   SetJavaClassLoader(env, javaClassLoader);
   env->DeleteLocalRef(javaClassLoader);
+  InitJNICache(env);
 
   return true;
 }
@@ -6,6 +6,7 @@
 
 #include <jawt.h>
 #include <algorithm>
+#include <map>
 
 #include "client_handler.h"
 #include "util.h"
@@ -16,6 +17,105 @@ JavaVM* g_jvm = NULL;
 
 jobject g_javaClassLoader = NULL;
 
+// Cached global class reference with the field and method IDs resolved on it,
+// keyed by name + signature.
+struct JNIClassEntry {
+  jclass cls;
+  std::map<std::string, jfieldID> field_ids;
+  std::map<std::string, jmethodID> method_ids;
+};
+
+// Protects the class and enum value caches. CEF calls into Java from several
+// threads.
+base::Lock g_cacheLock;
+std::map<std::string, JNIClassEntry*> g_classesByName;
+std::map<jclass, JNIClassEntry*> g_classesByRef;
+// Global references of enum constants, keyed by class name + value name.
+std::map<std::string, jobject> g_enumValues;
+
+// Classes that are used on every paint, load and resource callback.
+const char* const kCachedClasses[] = {
+    "java/awt/Cursor",
+    "java/awt/Dimension",
+    "java/awt/Point",
+    "java/awt/Rectangle",
+    "java/awt/event/InputEvent",
+    "java/awt/event/MouseEvent",
+    "java/lang/Long",
+    "java/lang/String",
+    "java/util/Date",
+    "java/util/HashMap",
+    "java/util/Vector",
+    "org/cef/misc/BoolRef",
+    "org/cef/misc/CefPageRange",
+    "org/cef/misc/IntRef",
+    "org/cef/misc/StringRef",
+    "org/cef/network/CefCookie",
+    "org/cef/callback/CefContextMenuParams$MediaType",
+    "org/cef/callback/CefMenuModel$MenuItemType",
+    "org/cef/handler/CefDialogHandler$FileDialogMode",
+    "org/cef/handler/CefFocusHandler$FocusSource",
+    "org/cef/handler/CefJSDialogHandler$JSDialogType",
+    "org/cef/handler/CefKeyboardHandler$CefKeyEvent$EventType",
+    "org/cef/handler/CefLoadHandler$ErrorCode",
+    "org/cef/handler/CefRequestHandler$TerminationStatus",
+    "org/cef/network/CefPostDataElement$Type",
+    "org/cef/network/CefRequest$ReferrerPolicy",
+    "org/cef/network/CefRequest$ResourceType",
+    "org/cef/network/CefRequest$TransitionType",
+    "org/cef/network/CefURLRequest$Status",
+};
+
+struct JNIMemberDesc {
+  const char* class_name;
+  const char* name;
+  const char* sig;
+};
+
+const JNIMemberDesc kCachedFields[] = {
+    {"java/awt/Dimension", "width", "I"},
+    {"java/awt/Dimension", "height", "I"},
+    {"java/awt/Point", "x", "I"},
+    {"java/awt/Point", "y", "I"},
+    {"java/awt/Rectangle", "x", "I"},
+    {"java/awt/Rectangle", "y", "I"},
+    {"java/awt/Rectangle", "width", "I"},
+    {"java/awt/Rectangle", "height", "I"},
+    {"org/cef/network/CefCookie", "name", "Ljava/lang/String;"},
+    {"org/cef/network/CefCookie", "value", "Ljava/lang/String;"},
+    {"org/cef/network/CefCookie", "domain", "Ljava/lang/String;"},
+    {"org/cef/network/CefCookie", "path", "Ljava/lang/String;"},
+    {"org/cef/network/CefCookie", "secure", "Z"},
+    {"org/cef/network/CefCookie", "httponly", "Z"},
+    {"org/cef/network/CefCookie", "creation", "Ljava/util/Date;"},
+    {"org/cef/network/CefCookie", "lastAccess", "Ljava/util/Date;"},
+    {"org/cef/network/CefCookie", "hasExpires", "Z"},
+    {"org/cef/network/CefCookie", "expires", "Ljava/util/Date;"},
+};
+
+const JNIMemberDesc kCachedMethods[] = {
+    {"java/awt/Point", "<init>", "()V"},
+    {"java/awt/Rectangle", "<init>", "()V"},
+    {"java/util/Date", "<init>", "()V"},
+    {"java/util/Vector", "<init>", "()V"},
+    {"org/cef/misc/BoolRef", "<init>", "()V"},
+    {"org/cef/misc/IntRef", "<init>", "()V"},
+    {"org/cef/misc/StringRef", "<init>", "()V"},
+    {"org/cef/network/CefCookie", "<init>",
+     "(Ljava/lang/String;Ljava/lang/String;"
+     "Ljava/lang/String;Ljava/lang/String;"
+     "ZZLjava/util/Date;Ljava/util/Date;"
+     "ZLjava/util/Date;)V"},
+};
+
+// Returns the cache entry of |cls| if it was returned by FindClass. Must be
+// called with g_cacheLock held.
+JNIClassEntry* GetClassEntry(jclass cls) {
+  std::map<jclass, JNIClassEntry*>::const_iterator it =
+      g_classesByRef.find(cls);
+  return it != g_classesByRef.end() ? it->second : NULL;
+}
+
 }  // namespace
 
 void SetJVM(JavaVM* jvm) {
@@ -67,9 +167,38 @@ void SetJavaClassLoader(JNIEnv* env, jobject javaClassLoader) {
   g_javaClassLoader = env->NewGlobalRef(javaClassLoader);
 }
 
+void InitJNICache(JNIEnv* env) {
+  for (size_t i = 0; i < arraysize(kCachedClasses); ++i)
+    FindClass(env, kCachedClasses[i]);
+
+  for (size_t i = 0; i < arraysize(kCachedFields); ++i) {
+    jclass cls = FindClass(env, kCachedFields[i].class_name);
+    if (cls && !GetJNIFieldID(env, cls, kCachedFields[i].name,
+                              kCachedFields[i].sig)) {
+      env->ExceptionClear();
+    }
+  }
+
+  for (size_t i = 0; i < arraysize(kCachedMethods); ++i) {
+    jclass cls = FindClass(env, kCachedMethods[i].class_name);
+    if (cls && !GetJNIMethodID(env, cls, kCachedMethods[i].name,
+                               kCachedMethods[i].sig)) {
+      env->ExceptionClear();
+    }
+  }
+}
+
 jclass FindClass(JNIEnv* env, const char* class_name) {
   ASSERT(g_javaClassLoader);
 
+  {
+    base::AutoLock lock_scope(g_cacheLock);
+    std::map<std::string, JNIClassEntry*>::const_iterator it =
+        g_classesByName.find(class_name);
+    if (it != g_classesByName.end())
+      return it->second->cls;
+  }
+
   std::string classNameSeparatedByDots(class_name);
   std::replace(classNameSeparatedByDots.begin(), classNameSeparatedByDots.end(),
                '/', '.');
@@ -84,11 +213,126 @@ jclass FindClass(JNIEnv* env, const char* class_name) {
 
   env->DeleteLocalRef(classNameJString);
 
-  return static_cast<jclass>(result);
+  if (!result)
+    return NULL;
+
+  jclass cls = static_cast<jclass>(env->NewGlobalRef(result));
+  env->DeleteLocalRef(result);
+
+  base::AutoLock lock_scope(g_cacheLock);
+  std::map<std::string, JNIClassEntry*>::const_iterator it =
+      g_classesByName.find(class_name);
+  if (it != g_classesByName.end()) {
+    // Another thread loaded the class in the meantime.
+    env->DeleteGlobalRef(cls);
+    return it->second->cls;
+  }
+
+  JNIClassEntry* entry = new JNIClassEntry();
+  entry->cls = cls;
+  g_classesByName[class_name] = entry;
+  g_classesByRef[cls] = entry;
+  return cls;
+}
+
+jfieldID GetJNIFieldID(JNIEnv* env,
+                       jclass cls,
+                       const char* field_name,
+                       const char* sig) {
+  const std::string key = std::string(field_name) + sig;
+  {
+    base::AutoLock lock_scope(g_cacheLock);
+    JNIClassEntry* entry = GetClassEntry(cls);
+    if (entry) {
+      std::map<std::string, jfieldID>::const_iterator it =
+          entry->field_ids.find(key);
+      if (it != entry->field_ids.end())
+        return it->second;
+    }
+  }
+
+  jfieldID field = env->GetFieldID(cls, field_name, sig);
+  if (field) {
+    base::AutoLock lock_scope(g_cacheLock);
+    JNIClassEntry* entry = GetClassEntry(cls);
+    if (entry)
+      entry->field_ids[key] = field;
+  }
+  return field;
+}
+
+jmethodID GetJNIMethodID(JNIEnv* env,
+                         jclass cls,
+                         const char* method_name,
+                         const char* sig) {
+  const std::string key = std::string(method_name) + sig;
+  {
+    base::AutoLock lock_scope(g_cacheLock);
+    JNIClassEntry* entry = GetClassEntry(cls);
+    if (entry) {
+      std::map<std::string, jmethodID>::const_iterator it =
+          entry->method_ids.find(key);
+      if (it != entry->method_ids.end())
+        return it->second;
+    }
+  }
+
+  jmethodID method = env->GetMethodID(cls, method_name, sig);
+  if (method) {
+    base::AutoLock lock_scope(g_cacheLock);
+    JNIClassEntry* entry = GetClassEntry(cls);
+    if (entry)
+      entry->method_ids[key] = method;
+  }
+  return method;
+}
+
+jmethodID JNIMethodCache::Get(JNIEnv* env,
+                              jobject obj,
+                              const char* method_name,
+                              const char* sig) {
+  jclass cls = env->GetObjectClass(obj);
+  if (!cls)
+    return NULL;
+
+  {
+    base::AutoLock lock_scope(lock_);
+    if (method_name_ == method_name && sig_ == sig) {
+      for (int i = 0; i < kEntryCount && entries_[i].method_id; ++i) {
+        if (env->IsSameObject(cls, entries_[i].cls)) {
+          env->DeleteLocalRef(cls);
+          return entries_[i].method_id;
+        }
+      }
+    }
+  }
+
+  jmethodID method = env->GetMethodID(cls, method_name, sig);
+  if (method) {
+    base::AutoLock lock_scope(lock_);
+    if (method_name_ != method_name || sig_ != sig) {
+      // The call site passes a computed name. Start over.
+      for (int i = 0; i < kEntryCount && entries_[i].method_id; ++i) {
+        env->DeleteWeakGlobalRef(entries_[i].cls);
+        entries_[i] = Entry();
+      }
+      method_name_ = method_name;
+      sig_ = sig;
+      next_entry_ = 0;
+    }
+    Entry& entry = entries_[next_entry_];
+    next_entry_ = (next_entry_ + 1) % kEntryCount;
+    if (entry.cls)
+      env->DeleteWeakGlobalRef(entry.cls);
+    entry.cls = env->NewWeakGlobalRef(cls);
+    entry.method_id = method;
+  }
+  env->DeleteLocalRef(cls);
+  return method;
 }
 
 jobject NewJNIObject(JNIEnv* env, jclass cls) {
-  jmethodID initID = env->GetMethodID(cls, "<init>", "()V");
+  jmethodID initID = GetJNIMethodID(env, cls, "<init>", "()V");
   if (initID == 0) {
     env->ExceptionClear();
     return NULL;
@@ -119,7 +363,7 @@ jobject NewJNIObject(JNIEnv* env,
   if (!cls)
     return NULL;
 
-  jmethodID initID = env->GetMethodID(cls, "<init>", sig);
+  jmethodID initID = GetJNIMethodID(env, cls, "<init>", sig);
   if (initID == 0) {
     env->ExceptionClear();
     return NULL;
@@ -906,7 +1150,7 @@ bool GetJNIFieldString(JNIEnv* env,
                        jobject obj,
                        const char* field_name,
                        CefString* value) {
-  jfieldID field = env->GetFieldID(cls, field_name, "Ljava/lang/String;");
+  jfieldID field = GetJNIFieldID(env, cls, field_name, "Ljava/lang/String;");
   if (field) {
     jstring jstr = (jstring)env->GetObjectField(obj, field);
     const char* chr = NULL;
@@ -927,7 +1171,7 @@ bool GetJNIFieldDate(JNIEnv* env,
                      jobject obj,
                      const char* field_name,
                      CefTime* value) {
-  jfieldID field = env->GetFieldID(cls, field_name, "Ljava/util/Date;");
+  jfieldID field = GetJNIFieldID(env, cls, field_name, "Ljava/util/Date;");
   if (field) {
     jobject jdate = env->GetObjectField(obj, field);
     long timestamp = 0;
@@ -945,7 +1189,7 @@ bool GetJNIFieldBoolean(JNIEnv* env,
                         jobject obj,
                         const char* field_name,
                         int* value) {
-  jfieldID field = env->GetFieldID(cls, field_name, "Z");
+  jfieldID field = GetJNIFieldID(env, cls, field_name, "Z");
   if (field) {
     *value = env->GetBooleanField(obj, field) != JNI_FALSE ? 1 : 0;
     return true;
@@ -960,7 +1204,7 @@ bool GetJNIFieldObject(JNIEnv* env,
                        const char* field_name,
                        jobject* value,
                        const char* object_type) {
-  jfieldID field = env->GetFieldID(cls, field_name, object_type);
+  jfieldID field = GetJNIFieldID(env, cls, field_name, object_type);
   if (field) {
     *value = env->GetObjectField(obj, field);
     return true;
@@ -974,7 +1218,7 @@ bool GetJNIFieldDouble(JNIEnv* env,
                        jobject obj,
                        const char* field_name,
                        double* value) {
-  jfieldID field = env->GetFieldID(cls, field_name, "D");
+  jfieldID field = GetJNIFieldID(env, cls, field_name, "D");
   if (field) {
     *value = env->GetDoubleField(obj, field);
     return true;
@@ -988,7 +1232,7 @@ bool GetJNIFieldInt(JNIEnv* env,
                     jobject obj,
                     const char* field_name,
                     int* value) {
-  jfieldID field = env->GetFieldID(cls, field_name, "I");
+  jfieldID field = GetJNIFieldID(env, cls, field_name, "I");
   if (field) {
     *value = env->GetIntField(obj, field);
     return true;
@@ -1002,7 +1246,7 @@ bool GetJNIFieldLong(JNIEnv* env,
                      jobject obj,
                      const char* field_name,
                      jlong* value) {
-  jfieldID field = env->GetFieldID(cls, field_name, "J");
+  jfieldID field = GetJNIFieldID(env, cls, field_name, "J");
   if (field) {
     *value = env->GetLongField(obj, field);
     return true;
@@ -1016,7 +1260,7 @@ bool SetJNIFieldInt(JNIEnv* env,
                     jobject obj,
                     const char* field_name,
                     int value) {
-  jfieldID field = env->GetFieldID(cls, field_name, "I");
+  jfieldID field = GetJNIFieldID(env, cls, field_name, "I");
   if (field) {
     env->SetIntField(obj, field, value);
     return true;
@@ -1043,7 +1287,7 @@ bool CallJNIMethodI_V(JNIEnv* env,
                       jobject obj,
                       const char* method_name,
                       int* value) {
-  jmethodID methodID = env->GetMethodID(cls, method_name, "()I");
+  jmethodID methodID = GetJNIMethodID(env, cls, method_name, "()I");
   if (methodID) {
     *value = env->CallIntMethod(obj, methodID);
     return true;
@@ -1057,7 +1301,7 @@ bool CallJNIMethodC_V(JNIEnv* env,
                       jobject obj,
                       const char* method_name,
                       char16* value) {
-  jmethodID methodID = env->GetMethodID(cls, method_name, "()C");
+  jmethodID methodID = GetJNIMethodID(env, cls, method_name, "()C");
   if (methodID) {
     *value = env->CallCharMethod(obj, methodID);
     return true;
@@ -1451,6 +1695,15 @@ jobject NewJNIURLRequestStatus(
 jobject GetJNIEnumValue(JNIEnv* env,
                         const char* class_name,
                         const char* enum_valname) {
+  std::string key;
+  key.append(class_name).append(".").append(enum_valname);
+  {
+    base::AutoLock lock_scope(g_cacheLock);
+    std::map<std::string, jobject>::const_iterator it = g_enumValues.find(key);
+    if (it != g_enumValues.end())
+      return env->NewLocalRef(it->second);
+  }
+
   jclass sourceCls = FindClass(env, class_name);
   if (!sourceCls)
     return NULL;
@@ -1464,6 +1717,13 @@ jobject GetJNIEnumValue(JNIEnv* env,
     return NULL;
 
   jobject jsource = env->GetStaticObjectField(sourceCls, fieldId);
+  if (!jsource)
+    return NULL;
+
+  // Enum constants never change, so the reference can be cached.
+  base::AutoLock lock_scope(g_cacheLock);
+  if (g_enumValues.find(key) == g_enumValues.end())
+    g_enumValues[key] = env->NewGlobalRef(jsource);
   return jsource;
 }
 
@@ -1476,11 +1736,10 @@ bool IsJNIEnumValue(JNIEnv* env,
 
   jobject compareTo = GetJNIEnumValue(env, class_name, enum_valname);
   if (compareTo) {
-    jboolean isEqual = JNI_FALSE;
-    JNI_CALL_METHOD(env, jenum, "equals", "(Ljava/lang/Object;)Z", Boolean,
-                    isEqual, compareTo);
+    // Enum constants are singletons.
+    bool isEqual = env->IsSameObject(jenum, compareTo) != JNI_FALSE;
     env->DeleteLocalRef(compareTo);
-    return (isEqual != JNI_FALSE);
+    return isEqual;
   }
   return false;
 }
@@ -6,7 +6,9 @@
 #define JCEF_NATIVE_JNI_UTIL_H_
 
 #include <jni.h>
+#include <string>
 #include <vector>
+#include "include/base/cef_lock.h"
 #include "include/cef_base.h"
 #include "include/cef_browser.h"
 #include "include/cef_frame.h"
@@ -40,10 +42,62 @@ void DetachFromThread(bool* mustDetach);
 // uses a custom class loader for JCEF classes (e.g. in JavaWebStart).
 void SetJavaClassLoader(JNIEnv* env, jobject javaClassLoader);
 
+// Load the classes, field IDs and method IDs that are used on every paint,
+// load and resource callback into the cache. Call once after
+// SetJavaClassLoader.
+void InitJNICache(JNIEnv* env);
+
 // Returns a class with the given fully qualified |class_name| (with '/' as
-// separator).
+// separator). The result is a global reference that is cached for the
+// lifetime of the process and must not be deleted by the caller.
 jclass FindClass(JNIEnv* env, const char* class_name);
 
+// Returns the ID of a field or method of |cls|. The IDs are cached if |cls|
+// was returned by FindClass. Returns NULL with a pending exception if the
+// field or method doesn't exist.
+jfieldID GetJNIFieldID(JNIEnv* env,
+                       jclass cls,
+                       const char* field_name,
+                       const char* sig);
+jmethodID GetJNIMethodID(JNIEnv* env,
+                         jclass cls,
+                         const char* method_name,
+                         const char* sig);
+
+// Caches the method IDs that a JNI_CALL_* call site resolved for the classes
+// of the objects it was called on. The objects of a call site share one or a
+// few classes, so GetMethodID only runs for the first call per class.
+class JNIMethodCache {
+ public:
+  JNIMethodCache() : next_entry_(0) {}
+
+  // Returns the ID of the method |method_name| with signature |sig| of the
+  // class of |obj|, or NULL with a pending exception if it doesn't exist.
+  jmethodID Get(JNIEnv* env,
+                jobject obj,
+                const char* method_name,
+                const char* sig);
+
+ private:
+  static const int kEntryCount = 4;
+
+  struct Entry {
+    Entry() : cls(NULL), method_id(NULL) {}
+    // Weak, so that the cache doesn't keep the class from being unloaded.
+    jweak cls;
+    jmethodID method_id;
+  };
+
+  base::Lock lock_;
+  std::string method_name_;
+  std::string sig_;
+  Entry entries_[kEntryCount];
+  // The entry that is replaced next when all are in use.
+  int next_entry_;
+
+  DISALLOW_COPY_AND_ASSIGN(JNIMethodCache);
+};
+
 // Helper macros to bind and release the JNI environment
 // to other threads than the JNI function was called on.
 #define BEGIN_ENV(e)           \
@@ -275,8 +329,8 @@ bool IsJNIEnumValue(JNIEnv* env,
 #define JNI_CALL_METHOD(env, obj, method, sig, type, storeIn, ...)        \
   {                                                                       \
     if (env && obj) {                                                     \
-      jclass _cls = env->GetObjectClass(obj);                             \
-      jmethodID _methodId = env->GetMethodID(_cls, method, sig);          \
+      static JNIMethodCache _methodCache;                                 \
+      jmethodID _methodId = _methodCache.Get(env, obj, method, sig);      \
       if (_methodId != NULL) {                                            \
         storeIn = env->Call##type##Method(obj, _methodId, ##__VA_ARGS__); \
       }                                                                   \
@@ -287,30 +341,30 @@ bool IsJNIEnumValue(JNIEnv* env,
     }                                                                     \
   }
 
-#define JNI_CALL_VOID_METHOD_EX(env, obj, method, sig, ...)      \
-  {                                                              \
-    if (env && obj) {                                            \
-      jclass _cls = env->GetObjectClass(obj);                    \
-      jmethodID _methodId = env->GetMethodID(_cls, method, sig); \
-      if (_methodId != NULL) {                                   \
-        env->CallVoidMethod(obj, _methodId, ##__VA_ARGS__);      \
-      }                                                          \
-    }                                                            \
+#define JNI_CALL_VOID_METHOD_EX(env, obj, method, sig, ...)          \
+  {                                                                  \
+    if (env && obj) {                                                \
+      static JNIMethodCache _methodCache;                            \
+      jmethodID _methodId = _methodCache.Get(env, obj, method, sig); \
+      if (_methodId != NULL) {                                       \
+        env->CallVoidMethod(obj, _methodId, ##__VA_ARGS__);          \
+      }                                                              \
+    }                                                                \
   }
 
-#define JNI_CALL_VOID_METHOD(env, obj, method, sig, ...)         \
-  {                                                              \
-    if (env && obj) {                                            \
-      jclass _cls = env->GetObjectClass(obj);                    \
-      jmethodID _methodId = env->GetMethodID(_cls, method, sig); \
-      if (_methodId != NULL) {                                   \
-        env->CallVoidMethod(obj, _methodId, ##__VA_ARGS__);      \
-      }                                                          \
-      if (env->ExceptionOccurred()) {                            \
-        env->ExceptionDescribe();                                \
-        env->ExceptionClear();                                   \
-      }                                                          \
-    }                                                            \
+#define JNI_CALL_VOID_METHOD(env, obj, method, sig, ...)             \
+  {                                                                  \
+    if (env && obj) {                                                \
+      static JNIMethodCache _methodCache;                            \
+      jmethodID _methodId = _methodCache.Get(env, obj, method, sig); \
+      if (_methodId != NULL) {                                       \
+        env->CallVoidMethod(obj, _methodId, ##__VA_ARGS__);          \
+      }                                                              \
+      if (env->ExceptionOccurred()) {                                \
+        env->ExceptionDescribe();                                    \
+        env->ExceptionClear();                                       \
+      }                                                              \
+    }                                                                \
   }
 
 #define JNI_GET_BROWSER_OR_RETURN(env, jbrowser, ...) \
@@ -4,6 +4,8 @@
 
 #include "render_handler.h"
 
+#include <algorithm>
+
 #include "client_handler.h"
 #include "jni_util.h"
 #include "util.h"
@@ -74,9 +76,33 @@ RenderHandler::RenderHandler(JNIEnv* env, jobject handler) {
 
 RenderHandler::~RenderHandler() {
   JNIEnv* env = GetJNIEnv();
+  for (auto& it : paint_args_)
+    ReleasePaintArgs(env, it.second);
   env->DeleteGlobalRef(jhandler_);
 }
 
+void RenderHandler::OnBeforeClose(CefRefPtr<CefBrowser> browser) {
+  auto it = paint_args_.find(browser->GetIdentifier());
+  if (it == paint_args_.end())
+    return;
+  JNIEnv* env = GetJNIEnv();
+  if (env)
+    ReleasePaintArgs(env, it->second);
+  paint_args_.erase(it);
+}
+
+void RenderHandler::ReleasePaintArgs(JNIEnv* env, PaintArgs& args) {
+  if (args.jbrowser)
+    env->DeleteGlobalRef(args.jbrowser);
+  if (args.jrects)
+    env->DeleteGlobalRef(args.jrects);
+  for (int i = 0; i < 2; ++i) {
+    if (args.jbuffers[i])
+      env->DeleteGlobalRef(args.jbuffers[i]);
+  }
+  args = PaintArgs();
+}
+
 bool RenderHandler::GetRootScreenRect(CefRefPtr<CefBrowser> browser,
                                       CefRect& rect) {
   JNIEnv* env = GetJNIEnv();
@@ -153,19 +179,63 @@ void RenderHandler::OnPaint(CefRefPtr<CefBrowser> browser,
   JNIEnv* env = GetJNIEnv();
   if (!env)
     return;
-  jobjectArray rect_array = NewJNIRectArray(env, dirtyRects);
-  jobject direct_buffer =
-      env->NewDirectByteBuffer(const_cast<void*>(buffer), width * height * 4);
+
+  // The Java browser, the buffer wrapper and the rect array are created once
+  // and reused, so that painting neither allocates Java objects nor calls back
+  // into Java to look up the browser.
+  PaintArgs& args = paint_args_[browser->GetIdentifier()];
+  if (!args.jbrowser) {
+    jobject jbrowser = GetJNIBrowser(browser);
+    if (!jbrowser) {
+      paint_args_.erase(browser->GetIdentifier());
+      return;
+    }
+    args.jbrowser = env->NewGlobalRef(jbrowser);
+    env->DeleteLocalRef(jbrowser);
+  }
+
+  // CEF reuses its pixel buffer until the size of the view changes.
+  const int index = type == PET_VIEW ? 0 : 1;
+  const jlong capacity = static_cast<jlong>(width) * height * 4;
+  if (args.buffer_addresses[index] != buffer ||
+      args.buffer_capacities[index] != capacity) {
+    if (args.jbuffers[index])
+      env->DeleteGlobalRef(args.jbuffers[index]);
+    jobject direct_buffer =
+        env->NewDirectByteBuffer(const_cast<void*>(buffer), capacity);
+    args.jbuffers[index] = env->NewGlobalRef(direct_buffer);
+    env->DeleteLocalRef(direct_buffer);
+    args.buffer_addresses[index] = buffer;
+    args.buffer_capacities[index] = capacity;
+  }
+
+  const jsize rect_count = static_cast<jsize>(dirtyRects.size());
+  if (!args.jrects || args.rects_capacity < rect_count * 4) {
+    if (args.jrects)
+      env->DeleteGlobalRef(args.jrects);
+    args.rects_capacity = std::max(rect_count * 4, 16);
+    jintArray jrects = env->NewIntArray(args.rects_capacity);
+    args.jrects = static_cast<jintArray>(env->NewGlobalRef(jrects));
+    env->DeleteLocalRef(jrects);
+  }
+  if (rect_count > 0) {
+    rect_data_.resize(rect_count * 4);
+    for (jsize i = 0; i < rect_count; ++i) {
+      const CefRect& rect = dirtyRects[i];
+      rect_data_[i * 4] = rect.x;
+      rect_data_[i * 4 + 1] = rect.y;
+      rect_data_[i * 4 + 2] = rect.width;
+      rect_data_[i * 4 + 3] = rect.height;
+    }
+    env->SetIntArrayRegion(args.jrects, 0, rect_count * 4, rect_data_.data());
+  }
+
   jboolean jtype = type == PET_VIEW ? JNI_FALSE : JNI_TRUE;
-  jobject jbrowser = GetJNIBrowser(browser);
   JNI_CALL_VOID_METHOD(env, jhandler_, "onPaint",
-                       "(Lorg/cef/browser/CefBrowser;Z[Ljava/awt/"
-                       "Rectangle;Ljava/nio/ByteBuffer;II)V",
-                       jbrowser, jtype, rect_array, direct_buffer,
-                       width, height);
-  env->DeleteLocalRef(jbrowser);
-  env->DeleteLocalRef(rect_array);
-  env->DeleteLocalRef(direct_buffer);
+                       "(Lorg/cef/browser/CefBrowser;Z[IILjava/nio/"
+                       "ByteBuffer;II)V",
+                       args.jbrowser, jtype, args.jrects, rect_count,
+                       args.jbuffers[index], width, height);
 }
 
 // TODO(JCEF): Expose all parameters.
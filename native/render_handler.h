@@ -7,6 +7,10 @@
 #pragma once
 
 #include <jni.h>
+
+#include <map>
+#include <vector>
+
 #include "include/cef_render_handler.h"
 
 // RenderHandler implementation.
@@ -46,6 +50,9 @@ class RenderHandler : public CefRenderHandler {
   virtual void UpdateDragCursor(CefRefPtr<CefBrowser> browser,
                                 DragOperation operation) OVERRIDE;
 
+  // Release the objects cached for painting |browser|.
+  void OnBeforeClose(CefRefPtr<CefBrowser> browser);
+
   bool GetViewRect(jobject browser, CefRect& rect);
   bool GetScreenPoint(jobject browser,
                       int viewX,
@@ -56,6 +63,24 @@ class RenderHandler : public CefRenderHandler {
  protected:
   jobject jhandler_;
 
+ private:
+  // Java objects passed to onPaint that are reused for all paints of a browser.
+  // Index 0 of the buffer arrays is used for the view, index 1 for popups.
+  struct PaintArgs {
+    jobject jbrowser = nullptr;
+    jintArray jrects = nullptr;
+    jsize rects_capacity = 0;
+    jobject jbuffers[2] = {nullptr, nullptr};
+    const void* buffer_addresses[2] = {nullptr, nullptr};
+    jlong buffer_capacities[2] = {0, 0};
+  };
+
+  void ReleasePaintArgs(JNIEnv* env, PaintArgs& args);
+
+  // Accessed on the UI thread only.
+  std::map<int, PaintArgs> paint_args_;
+  std::vector<jint> rect_data_;
+
   // Include the default reference counting implementation.
   IMPLEMENT_REFCOUNTING(RenderHandler);
 };